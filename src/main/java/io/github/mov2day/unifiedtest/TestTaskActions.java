@@ -0,0 +1,346 @@
+package io.github.mov2day.unifiedtest;
+
+import io.github.mov2day.unifiedtest.collector.ResultJournal;
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResult;
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResultCollector;
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension;
+import io.github.mov2day.unifiedtest.framework.JUnit4Adapter;
+import io.github.mov2day.unifiedtest.framework.JUnit5Adapter;
+import io.github.mov2day.unifiedtest.framework.TestFrameworkAdapter;
+import io.github.mov2day.unifiedtest.framework.TestNGAdapter;
+import io.github.mov2day.unifiedtest.reporting.AttachmentStore;
+import io.github.mov2day.unifiedtest.reporting.ConsoleReporter;
+import io.github.mov2day.unifiedtest.reporting.HtmlReportGenerator;
+import io.github.mov2day.unifiedtest.reporting.JUnitXmlReportGenerator;
+import io.github.mov2day.unifiedtest.reporting.JsonReportGenerator;
+import io.github.mov2day.unifiedtest.reporting.PrettyConsoleTestListener;
+import io.github.mov2day.unifiedtest.reporting.ReportBundleGenerator;
+import io.github.mov2day.unifiedtest.reporting.testmanagement.TestManagementService;
+import io.github.mov2day.unifiedtest.reporting.testmanagement.TestManagementSystem;
+import org.gradle.api.Action;
+import org.gradle.api.Task;
+import org.gradle.api.file.Directory;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.api.tasks.testing.TestDescriptor;
+import org.gradle.api.tasks.testing.TestListener;
+import org.gradle.api.tasks.testing.TestResult;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Task actions of the plugin. They are classes rather than lambdas so the configuration cache can store them, and
+ * hold only providers, build services and plain state: the project is never reached from a running task.
+ */
+final class TestTaskActions {
+    static final String JOURNAL_DIR = "unifiedtest/journal";
+
+    private TestTaskActions() {
+    }
+
+    /**
+     * Gets the framework adapters in the order they are tried.
+     */
+    static List<TestFrameworkAdapter> adapters() {
+        return Arrays.asList(new JUnit4Adapter(), new JUnit5Adapter(), new TestNGAdapter());
+    }
+
+    /**
+     * State of one test task, shared by its first and last action.
+     */
+    static class TaskState {
+        private final UnifiedTestResultCollector collector;
+        private transient List<TestManagementSystem> systems;
+
+        TaskState(UnifiedTestResultCollector collector) {
+            this.collector = collector;
+        }
+
+        UnifiedTestResultCollector getCollector() {
+            return collector;
+        }
+
+        List<TestManagementSystem> getSystems() {
+            return systems == null ? Collections.emptyList() : systems;
+        }
+    }
+
+    /**
+     * Report settings of a project, and where the reports go.
+     */
+    static class Reports {
+        private final Provider<Directory> buildDirectory;
+        private final Provider<Boolean> jsonEnabled;
+        private final Provider<Boolean> htmlEnabled;
+        private final Provider<Boolean> xmlEnabled;
+        private final Provider<String> xmlMode;
+        private final Provider<Boolean> bundleEnabled;
+        private final Provider<Long> bundleInlineAttachmentLimit;
+
+        Reports(Provider<Directory> buildDirectory, UnifiedTestAgentPlugin.UnifiedTestExtensionConfig config) {
+            this.buildDirectory = buildDirectory;
+            this.jsonEnabled = config.getJsonEnabled();
+            this.htmlEnabled = config.getHtmlEnabled();
+            this.xmlEnabled = config.getXmlEnabled();
+            this.xmlMode = config.getXmlMode();
+            this.bundleEnabled = config.getBundleEnabled();
+            this.bundleInlineAttachmentLimit = config.getBundleInlineAttachmentLimit();
+        }
+
+        File getBuildDir() {
+            return buildDirectory.get().getAsFile();
+        }
+
+        void generate(Logger logger, UnifiedTestResultCollector collector, String taskName) {
+            generateSummary(logger, collector);
+            generateJUnitXml(logger, collector, taskName);
+        }
+
+        /**
+         * Generates the reports that cover all results: JSON, HTML and the bundle.
+         */
+        void generateSummary(Logger logger, UnifiedTestResultCollector collector) {
+            File buildDir = getBuildDir();
+            if (jsonEnabled.get()) {
+                JsonReportGenerator.generate(buildDir, logger, collector);
+            }
+            if (htmlEnabled.get()) {
+                HtmlReportGenerator.generate(buildDir, logger, collector);
+            }
+            if (bundleEnabled.get()) {
+                ReportBundleGenerator.generate(buildDir, logger, collector, bundleInlineAttachmentLimit.get());
+            }
+        }
+
+        /**
+         * Generates the JUnit XML reports of one test task.
+         */
+        void generateJUnitXml(Logger logger, UnifiedTestResultCollector collector, String taskName) {
+            if (xmlEnabled.get()) {
+                JUnitXmlReportGenerator.generate(getBuildDir(), taskName, logger, collector, xmlMode.get());
+            }
+        }
+    }
+
+    /**
+     * Opens the journal, joins the build's test management systems and registers the framework listeners.
+     */
+    static class BeforeTests implements Action<Task> {
+        private final TaskState state;
+        private final Reports reports;
+        private final Provider<Boolean> journalEnabled;
+        private final Provider<String> theme;
+        private final Provider<List<String>> frameworks;
+        private final Provider<TestManagementService> testManagementService;
+        private final TestManagementExtension testManagement;
+
+        BeforeTests(TaskState state, Reports reports, Provider<Boolean> journalEnabled, Provider<String> theme,
+                    Provider<List<String>> frameworks, Provider<TestManagementService> testManagementService,
+                    TestManagementExtension testManagement) {
+            this.state = state;
+            this.reports = reports;
+            this.journalEnabled = journalEnabled;
+            this.theme = theme;
+            this.frameworks = frameworks;
+            this.testManagementService = testManagementService;
+            this.testManagement = testManagement;
+        }
+
+        @Override
+        public void execute(Task task) {
+            Test testTask = (Test) task;
+            UnifiedTestResultCollector collector = state.getCollector();
+            if (journalEnabled.get()) {
+                openJournal(testTask, reports.getBuildDir(), collector);
+            }
+            try {
+                new AttachmentStore(new File(reports.getBuildDir(), AttachmentStore.REPORT_DIR)).clear();
+            } catch (IOException e) {
+                task.getLogger().warn("UnifiedTest: could not remove the attachments of earlier builds: {}", e.getMessage());
+            }
+
+            // Join the test management systems shared by all test tasks of the build
+            List<TestManagementSystem> systems = testManagementService.get().getSystems(testManagement);
+            state.systems = systems;
+            collector.setResultCallback(result -> {
+                for (TestManagementSystem system : systems) {
+                    if (system.isConfigured()) {
+                        system.queueTestResult(result);
+                    }
+                }
+            });
+
+            // The first framework drives the task; the others run through it, e.g. JUnit 4 on the JUnit Platform
+            List<String> names = frameworks.get();
+            TestFrameworkAdapter selected = null;
+            for (String name : names) {
+                for (TestFrameworkAdapter adapter : adapters()) {
+                    if (adapter.getName().equalsIgnoreCase(name)) {
+                        selected = adapter;
+                        break;
+                    }
+                }
+                if (selected != null) {
+                    break;
+                }
+            }
+            if (selected != null) {
+                selected.registerListeners(testTask, collector, new ConsoleReporter(theme.get()), theme.get());
+                task.getLogger().lifecycle("UnifiedTest using framework: " + selected.getName());
+                if (names.size() > 1) {
+                    task.getLogger().lifecycle("UnifiedTest: also reporting {} tests run through {}",
+                        String.join(", ", names.subList(1, names.size())), selected.getName());
+                }
+            } else {
+                task.getLogger().warn("UnifiedTest: No supported test framework detected or configured. Falling back to default Gradle Test listeners.");
+                testTask.addTestListener(new PrettyConsoleTestListener(task.getLogger(), theme.get(), collector));
+            }
+        }
+
+        private static void openJournal(Test testTask, File buildDir, UnifiedTestResultCollector collector) {
+            collector.closeJournal();
+            File journalFile = new File(buildDir, JOURNAL_DIR + "/" + testTask.getName() + ".jsonl");
+            try {
+                collector.setJournal(new ResultJournal(journalFile));
+            } catch (IOException e) {
+                testTask.getLogger().warn("UnifiedTest: could not open result journal {}: {}", journalFile, e.getMessage());
+                return;
+            }
+            // Sync the journal when the test run ends, even if failures keep doLast from running
+            testTask.addTestListener(new TestListener() {
+                @Override public void beforeSuite(TestDescriptor suite) {}
+                @Override public void beforeTest(TestDescriptor testDescriptor) {}
+                @Override public void afterTest(TestDescriptor testDescriptor, TestResult result) {}
+
+                @Override
+                public void afterSuite(TestDescriptor suite, TestResult result) {
+                    if (suite.getParent() == null) {
+                        collector.closeJournal();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Pushes the task's results into the build's test runs, which are completed when the build finishes,
+     * and generates the reports.
+     */
+    static class AfterTests implements Action<Task> {
+        private final TaskState state;
+        private final Reports reports;
+
+        AfterTests(TaskState state, Reports reports) {
+            this.state = state;
+            this.reports = reports;
+        }
+
+        @Override
+        public void execute(Task task) {
+            Logger logger = task.getLogger();
+            for (TestManagementSystem system : state.getSystems()) {
+                if (system.isConfigured()) {
+                    try {
+                        system.pushQueuedResults();
+                        if (system.getLastStatus() != null && !system.getLastStatus().isSuccess()) {
+                            logger.error("Failed to push results to {}: {}",
+                                system.getName(), system.getLastStatus().getMessage());
+                        } else {
+                            logger.lifecycle("Successfully pushed test results to {}",
+                                system.getName());
+                        }
+                    } catch (Exception e) {
+                        logger.error("Failed to push results to {}: {}",
+                            system.getName(), e.getMessage());
+                    }
+                }
+            }
+
+            // Generate reports from the journal when it is intact, otherwise from the in-memory results
+            UnifiedTestResultCollector collector = state.getCollector();
+            UnifiedTestResultCollector reportSource = collector;
+            collector.closeJournal();
+            ResultJournal journal = collector.getJournal();
+            if (journal != null) {
+                try {
+                    reportSource = ResultJournal.load(journal.getFile());
+                } catch (IOException e) {
+                    logger.warn("UnifiedTest: could not read result journal {}: {}", journal.getFile(), e.getMessage());
+                }
+            }
+            reports.generate(logger, reportSource, task.getName());
+        }
+    }
+
+    /**
+     * Rebuilds the reports from the result journals of an interrupted test run.
+     */
+    static class RecoverReports implements Action<Task> {
+        private final Reports reports;
+
+        RecoverReports(Reports reports) {
+            this.reports = reports;
+        }
+
+        @Override
+        public void execute(Task task) {
+            Logger logger = task.getLogger();
+            File[] journals = new File(reports.getBuildDir(), JOURNAL_DIR).listFiles((dir, name) -> name.endsWith(".jsonl"));
+            if (journals == null || journals.length == 0) {
+                logger.lifecycle("UnifiedTest: no result journals found, nothing to recover");
+                return;
+            }
+            Arrays.sort(journals);
+            UnifiedTestResultCollector recovered = new UnifiedTestResultCollector();
+            for (File journal : journals) {
+                // Journals are named after their test task, and so are the JUnit XML directories
+                String taskName = journal.getName().substring(0, journal.getName().length() - ".jsonl".length());
+                UnifiedTestResultCollector taskResults = new UnifiedTestResultCollector();
+                try {
+                    for (UnifiedTestResult result : ResultJournal.read(journal)) {
+                        recovered.addResult(result);
+                        taskResults.addResult(result);
+                    }
+                } catch (IOException e) {
+                    logger.error("UnifiedTest: could not read result journal {}: {}", journal, e.getMessage());
+                }
+                reports.generateJUnitXml(logger, taskResults, taskName);
+            }
+            logger.lifecycle("UnifiedTest: recovered {} results from {} journal(s)", recovered.getResults().size(), journals.length);
+            reports.generateSummary(logger, recovered);
+        }
+    }
+
+    /**
+     * Pushes results that earlier builds could not deliver.
+     */
+    static class PushPending implements Action<Task> {
+        private final Provider<TestManagementService> testManagementService;
+        private final TestManagementExtension testManagement;
+
+        PushPending(Provider<TestManagementService> testManagementService, TestManagementExtension testManagement) {
+            this.testManagementService = testManagementService;
+            this.testManagement = testManagement;
+        }
+
+        @Override
+        public void execute(Task task) {
+            for (TestManagementSystem system : testManagementService.get().getSystems(testManagement)) {
+                if (!system.isConfigured()) {
+                    continue;
+                }
+                int pushed = system.pushPending();
+                if (system.getLastStatus() != null && !system.getLastStatus().isSuccess()) {
+                    task.getLogger().error("Failed to push pending results to {}: {}",
+                        system.getName(), system.getLastStatus().getMessage());
+                } else {
+                    task.getLogger().lifecycle("UnifiedTest: pushed {} pending results to {}", pushed, system.getName());
+                }
+            }
+        }
+    }
+}
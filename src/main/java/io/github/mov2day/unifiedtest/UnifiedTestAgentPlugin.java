@@ -1,27 +1,21 @@
 package io.github.mov2day.unifiedtest;
 
-import io.github.mov2day.unifiedtest.reporting.ConsoleReporter;
 import io.github.mov2day.unifiedtest.collector.UnifiedTestResultCollector;
-import io.github.mov2day.unifiedtest.reporting.JsonReportGenerator;
-import io.github.mov2day.unifiedtest.reporting.HtmlReportGenerator;
-import io.github.mov2day.unifiedtest.reporting.OpenTelemetryExporter;
-import io.github.mov2day.unifiedtest.extension.ExtensionInvoker;
+import io.github.mov2day.unifiedtest.reporting.JUnitXmlReportGenerator;
+import io.github.mov2day.unifiedtest.reporting.ReportBundleGenerator;
+import io.github.mov2day.unifiedtest.reporting.HttpClientService;
 import io.github.mov2day.unifiedtest.extension.TestManagementExtension;
-import io.github.mov2day.unifiedtest.reporting.testmanagement.TestManagementSystemFactory;
-import io.github.mov2day.unifiedtest.reporting.testmanagement.TestManagementSystem;
+import io.github.mov2day.unifiedtest.reporting.testmanagement.TestManagementService;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.model.ObjectFactory;
 import javax.inject.Inject;
-import io.github.mov2day.unifiedtest.framework.TestFrameworkAdapter;
-import io.github.mov2day.unifiedtest.framework.JUnit4Adapter;
-import io.github.mov2day.unifiedtest.framework.JUnit5Adapter;
-import io.github.mov2day.unifiedtest.framework.TestNGAdapter;
-import java.util.Arrays;
+import io.github.mov2day.unifiedtest.framework.FrameworkDetector;
+import java.util.Collections;
 import java.util.List;
-import java.io.File;
 
 /**
  * Main plugin class for UnifiedTest that provides test execution monitoring and reporting.
@@ -37,6 +31,11 @@ public class UnifiedTestAgentPlugin implements Plugin<Project> {
         private final Property<String> framework;
         private final Property<Boolean> jsonEnabled;
         private final Property<Boolean> htmlEnabled;
+        private final Property<Boolean> xmlEnabled;
+        private final Property<String> xmlMode;
+        private final Property<Boolean> bundleEnabled;
+        private final Property<Long> bundleInlineAttachmentLimit;
+        private final Property<Boolean> journalEnabled;
         private final Property<Boolean> telemetryEnabled;
         private final Property<String> telemetryEndpoint;
 
@@ -50,6 +49,11 @@ public class UnifiedTestAgentPlugin implements Plugin<Project> {
             this.framework = objects.property(String.class).convention("");
             this.jsonEnabled = objects.property(Boolean.class).convention(true);
             this.htmlEnabled = objects.property(Boolean.class).convention(true);
+            this.xmlEnabled = objects.property(Boolean.class).convention(false);
+            this.xmlMode = objects.property(String.class).convention(JUnitXmlReportGenerator.MODE_PER_CLASS);
+            this.bundleEnabled = objects.property(Boolean.class).convention(false);
+            this.bundleInlineAttachmentLimit = objects.property(Long.class).convention(ReportBundleGenerator.DEFAULT_INLINE_ATTACHMENT_LIMIT);
+            this.journalEnabled = objects.property(Boolean.class).convention(true);
             this.telemetryEnabled = objects.property(Boolean.class).convention(false);
             this.telemetryEndpoint = objects.property(String.class).convention("");
         }
@@ -78,6 +82,36 @@ public class UnifiedTestAgentPlugin implements Plugin<Project> {
          */
         public Property<Boolean> getHtmlEnabled() { return htmlEnabled; }
 
+        /**
+         * Gets whether JUnit XML (Surefire format) report generation is enabled.
+         * @return the XML enabled property
+         */
+        public Property<Boolean> getXmlEnabled() { return xmlEnabled; }
+
+        /**
+         * Gets the JUnit XML layout: "perClass" for one file per test class, "single" for one combined file.
+         * @return the XML mode property
+         */
+        public Property<String> getXmlMode() { return xmlMode; }
+
+        /**
+         * Gets whether the compressed single-file report bundle (bundle.html) is generated.
+         * @return the bundle enabled property
+         */
+        public Property<Boolean> getBundleEnabled() { return bundleEnabled; }
+
+        /**
+         * Gets the size in bytes up to which Allure attachments are embedded in the bundle.
+         * @return the inline attachment limit property
+         */
+        public Property<Long> getBundleInlineAttachmentLimit() { return bundleInlineAttachmentLimit; }
+
+        /**
+         * Gets whether results are journaled to disk while tests run, so reports can be recovered after a crash.
+         * @return the journal enabled property
+         */
+        public Property<Boolean> getJournalEnabled() { return journalEnabled; }
+
         /**
          * Gets whether OpenTelemetry export is enabled.
          * @return the telemetry enabled property
@@ -95,13 +129,18 @@ public class UnifiedTestAgentPlugin implements Plugin<Project> {
     public void apply(Project project) {
         UnifiedTestExtensionConfig config = project.getExtensions().create("unifiedTest", UnifiedTestExtensionConfig.class, project.getObjects());
         TestManagementExtension testManagementExtension = project.getExtensions().create("testManagement", TestManagementExtension.class);
-        TestManagementSystemFactory testManagementFactory = new TestManagementSystemFactory();
-        
-        List<TestFrameworkAdapter> adapters = Arrays.asList(
-            new JUnit4Adapter(),
-            new JUnit5Adapter(),
-            new TestNGAdapter()
-        );
+        testManagementExtension.getStateDirectory().convention(project.getLayout().getBuildDirectory().dir("unifiedtest"));
+        Provider<HttpClientService> httpClientService = HttpClientService.register(project, testManagementExtension.getHttpThreads());
+        Provider<TestManagementService> testManagementService = TestManagementService.register(project, httpClientService,
+            testManagementExtension.getPushBudgetSeconds());
+        TestTaskActions.Reports reports = new TestTaskActions.Reports(project.getLayout().getBuildDirectory(), config);
+
+        // The frameworks are chosen while configuring, so the task actions never need the project; the test
+        // runtime classpath is scanned at most once per project
+        Provider<List<String>> detectedFrameworks = FrameworkDetector.detectOnClasspath(project);
+        Provider<List<String>> frameworks = config.getFramework().map(String::trim).flatMap(configured -> configured.isEmpty()
+            ? detectedFrameworks
+            : project.provider(() -> Collections.singletonList(configured)));
 
         // Report generation: avoid accessing other task's extensions at execution time.
         // Instead generate reports as part of each Test task's doLast (collector is available there).
@@ -109,84 +148,33 @@ public class UnifiedTestAgentPlugin implements Plugin<Project> {
         // 2. Configure each test task
         project.getTasks().withType(Test.class).configureEach(testTask -> {
             final UnifiedTestResultCollector collector = new UnifiedTestResultCollector();
-            final ConsoleReporter reporter = new ConsoleReporter(config.getTheme().get());
+            final TestTaskActions.TaskState state = new TestTaskActions.TaskState(collector);
+            testTask.usesService(httpClientService);
+            testTask.usesService(testManagementService);
 
             // Attach the collector to the test task for later retrieval, only if not already present
             if (testTask.getExtensions().findByName("unifiedTestCollector") == null) {
                 testTask.getExtensions().add("unifiedTestCollector", collector);
             }
 
-            // Move framework detection and listener registration to doFirst
-            testTask.doFirst(task -> {
-                // Initialize test management systems
-                testManagementFactory.initialize(testManagementExtension);
-                
-                String frameworkConfig = config.getFramework().get();
-                TestFrameworkAdapter selected = null;
-
-                if (!frameworkConfig.isEmpty()) {
-                    for (TestFrameworkAdapter adapter : adapters) {
-                        if (adapter.getName().equalsIgnoreCase(frameworkConfig)) {
-                            selected = adapter;
-                            break;
-                        }
-                    }
-                } else {
-                    for (TestFrameworkAdapter adapter : adapters) {
-                        if (adapter.isApplicable(project)) {
-                            selected = adapter;
-                            break;
-                        }
-                    }
-                }
-
-                if (selected != null) {
-                    // Pass the resolved theme (captured at configuration time) to avoid runtime extension lookup
-                    String theme = config.getTheme().get();
-                    selected.registerListeners(project, testTask, collector, reporter, theme);
-                    project.getLogger().lifecycle("UnifiedTest using framework: " + selected.getName());
-                } else {
-                    project.getLogger().warn("UnifiedTest: No supported test framework detected or configured. Falling back to default Gradle Test listeners.");
-                    testTask.addTestListener(new io.github.mov2day.unifiedtest.reporting.PrettyConsoleTestListener(project, config.getTheme().get(), collector));
-                }
-            });
-
-            // Add test result callback for test management systems
-            collector.setResultCallback(result -> {
-                for (TestManagementSystem system : testManagementFactory.getAllSystems()) {
-                    if (system.isConfigured()) {
-                        system.queueTestResult(result);
-                    }
-                }
-            });
-
-            // Push results to test management systems after test execution and generate reports here
-            testTask.doLast(task -> {
-                for (TestManagementSystem system : testManagementFactory.getAllSystems()) {
-                    if (system.isConfigured()) {
-                        try {
-                            system.flushResults();
-                            project.getLogger().lifecycle("Successfully pushed test results to {}", 
-                                system.getName());
-                        } catch (Exception e) {
-                            project.getLogger().error("Failed to push results to {}: {}", 
-                                system.getName(), e.getMessage());
-                        }
-                    }
-                }
-
-                // Generate reports directly using the collector available here (execution of this task)
-                if (config.getJsonEnabled().get()) {
-                    File reportsDir = new File(project.getBuildDir(), "unifiedtest/reports");
-                    reportsDir.mkdirs();
-                    JsonReportGenerator.generate(project, testTask, collector);
-                }
-                if (config.getHtmlEnabled().get()) {
-                    File reportsDir = new File(project.getBuildDir(), "unifiedtest/reports");
-                    reportsDir.mkdirs();
-                    HtmlReportGenerator.generate(project, testTask, collector);
-                }
-            });
+            // Framework listener registration happens in doFirst
+            testTask.doFirst(new TestTaskActions.BeforeTests(state, reports, config.getJournalEnabled(), config.getTheme(),
+                frameworks, testManagementService, testManagementExtension));
+            testTask.doLast(new TestTaskActions.AfterTests(state, reports));
+        });
+
+        project.getTasks().register("unifiedTestRecover", task -> {
+            task.setGroup("verification");
+            task.setDescription("Rebuilds UnifiedTest reports from the result journals of an interrupted test run.");
+            task.doLast(new TestTaskActions.RecoverReports(reports));
+        });
+
+        project.getTasks().register("unifiedTestPushPending", task -> {
+            task.setGroup("verification");
+            task.setDescription("Pushes test results that earlier builds could not deliver to the configured test management systems.");
+            task.usesService(httpClientService);
+            task.usesService(testManagementService);
+            task.doLast(new TestTaskActions.PushPending(testManagementService, testManagementExtension));
         });
     }
-}
\ No newline at end of file
+}
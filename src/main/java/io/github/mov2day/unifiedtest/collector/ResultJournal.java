@@ -0,0 +1,150 @@
+package io.github.mov2day.unifiedtest.collector;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only journal of test results, one JSON object per line.
+ * Every result is written to the file as soon as it is collected, so it survives the build process being
+ * killed; {@code fsync} is batched by record count and elapsed time to keep it cheap on large suites.
+ * A torn last line from a crash is skipped when the journal is read back.
+ */
+public class ResultJournal implements Closeable {
+    /** Records written between two forced syncs */
+    public static final int DEFAULT_SYNC_EVERY = 64;
+    /** Maximum time a written record may stay unsynced */
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 1000;
+
+    private static final Gson GSON = new Gson();
+
+    private final File file;
+    private final FileChannel channel;
+    private final int syncEvery;
+    private final long syncIntervalMillis;
+    private int unsynced;
+    private long lastSync;
+
+    /**
+     * Opens a new journal, discarding the records of a previous run.
+     * @param file the journal file
+     * @throws IOException if the file cannot be created
+     */
+    public ResultJournal(File file) throws IOException {
+        this(file, DEFAULT_SYNC_EVERY, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Opens a new journal, discarding the records of a previous run.
+     * @param file the journal file
+     * @param syncEvery records written between two forced syncs
+     * @param syncIntervalMillis maximum time a written record may stay unsynced
+     * @throws IOException if the file cannot be created
+     */
+    public ResultJournal(File file, int syncEvery, long syncIntervalMillis) throws IOException {
+        this.file = file;
+        this.syncEvery = Math.max(1, syncEvery);
+        this.syncIntervalMillis = syncIntervalMillis;
+        file.getParentFile().mkdirs();
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        this.lastSync = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the journal file.
+     * @return the journal file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Appends a result. The line reaches the OS before this returns; it is forced to disk in batches.
+     * @param result the result to record
+     * @throws IOException if writing fails
+     */
+    public synchronized void append(UnifiedTestResult result) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((GSON.toJson(result) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        unsynced++;
+        long now = System.currentTimeMillis();
+        if (unsynced >= syncEvery || now - lastSync >= syncIntervalMillis) {
+            channel.force(false);
+            unsynced = 0;
+            lastSync = now;
+        }
+    }
+
+    /**
+     * Forces outstanding records to disk and closes the journal.
+     * @throws IOException if syncing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            if (unsynced > 0) {
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads all complete records of a journal, including one left behind by a crashed run.
+     * @param file the journal file
+     * @return the recorded results in journal order
+     * @throws IOException if the file cannot be read
+     */
+    public static List<UnifiedTestResult> read(File file) throws IOException {
+        List<UnifiedTestResult> results = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    UnifiedTestResult result = GSON.fromJson(line, UnifiedTestResult.class);
+                    if (result != null && result.className != null && result.testName != null) {
+                        results.add(result);
+                    }
+                } catch (JsonParseException e) {
+                    // Partially written record from a killed process
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Loads a journal into a fresh collector, which can be handed to the report generators.
+     * @param file the journal file
+     * @return a collector holding the recorded results
+     * @throws IOException if the file cannot be read
+     */
+    public static UnifiedTestResultCollector load(File file) throws IOException {
+        UnifiedTestResultCollector collector = new UnifiedTestResultCollector();
+        for (UnifiedTestResult result : read(file)) {
+            collector.addResult(result);
+        }
+        return collector;
+    }
+}
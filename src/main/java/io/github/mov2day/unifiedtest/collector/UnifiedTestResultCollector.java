@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.function.Consumer;
@@ -21,6 +22,7 @@ public class UnifiedTestResultCollector implements TestListener, ITestResultColl
     private final List<io.github.mov2day.unifiedtest.collector.UnifiedTestResult> results = new ArrayList<>();
     private final Map<String, io.github.mov2day.unifiedtest.collector.UnifiedTestResult> resultMap = new ConcurrentHashMap<>();
     private Consumer<UnifiedTestResult> resultCallback;
+    private ResultJournal journal;
 
     /**
      * Default constructor required for ServiceLoader.
@@ -73,6 +75,7 @@ public class UnifiedTestResultCollector implements TestListener, ITestResultColl
         String key = testDescriptor.getClassName() + "." + testDescriptor.getName();
         resultMap.put(key, testResult);
         results.add(testResult);
+        journal(testResult);
 
         // Notify callback if set
         if (resultCallback != null) {
@@ -88,6 +91,37 @@ public class UnifiedTestResultCollector implements TestListener, ITestResultColl
         this.resultCallback = callback;
     }
 
+    /**
+     * Sets the journal every collected result is appended to, or null to stop journaling.
+     * @param journal the journal to write to
+     */
+    public void setJournal(ResultJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Gets the journal results are appended to.
+     * @return the journal, or null if journaling is off or failed during the run
+     */
+    public ResultJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Syncs and closes the journal, if any. Results collected afterwards are kept in memory only.
+     */
+    public void closeJournal() {
+        ResultJournal target = journal;
+        if (target == null) {
+            return;
+        }
+        try {
+            target.close();
+        } catch (IOException e) {
+            journal = null;
+        }
+    }
+
     /**
      * Adds a test result to the collection.
      * @param result the test result to add
@@ -97,6 +131,7 @@ public class UnifiedTestResultCollector implements TestListener, ITestResultColl
         if (!resultMap.containsKey(key)) {
             resultMap.put(key, result);
             results.add(result);
+            journal(result);
             
             // Notify callback if set
             if (resultCallback != null) {
@@ -123,6 +158,19 @@ public class UnifiedTestResultCollector implements TestListener, ITestResultColl
         return new ArrayList<>(results);
     }
 
+    private void journal(io.github.mov2day.unifiedtest.collector.UnifiedTestResult result) {
+        ResultJournal target = journal;
+        if (target == null) {
+            return;
+        }
+        try {
+            target.append(result);
+        } catch (IOException e) {
+            // Keep collecting in memory; reports fall back to these results
+            journal = null;
+        }
+    }
+
     /**
      * Converts a collector test result to a reporting test result.
      * @param result the collector test result
@@ -1,5 +1,6 @@
 package io.github.mov2day.unifiedtest.extension;
 
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.Action;
@@ -13,6 +14,9 @@ import java.util.ArrayList;
  */
 public class TestManagementExtension {
     private final Property<Boolean> enabled;
+    private final DirectoryProperty stateDirectory;
+    private final Property<Integer> httpThreads;
+    private final Property<Integer> pushBudgetSeconds;
     private final List<TestManagementSystem> systems;
     private final ObjectFactory objects;
 
@@ -20,6 +24,9 @@ public class TestManagementExtension {
     public TestManagementExtension(ObjectFactory objects) {
         this.objects = objects;
         this.enabled = objects.property(Boolean.class).convention(false);
+        this.stateDirectory = objects.directoryProperty();
+        this.httpThreads = objects.property(Integer.class).convention(4);
+        this.pushBudgetSeconds = objects.property(Integer.class).convention(0);
         this.systems = new ArrayList<>();
     }
 
@@ -30,11 +37,36 @@ public class TestManagementExtension {
         return enabled;
     }
 
+    /**
+     * Directory for state kept between builds, such as cached case catalogs.
+     */
+    public DirectoryProperty getStateDirectory() {
+        return stateDirectory;
+    }
+
+    /**
+     * Number of threads handling asynchronous HTTP responses. All projects of a build share one HTTP client,
+     * configured by the first project that applies the plugin.
+     */
+    public Property<Integer> getHttpThreads() {
+        return httpThreads;
+    }
+
+    /**
+     * Seconds all pushes of a build may take together, across projects, test tasks and systems; 0 for no limit.
+     * Results left unsent when the budget is used up are kept in the outbox for {@code unifiedTestPushPending}.
+     * Like the HTTP threads, it is configured by the first project that applies the plugin.
+     */
+    public Property<Integer> getPushBudgetSeconds() {
+        return pushBudgetSeconds;
+    }
+
     /**
      * Configure Jira Zephyr integration.
      */
     public void zephyr(Action<ZephyrConfig> action) {
         ZephyrConfig config = new ZephyrConfig(objects);
+        config.getStateDirectory().convention(stateDirectory);
         action.execute(config);
         systems.add(new TestManagementSystem("zephyr", config));
     }
@@ -44,6 +76,8 @@ public class TestManagementExtension {
      */
     public void testRail(Action<TestRailConfig> action) {
         TestRailConfig config = new TestRailConfig(objects);
+        config.getStateDirectory().convention(stateDirectory);
+        config.getCacheDirectory().convention(stateDirectory);
         action.execute(config);
         systems.add(new TestManagementSystem("testrail", config));
     }
@@ -55,10 +89,56 @@ public class TestManagementExtension {
         return systems;
     }
 
+    /**
+     * Settings shared by all test management systems.
+     */
+    public abstract static class SystemConfig {
+        private final Property<Integer> flushBatchSize;
+        private final Property<Integer> flushLingerSeconds;
+        private final Property<Boolean> outboxEnabled;
+        private final Property<String> syncPolicy;
+        private final Property<Integer> fullSyncEveryBuilds;
+        private final Property<Integer> fullSyncIntervalHours;
+        private final Property<Integer> circuitBreakerThreshold;
+        private final Property<Integer> circuitBreakerOpenSeconds;
+        private final DirectoryProperty stateDirectory;
+
+        protected SystemConfig(ObjectFactory objects) {
+            this.flushBatchSize = objects.property(Integer.class).convention(100);
+            this.flushLingerSeconds = objects.property(Integer.class).convention(10);
+            this.outboxEnabled = objects.property(Boolean.class).convention(true);
+            this.syncPolicy = objects.property(String.class).convention("full");
+            this.fullSyncEveryBuilds = objects.property(Integer.class).convention(20);
+            this.fullSyncIntervalHours = objects.property(Integer.class).convention(24);
+            this.circuitBreakerThreshold = objects.property(Integer.class).convention(5);
+            this.circuitBreakerOpenSeconds = objects.property(Integer.class).convention(60);
+            this.stateDirectory = objects.directoryProperty();
+        }
+
+        /** Results that trigger a background push while tests are still running; 0 pushes only at the end (default: 100) */
+        public Property<Integer> getFlushBatchSize() { return flushBatchSize; }
+        /** Seconds a queued result may wait before a partial batch is pushed in the background (default: 10) */
+        public Property<Integer> getFlushLingerSeconds() { return flushLingerSeconds; }
+        /** Whether queued results are written to an outbox file until they are pushed (default: true) */
+        public Property<Boolean> getOutboxEnabled() { return outboxEnabled; }
+        /** "full" pushes every result; "changed" pushes only results whose status differs from the last push (default: full) */
+        public Property<String> getSyncPolicy() { return syncPolicy; }
+        /** With the "changed" policy, every how many builds all results are pushed; 0 to not count builds (default: 20) */
+        public Property<Integer> getFullSyncEveryBuilds() { return fullSyncEveryBuilds; }
+        /** With the "changed" policy, hours after which all results are pushed again; 0 for no limit (default: 24) */
+        public Property<Integer> getFullSyncIntervalHours() { return fullSyncIntervalHours; }
+        /** Connection failures or gateway errors in a row after which requests to the system are refused; 0 to disable (default: 5) */
+        public Property<Integer> getCircuitBreakerThreshold() { return circuitBreakerThreshold; }
+        /** Seconds an open circuit waits before a single probe request is let through (default: 60) */
+        public Property<Integer> getCircuitBreakerOpenSeconds() { return circuitBreakerOpenSeconds; }
+        /** Directory holding the outbox and sync status cache; defaults to the extension's state directory */
+        public DirectoryProperty getStateDirectory() { return stateDirectory; }
+    }
+
     /**
      * Configuration for Jira Zephyr.
      */
-    public static class ZephyrConfig {
+    public static class ZephyrConfig extends SystemConfig {
         private final Property<String> serverUrl;
         private final Property<String> apiKey;
         private final Property<String> projectKey;
@@ -67,8 +147,12 @@ public class TestManagementExtension {
         private final Property<String> apiType;
         private final Property<String> apiVersion;
         private final Property<String> username;
+        private final Property<Integer> maxConcurrentRequests;
+        private final Property<Integer> requestsPerSecond;
+        private final Property<Integer> batchSize;
 
         public ZephyrConfig(ObjectFactory objects) {
+            super(objects);
             this.serverUrl = objects.property(String.class);
             this.apiKey = objects.property(String.class);
             this.projectKey = objects.property(String.class);
@@ -77,6 +161,9 @@ public class TestManagementExtension {
             this.apiType = objects.property(String.class).convention("cloud");
             this.apiVersion = objects.property(String.class).convention("v1");
             this.username = objects.property(String.class);
+            this.maxConcurrentRequests = objects.property(Integer.class).convention(8);
+            this.requestsPerSecond = objects.property(Integer.class).convention(20);
+            this.batchSize = objects.property(Integer.class).convention(100);
         }
 
         public Property<String> getServerUrl() { return serverUrl; }
@@ -87,24 +174,37 @@ public class TestManagementExtension {
         public Property<String> getApiType() { return apiType; }
         public Property<String> getApiVersion() { return apiVersion; }
         public Property<String> getUsername() { return username; }
+        /** Maximum number of requests in flight while pushing results (default: 8) */
+        public Property<Integer> getMaxConcurrentRequests() { return maxConcurrentRequests; }
+        /** Request rate the push starts at and never exceeds; lowered automatically on 429 responses (default: 20) */
+        public Property<Integer> getRequestsPerSecond() { return requestsPerSecond; }
+        /** Results per request when adding results to a Zephyr Server test run (default: 100) */
+        public Property<Integer> getBatchSize() { return batchSize; }
     }
 
     /**
      * Configuration for TestRail.
      */
-    public static class TestRailConfig {
+    public static class TestRailConfig extends SystemConfig {
         private final Property<String> serverUrl;
         private final Property<String> apiKey;
         private final Property<String> projectId;
         private final Property<String> suiteId;
         private final Property<Boolean> createTestCases;
+        private final Property<Integer> batchSize;
+        private final DirectoryProperty cacheDirectory;
+        private final Property<Integer> caseCacheTtlMinutes;
 
         public TestRailConfig(ObjectFactory objects) {
+            super(objects);
             this.serverUrl = objects.property(String.class);
             this.apiKey = objects.property(String.class);
             this.projectId = objects.property(String.class);
             this.suiteId = objects.property(String.class);
             this.createTestCases = objects.property(Boolean.class).convention(false);
+            this.batchSize = objects.property(Integer.class).convention(250);
+            this.cacheDirectory = objects.directoryProperty();
+            this.caseCacheTtlMinutes = objects.property(Integer.class).convention(60);
         }
 
         public Property<String> getServerUrl() { return serverUrl; }
@@ -112,6 +212,12 @@ public class TestManagementExtension {
         public Property<String> getProjectId() { return projectId; }
         public Property<String> getSuiteId() { return suiteId; }
         public Property<Boolean> getCreateTestCases() { return createTestCases; }
+        /** Number of results sent per add_results_for_cases request (default: 250) */
+        public Property<Integer> getBatchSize() { return batchSize; }
+        /** Directory holding the cached case catalog; no cache is kept when unset */
+        public DirectoryProperty getCacheDirectory() { return cacheDirectory; }
+        /** Minutes a cached case catalog is used before it is revalidated (default: 60) */
+        public Property<Integer> getCaseCacheTtlMinutes() { return caseCacheTtlMinutes; }
     }
 
     /**
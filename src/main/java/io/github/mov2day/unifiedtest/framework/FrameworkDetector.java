@@ -2,17 +2,47 @@ package io.github.mov2day.unifiedtest.framework;
 
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Provider;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipFile;
 
 /**
  * Utility class for detecting test frameworks in a Gradle project.
  * Analyzes project dependencies to determine which test frameworks are present.
  */
 public class FrameworkDetector {
+    /** Name of the JUnit 4 framework */
+    public static final String JUNIT4 = "JUnit4";
+    /** Name of the JUnit 5 framework, which stands for the JUnit Platform and all its engines */
+    public static final String JUNIT5 = "JUnit5";
+    /** Name of the TestNG framework */
+    public static final String TESTNG = "TestNG";
+
+    private static final String JUNIT4_MARKER = "org/junit/runner/JUnitCore.class";
+    private static final String JUPITER_MARKER = "org/junit/jupiter/api/Test.class";
+    private static final String PLATFORM_MARKER = "org/junit/platform/engine/TestEngine.class";
+    private static final String VINTAGE_ENGINE_MARKER = "org/junit/vintage/engine/VintageTestEngine.class";
+    private static final String TESTNG_MARKER = "org/testng/TestNG.class";
+    private static final String TESTNG_ENGINE_MARKER = "org/junit/support/testng/engine/TestNGTestEngine.class";
+    private static final String[] MARKERS = {
+        JUNIT4_MARKER, JUPITER_MARKER, PLATFORM_MARKER, VINTAGE_ENGINE_MARKER, TESTNG_MARKER, TESTNG_ENGINE_MARKER
+    };
+
+    private static final Logger logger = Logging.getLogger(FrameworkDetector.class);
+
     /**
-     * Detects test frameworks present in the project's dependencies.
+     * Detects test frameworks declared in the project's testImplementation dependencies.
+     * Frameworks that come in transitively or through a platform are not seen, see {@link #detectOnClasspath(Project)}.
      * @param project the Gradle project to analyze
      * @return list of detected test framework names
      */
@@ -24,14 +54,106 @@ public class FrameworkDetector {
                 String group = dep.getGroup() != null ? dep.getGroup() : "";
                 String name = dep.getName() != null ? dep.getName() : "";
                 if (group.equals("junit") && name.equals("junit")) {
-                    frameworks.add("JUnit4");
+                    frameworks.add(JUNIT4);
                 } else if (group.equals("org.junit.jupiter")) {
-                    frameworks.add("JUnit5");
+                    frameworks.add(JUNIT5);
                 } else if (group.equals("org.testng")) {
-                    frameworks.add("TestNG");
+                    frameworks.add(TESTNG);
                 }
             });
         }
         return frameworks;
     }
+
+    /**
+     * Detects the test frameworks on the project's resolved test runtime classpath. The classpath is resolved and
+     * scanned once, when the provider is first read; later reads return the same result. Projects without a
+     * {@code testRuntimeClasspath} fall back to the declared dependencies.
+     * @param project the Gradle project to analyze
+     * @return provider of the framework names, in the order of {@link #detect(Iterable)}
+     */
+    public static Provider<List<String>> detectOnClasspath(Project project) {
+        ListProperty<String> frameworks = project.getObjects().listProperty(String.class);
+        frameworks.set(project.provider(() -> {
+            Configuration classpath = project.getConfigurations().findByName("testRuntimeClasspath");
+            if (classpath == null) {
+                return detect(project);
+            }
+            List<String> detected = detect(classpath.getIncoming().artifactView(view -> view.lenient(true)).getFiles());
+            logger.info("UnifiedTest: detected {} on the test runtime classpath of {}", detected, project.getPath());
+            return detected;
+        }));
+        frameworks.finalizeValueOnRead();
+        frameworks.disallowChanges();
+        return frameworks;
+    }
+
+    /**
+     * Detects the test frameworks a test task with the given classpath runs, by looking for marker classes.
+     * When the JUnit Platform is present, {@link #JUNIT5} comes first and drives the task; JUnit 4 and TestNG follow
+     * if their platform engines (Vintage, testng-engine) are there to run them. Without the platform the task runs
+     * a single framework, JUnit 4 before TestNG. Frameworks on the classpath that the task will not run are logged
+     * at info level.
+     * @param classpath jars and class directories
+     * @return list of detected test framework names
+     */
+    public static List<String> detect(Iterable<File> classpath) {
+        Set<String> found = scan(classpath);
+        boolean junit4 = found.contains(JUNIT4_MARKER);
+        boolean testng = found.contains(TESTNG_MARKER);
+        List<String> frameworks = new ArrayList<>();
+        if (found.contains(PLATFORM_MARKER) || found.contains(JUPITER_MARKER)) {
+            frameworks.add(JUNIT5);
+            if (junit4 && found.contains(VINTAGE_ENGINE_MARKER)) {
+                frameworks.add(JUNIT4);
+            } else if (junit4) {
+                // Often only a transitive dependency, e.g. of Testcontainers, so not worth a warning
+                logger.info("UnifiedTest: JUnit 4 is on the test classpath next to the JUnit Platform, but without junit-vintage-engine its tests will not run");
+            }
+            if (testng && found.contains(TESTNG_ENGINE_MARKER)) {
+                frameworks.add(TESTNG);
+            } else if (testng) {
+                logger.info("UnifiedTest: TestNG is on the test classpath next to the JUnit Platform, but without testng-engine its tests will not run");
+            }
+        } else if (junit4) {
+            frameworks.add(JUNIT4);
+            if (testng) {
+                logger.info("UnifiedTest: both JUnit 4 and TestNG are on the test classpath; only JUnit 4 tests will run");
+            }
+        } else if (testng) {
+            frameworks.add(TESTNG);
+        }
+        return frameworks;
+    }
+
+    /**
+     * Finds the marker classes present on a classpath. Jars are looked up through their central directory,
+     * without reading their entries.
+     */
+    private static Set<String> scan(Iterable<File> classpath) {
+        Set<String> found = new HashSet<>();
+        for (File entry : classpath) {
+            if (found.size() == MARKERS.length) {
+                break;
+            }
+            if (entry.isDirectory()) {
+                for (String marker : MARKERS) {
+                    if (new File(entry, marker).isFile()) {
+                        found.add(marker);
+                    }
+                }
+            } else if (entry.isFile() && entry.getName().endsWith(".jar")) {
+                try (ZipFile jar = new ZipFile(entry)) {
+                    for (String marker : MARKERS) {
+                        if (jar.getEntry(marker) != null) {
+                            found.add(marker);
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.debug("UnifiedTest: could not scan {} for test frameworks: {}", entry, e.getMessage());
+                }
+            }
+        }
+        return Collections.unmodifiableSet(found);
+    }
 }
@@ -20,7 +20,7 @@ public class JUnit5Adapter implements TestFrameworkAdapter {
     }
 
     @Override
-    public void registerListeners(Project project, Test testTask, UnifiedTestResultCollector collector, ConsoleReporter reporter, String theme) {
+    public void registerListeners(Test testTask, UnifiedTestResultCollector collector, ConsoleReporter reporter, String theme) {
         testTask.useJUnitPlatform();
 
         // Set the collector and reporter for the JUnit 5 listener
@@ -32,15 +32,13 @@ public class JUnit5Adapter implements TestFrameworkAdapter {
         // Register the JUnit 5 listener using system property
         System.setProperty("junit.jupiter.extensions.autodetection.enabled", "true");
 
-        // Add the pretty console listener using the configuration-time theme
-        testTask.addTestListener(new PrettyConsoleTestListener(project, theme, collector));
+        // Add the pretty console listener using the resolved theme
+        testTask.addTestListener(new PrettyConsoleTestListener(testTask.getLogger(), theme, collector));
 
         // Log that Gradle adapter is being used
-        project.getLogger().lifecycle("UnifiedTest: Gradle adapter for JUnit 5 registered");
+        testTask.getLogger().lifecycle("UnifiedTest: Gradle adapter for JUnit 5 registered");
     }
 
     @Override
     public String getName() { return "JUnit5"; }
-    
-    // theme is now passed in at configuration time; no runtime extension access
 }
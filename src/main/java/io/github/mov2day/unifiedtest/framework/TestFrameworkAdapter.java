@@ -17,15 +17,30 @@ public interface TestFrameworkAdapter {
      */
     boolean isApplicable(Project project);
 
+    /**
+     * Registers test listeners for the framework with the given test task. Called from the task's actions, so
+     * implementations must not reach for the project.
+     * @param testTask the test task to configure
+     * @param collector collector for test results
+     * @param reporter reporter for console output
+     * @param theme the resolved theme
+     */
+    void registerListeners(Test testTask, UnifiedTestResultCollector collector, ConsoleReporter reporter, String theme);
+
     /**
      * Registers test listeners for the framework with the given project and test task.
      * @param project the Gradle project
-        * @param testTask the test task to configure
+     * @param testTask the test task to configure
      * @param collector collector for test results
-        * @param reporter reporter for console output
-        * @param theme the resolved theme (captured at configuration time)
+     * @param reporter reporter for console output
+     * @param theme the resolved theme (captured at configuration time)
+     * @deprecated the project is not available to configuration-cached task actions; use
+     *     {@link #registerListeners(Test, UnifiedTestResultCollector, ConsoleReporter, String)}
      */
-        void registerListeners(Project project, Test testTask, UnifiedTestResultCollector collector, ConsoleReporter reporter, String theme);
+    @Deprecated
+    default void registerListeners(Project project, Test testTask, UnifiedTestResultCollector collector, ConsoleReporter reporter, String theme) {
+        registerListeners(testTask, collector, reporter, theme);
+    }
 
     /**
      * Gets the name of the test framework this adapter supports.
@@ -19,16 +19,14 @@ public class TestNGAdapter implements TestFrameworkAdapter {
     }
     
     @Override
-    public void registerListeners(Project project, Test testTask, UnifiedTestResultCollector collector, ConsoleReporter reporter, String theme) {
+    public void registerListeners(Test testTask, UnifiedTestResultCollector collector, ConsoleReporter reporter, String theme) {
         testTask.useTestNG();
         // Set the collector and reporter for the TestNG listener
         UnifiedTestNGListener.setCollectorAndReporter(collector, reporter);
-        // Add the pretty console listener using the configuration-time theme
-        testTask.addTestListener(new PrettyConsoleTestListener(project, theme, collector));
+        // Add the pretty console listener using the resolved theme
+        testTask.addTestListener(new PrettyConsoleTestListener(testTask.getLogger(), theme, collector));
     }
     
     @Override
     public String getName() { return "TestNG"; }
-
-    // theme is now passed in at configuration time; no runtime extension access
 }
@@ -0,0 +1,240 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk cache of parsed Allure result files, keyed by relative path and validated by size and mtime.
+ * Unchanged files are served from the cache instead of being parsed again; the index is rewritten with
+ * only the files seen in the current run, so deleted results are evicted.
+ */
+class AllureIngestionIndex {
+    /** Index file name, stored under build/unifiedtest */
+    static final String FILE_NAME = "allure-index.bin";
+
+    private static final int MAGIC = 0x55544149; // "UTAI"
+    private static final int VERSION = 3;
+    private static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+
+    private final Map<String, Entry> entries;
+
+    private AllureIngestionIndex(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Creates an empty index.
+     */
+    static AllureIngestionIndex empty() {
+        return new AllureIngestionIndex(new HashMap<>());
+    }
+
+    /**
+     * Loads an index, returning an empty one if the file is missing, corrupt or from another format version.
+     */
+    static AllureIngestionIndex load(File file) {
+        if (!file.isFile()) {
+            return empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return empty();
+            }
+            int count = in.readInt();
+            Map<String, Entry> entries = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+            for (int i = 0; i < count; i++) {
+                String path = readString(in);
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                entries.put(path, new Entry(size, lastModified, readResult(in)));
+            }
+            return new AllureIngestionIndex(entries);
+        } catch (IOException | RuntimeException e) {
+            return empty();
+        }
+    }
+
+    /**
+     * Gets the cached result of a file if its size and mtime are unchanged.
+     * @return the cached result, or null if the file must be parsed
+     */
+    AllureReportReader.ParsedAllureResult get(String path, long size, long lastModified) {
+        Entry entry = entries.get(path);
+        return entry != null && entry.size == size && entry.lastModified == lastModified ? entry.result : null;
+    }
+
+    void put(String path, long size, long lastModified, AllureReportReader.ParsedAllureResult result) {
+        entries.put(path, new Entry(size, lastModified, result));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes the index atomically, so a killed build never leaves a half-written file behind.
+     */
+    void save(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                writeString(out, e.getKey());
+                out.writeLong(e.getValue().size);
+                out.writeLong(e.getValue().lastModified);
+                writeResult(out, e.getValue().result);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeResult(DataOutputStream out, AllureReportReader.ParsedAllureResult parsed) throws IOException {
+        AllureReportReader.AllureTestResult result = parsed.result;
+        writeString(out, parsed.name);
+        writeString(out, parsed.feature);
+        writeString(out, parsed.cucumberName);
+        writeString(out, parsed.historyId);
+        writeString(out, parsed.testCaseId);
+        writeString(out, parsed.methodKey);
+        writeString(out, result.getName());
+        writeString(out, result.getStatus());
+        writeString(out, result.getStage());
+        out.writeLong(result.getStartTime());
+        out.writeLong(result.getEndTime());
+        writeSteps(out, result.getSteps());
+        writeAttachments(out, result.getAttachments());
+    }
+
+    private static void writeSteps(DataOutputStream out, List<AllureReportReader.AllureTestResult.Step> steps) throws IOException {
+        out.writeInt(steps.size());
+        for (AllureReportReader.AllureTestResult.Step step : steps) {
+            writeString(out, step.getName());
+            writeString(out, step.getStatus());
+            out.writeLong(step.getStartTime());
+            out.writeLong(step.getEndTime());
+            out.writeInt(step.getParameters().size());
+            for (AllureReportReader.AllureTestResult.Parameter parameter : step.getParameters()) {
+                writeString(out, parameter.getName());
+                writeString(out, parameter.getValue());
+            }
+            writeAttachments(out, step.getAttachments());
+            writeSteps(out, step.getSteps());
+        }
+    }
+
+    private static void writeAttachments(DataOutputStream out, List<AllureReportReader.AllureTestResult.Attachment> attachments) throws IOException {
+        out.writeInt(attachments.size());
+        for (AllureReportReader.AllureTestResult.Attachment attachment : attachments) {
+            writeString(out, attachment.getSource());
+            writeString(out, attachment.getName());
+            writeString(out, attachment.getType());
+        }
+    }
+
+    private static AllureReportReader.ParsedAllureResult readResult(DataInputStream in) throws IOException {
+        AllureReportReader.ParsedAllureResult parsed = new AllureReportReader.ParsedAllureResult();
+        parsed.name = readString(in);
+        parsed.feature = readString(in);
+        parsed.cucumberName = readString(in);
+        parsed.historyId = readString(in);
+        parsed.testCaseId = readString(in);
+        parsed.methodKey = readString(in);
+        String fullName = readString(in);
+        String status = readString(in);
+        String stage = readString(in);
+        long start = in.readLong();
+        long stop = in.readLong();
+        parsed.result = new AllureReportReader.AllureTestResult(fullName, status, stage, start, stop);
+        readSteps(in).forEach(parsed.result::addStep);
+        readAttachments(in).forEach(a -> parsed.result.addAttachment(a.getSource(), a.getName(), a.getType()));
+        return parsed;
+    }
+
+    private static List<AllureReportReader.AllureTestResult.Step> readSteps(DataInputStream in) throws IOException {
+        int count = readCount(in);
+        List<AllureReportReader.AllureTestResult.Step> steps = new ArrayList<>(Math.min(count, 16));
+        for (int i = 0; i < count; i++) {
+            String name = readString(in);
+            String status = readString(in);
+            long start = in.readLong();
+            long stop = in.readLong();
+            int parameterCount = readCount(in);
+            List<AllureReportReader.AllureTestResult.Parameter> parameters = new ArrayList<>(Math.min(parameterCount, 16));
+            for (int p = 0; p < parameterCount; p++) {
+                parameters.add(new AllureReportReader.AllureTestResult.Parameter(readString(in), readString(in)));
+            }
+            List<AllureReportReader.AllureTestResult.Attachment> attachments = readAttachments(in);
+            steps.add(new AllureReportReader.AllureTestResult.Step(name, status, start, stop, readSteps(in), attachments, parameters));
+        }
+        return steps;
+    }
+
+    private static List<AllureReportReader.AllureTestResult.Attachment> readAttachments(DataInputStream in) throws IOException {
+        int count = readCount(in);
+        List<AllureReportReader.AllureTestResult.Attachment> attachments = new ArrayList<>(Math.min(count, 16));
+        for (int i = 0; i < count; i++) {
+            attachments.add(new AllureReportReader.AllureTestResult.Attachment(readString(in), readString(in), readString(in)));
+        }
+        return attachments;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_STRING_BYTES) {
+            throw new IOException("Corrupt Allure index entry");
+        }
+        return count;
+    }
+
+    /**
+     * Length-prefixed UTF-8, -1 for null; unlike writeUTF it has no 64KB limit.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("Corrupt Allure index entry");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Entry {
+        final long size;
+        final long lastModified;
+        final AllureReportReader.ParsedAllureResult result;
+
+        Entry(long size, long lastModified, AllureReportReader.ParsedAllureResult result) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.result = result;
+        }
+    }
+}
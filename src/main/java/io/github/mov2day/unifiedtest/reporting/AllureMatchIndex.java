@@ -0,0 +1,264 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import org.gradle.api.logging.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches UnifiedTest results to Allure results through one canonical key per result.
+ * Allure results are indexed by normalized {@code class#method} and by their {@code historyId}/{@code testCaseId};
+ * a test result is normally resolved with a single probe on its own {@code class#method}. Results that carry
+ * no class at all are kept in a separate bare-name table, so bare names can no longer shadow classed results.
+ * <p>
+ * A {@code class#method} key shared by several Allure results, e.g. the invocations of a parameterized test, is
+ * ambiguous: it resolves only through the invocation index Gradle appends to the test name ({@code testAdd(int)[2]}),
+ * which picks the invocations in the order they started.
+ */
+public class AllureMatchIndex {
+    private static final Pattern INVOCATION_INDEX = Pattern.compile("\\[(\\d+)]$");
+
+    private final Map<String, Entry> byMethod = new HashMap<>();
+    private final Map<String, Entry> byId = new HashMap<>();
+    private final Map<String, Entry> byBareName = new HashMap<>();
+    private final Map<String, List<Entry>> invocations = new HashMap<>();
+    private final Set<String> collisions = new LinkedHashSet<>();
+    private final Set<String> unresolved = new LinkedHashSet<>();
+    private final Map<AllureReportReader.AllureTestResult, Boolean> matched = new IdentityHashMap<>();
+    private final Map<AllureReportReader.AllureTestResult, Boolean> superseded = new IdentityHashMap<>();
+    private final List<AllureReportReader.AllureTestResult> all = new ArrayList<>();
+
+    /**
+     * Adds a parsed result. Retries of the same test (same historyId) keep the latest attempt;
+     * distinct results sharing a key are recorded as collisions, and a shared {@code class#method} key
+     * becomes ambiguous.
+     */
+    void add(AllureReportReader.ParsedAllureResult parsed) {
+        Entry entry = new Entry(parsed.historyId, parsed.result);
+        all.add(parsed.result);
+        if (parsed.methodKey != null) {
+            put(byMethod, parsed.methodKey, entry);
+        } else if (parsed.name != null) {
+            put(byBareName, parsed.name, entry);
+        }
+        if (parsed.historyId != null) {
+            put(byId, parsed.historyId, entry);
+        }
+        if (parsed.testCaseId != null && !parsed.testCaseId.equals(parsed.historyId)) {
+            put(byId, parsed.testCaseId, entry);
+        }
+    }
+
+    private void put(Map<String, Entry> table, String key, Entry entry) {
+        if (table == byMethod && invocations.containsKey(key)) {
+            addInvocation(invocations.get(key), entry);
+            return;
+        }
+        Entry existing = table.putIfAbsent(key, entry);
+        if (existing == null || existing == entry) {
+            return;
+        }
+        if (existing.historyId != null && existing.historyId.equals(entry.historyId)) {
+            Entry latest = keepLatest(existing, entry);
+            table.put(key, latest);
+        } else if (table != byId) {
+            collisions.add(key);
+            if (table == byMethod) {
+                List<Entry> entries = new ArrayList<>();
+                entries.add(existing);
+                entries.add(entry);
+                invocations.put(key, entries);
+            }
+        }
+    }
+
+    private void addInvocation(List<Entry> entries, Entry entry) {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry existing = entries.get(i);
+            if (existing.historyId != null && existing.historyId.equals(entry.historyId)) {
+                entries.set(i, keepLatest(existing, entry));
+                return;
+            }
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Keeps the later of two attempts of the same test and marks the other one as superseded.
+     */
+    private Entry keepLatest(Entry existing, Entry entry) {
+        if (entry.result.getStartTime() > existing.result.getStartTime()) {
+            superseded.put(existing.result, Boolean.TRUE);
+            return entry;
+        }
+        superseded.put(entry.result, Boolean.TRUE);
+        return existing;
+    }
+
+    /**
+     * Finds the Allure result of a test.
+     * @param className the test class name as reported by the test framework
+     * @param testName the test method name
+     * @return the matching Allure result, or null if there is none
+     */
+    public AllureReportReader.AllureTestResult find(String className, String testName) {
+        Entry entry = null;
+        String key = methodKey(className, testName);
+        List<Entry> candidates = key != null ? invocations.get(key) : null;
+        if (candidates != null) {
+            entry = invocation(candidates, testName);
+            if (entry == null) {
+                unresolved.add(key);
+            }
+        } else if (key != null) {
+            entry = byMethod.get(key);
+            if (entry == null && !byId.isEmpty()) {
+                // Allure integrations commonly derive testCaseId from md5 of the full test name
+                entry = byId.get(md5(className + "." + normalizeMethod(testName)));
+            }
+        }
+        if (entry == null && testName != null) {
+            entry = byBareName.get(testName);
+        }
+        if (entry == null) {
+            return null;
+        }
+        matched.put(entry.result, Boolean.TRUE);
+        return entry.result;
+    }
+
+    /**
+     * Picks the invocation of an ambiguous key through the index Gradle appends to the test name.
+     * @return the invocation, or null if the test name carries no index that fits the Allure results
+     */
+    private static Entry invocation(List<Entry> candidates, String testName) {
+        Matcher matcher = INVOCATION_INDEX.matcher(testName.trim());
+        if (!matcher.find()) {
+            return null;
+        }
+        int index;
+        try {
+            index = Integer.parseInt(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (index < 1 || index > candidates.size()) {
+            return null;
+        }
+        // Invocations of one method run one after another; the stable sort keeps file order for equal starts
+        candidates.sort(Comparator.comparingLong(candidate -> candidate.result.getStartTime()));
+        return candidates.get(index - 1);
+    }
+
+    /**
+     * Gets the keys shared by more than one distinct Allure result.
+     * @return colliding class#method or bare-name keys
+     */
+    public Set<String> getCollisions() {
+        return Collections.unmodifiableSet(collisions);
+    }
+
+    /**
+     * Gets the Allure results that no {@link #find} call has matched so far; earlier retries are not reported.
+     * @return unmatched Allure results in ingestion order
+     */
+    public List<AllureReportReader.AllureTestResult> getUnmatched() {
+        List<AllureReportReader.AllureTestResult> unmatched = new ArrayList<>();
+        for (AllureReportReader.AllureTestResult result : all) {
+            if (!matched.containsKey(result) && !superseded.containsKey(result)) {
+                unmatched.add(result);
+            }
+        }
+        return unmatched;
+    }
+
+    /**
+     * Logs tests without an Allure result, Allure results without a test and ambiguous keys that a test could not be
+     * resolved through, when Allure results exist at all.
+     * @param logger the logger to report to
+     * @param testsWithoutAllure names of the tests for which {@link #find} returned null
+     */
+    public void logMismatches(Logger logger, List<String> testsWithoutAllure) {
+        if (all.isEmpty()) {
+            return;
+        }
+        List<AllureReportReader.AllureTestResult> unmatched = getUnmatched();
+        if (!unresolved.isEmpty()) {
+            logger.warn("UnifiedTest: {} Allure result keys match more than one test, e.g. {}",
+                unresolved.size(), unresolved.iterator().next());
+        }
+        if (!testsWithoutAllure.isEmpty()) {
+            logger.warn("UnifiedTest: {} tests have no matching Allure result, e.g. {}",
+                testsWithoutAllure.size(), testsWithoutAllure.subList(0, Math.min(5, testsWithoutAllure.size())));
+        }
+        if (!unmatched.isEmpty()) {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < Math.min(5, unmatched.size()); i++) {
+                names.add(unmatched.get(i).getName());
+            }
+            logger.warn("UnifiedTest: {} Allure results match no test, e.g. {}", unmatched.size(), names);
+        }
+    }
+
+    /**
+     * Gets the number of indexed Allure results.
+     * @return result count
+     */
+    public int size() {
+        return all.size();
+    }
+
+    /**
+     * Builds the canonical {@code class#method} key.
+     * Nested class separators are unified and parameter lists are dropped, so {@code Outer$Inner.test()}
+     * and {@code Outer.Inner#test} produce the same key.
+     * @return the key, or null if the class is unknown
+     */
+    static String methodKey(String className, String methodName) {
+        if (className == null || className.isEmpty() || methodName == null) {
+            return null;
+        }
+        return className.trim().replace('$', '.') + "#" + normalizeMethod(methodName);
+    }
+
+    private static String normalizeMethod(String methodName) {
+        String method = methodName.trim();
+        int paren = method.indexOf('(');
+        return paren > 0 ? method.substring(0, paren) : method;
+    }
+
+    private static String md5(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(32);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return value;
+        }
+    }
+
+    private static final class Entry {
+        final String historyId;
+        final AllureReportReader.AllureTestResult result;
+
+        Entry(String historyId, AllureReportReader.AllureTestResult result) {
+            this.historyId = historyId;
+            this.result = result;
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package io.github.mov2day.unifiedtest.reporting;
 
 import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.stream.Collectors;
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
+import java.util.stream.Stream;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 /**
  * Reads and parses Allure test reports.
@@ -20,14 +22,22 @@ import com.google.gson.JsonParser;
 public class AllureReportReader {
     private static final String ALLURE_RESULTS_DIR = "allure-results";
     private static final String ALLURE_REPORT_DIR = "allure-report";
-    private final Project project;
-    private final Gson gson;
-    private Map<String, AllureTestResult> allureResults;
+    private static final String INDEX_PATH = "unifiedtest/" + AllureIngestionIndex.FILE_NAME;
+    private final File buildDir;
+    private final Logger logger;
 
     public AllureReportReader(Project project) {
-        this.project = project;
-        this.gson = new Gson();
-        this.allureResults = new HashMap<>();
+        this(project.getBuildDir(), project.getLogger());
+    }
+
+    /**
+     * Creates a reader for the Allure results under a build directory.
+     * @param buildDir the project's build directory
+     * @param logger the logger to report problems to
+     */
+    public AllureReportReader(File buildDir, Logger logger) {
+        this.buildDir = buildDir;
+        this.logger = logger;
     }
 
     /**
@@ -35,140 +45,360 @@ public class AllureReportReader {
      * @return true if Allure reports are found
      */
     public boolean hasAllureReports() {
-        File allureResultsDir = new File(project.getBuildDir(), ALLURE_RESULTS_DIR);
-        File allureReportDir = new File(project.getBuildDir(), ALLURE_REPORT_DIR);
+        File allureResultsDir = new File(buildDir, ALLURE_RESULTS_DIR);
+        File allureReportDir = new File(buildDir, ALLURE_REPORT_DIR);
         return allureResultsDir.exists() || allureReportDir.exists();
     }
 
     /**
      * Reads and parses Allure test results.
-     * @return map of test results keyed by test name
+     * @return map of test results keyed by their full name (class and method, or feature and scenario)
      */
     public Map<String, AllureTestResult> readAllureResults() {
+        Map<String, AllureTestResult> results = new HashMap<>();
+        for (ParsedAllureResult parsed : ingest()) {
+            results.put(parsed.result.getName(), parsed.result);
+        }
+        return results;
+    }
+
+    /**
+     * Reads the Allure results into an index for matching them to UnifiedTest results.
+     * Keys that stay ambiguous are logged by {@link AllureMatchIndex#logMismatches}.
+     * @return the match index, empty if there are no Allure results
+     */
+    public AllureMatchIndex readMatchIndex() {
+        AllureMatchIndex index = new AllureMatchIndex();
+        for (ParsedAllureResult parsed : ingest()) {
+            index.add(parsed);
+        }
+        return index;
+    }
+
+    /**
+     * Parses all Allure result files.
+     * Result files are parsed in parallel, each streamed through a {@link JsonReader} that keeps only the
+     * fields the reports use, and returned in file order. Files whose size and mtime match the ingestion
+     * index in build/unifiedtest are not parsed again.
+     */
+    private List<ParsedAllureResult> ingest() {
         if (!hasAllureReports()) {
-            return Collections.emptyMap();
+            return Collections.emptyList();
         }
 
-        File allureResultsDir = new File(project.getBuildDir(), ALLURE_RESULTS_DIR);
+        File allureResultsDir = new File(buildDir, ALLURE_RESULTS_DIR);
         if (!allureResultsDir.exists()) {
-            return Collections.emptyMap();
+            return Collections.emptyList();
         }
 
-        try {
-            Files.walk(allureResultsDir.toPath())
-                .filter(path -> path.toString().endsWith("-result.json"))
-                .forEach(this::parseAllureResult);
+        List<Path> resultFiles;
+        try (Stream<Path> paths = Files.walk(allureResultsDir.toPath())) {
+            resultFiles = paths
+                .filter(path -> path.getFileName().toString().endsWith("-result.json"))
+                .collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Failed to read Allure results", e);
+            return Collections.emptyList();
+        }
 
-            return allureResults;
-        } catch (IOException e) {
-            project.getLogger().error("Failed to read Allure results", e);
-            return Collections.emptyMap();
+        File indexFile = new File(buildDir, INDEX_PATH);
+        AllureIngestionIndex previous = AllureIngestionIndex.load(indexFile);
+        Path root = allureResultsDir.toPath();
+        List<IndexedFile> files = resultFiles.parallelStream()
+            .map(path -> ingest(root, path, previous))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+
+        // Rebuild the index from the files seen in this run, evicting results that no longer exist
+        AllureIngestionIndex current = AllureIngestionIndex.empty();
+        List<ParsedAllureResult> results = new ArrayList<>(files.size());
+        int parsedCount = 0;
+        for (IndexedFile file : files) {
+            current.put(file.key, file.size, file.lastModified, file.parsed);
+            results.add(file.parsed);
+            if (!file.cached) {
+                parsedCount++;
+            }
         }
+        if (parsedCount > 0 || current.size() != previous.size()) {
+            try {
+                current.save(indexFile);
+            } catch (IOException e) {
+                logger.warn("Failed to write Allure ingestion index {}: {}", indexFile, e.getMessage());
+            }
+        }
+        logger.info("Read {} Allure results, {} parsed and {} from the ingestion index",
+            files.size(), parsedCount, files.size() - parsedCount);
+        return results;
     }
 
-    private void parseAllureResult(Path resultFile) {
+    private IndexedFile ingest(Path root, Path resultFile, AllureIngestionIndex index) {
+        BasicFileAttributes attributes;
         try {
-            String content = Files.readString(resultFile);
-            JsonObject result = gson.fromJson(content, JsonObject.class);
-            
-            // Extract test name and handle Cucumber format
-            String name = result.get("name").getAsString();
-            String fullName = name;
-            String cucumberName = null;
-            
-            // Handle Cucumber test names
-            if (result.has("labels")) {
-                JsonArray labels = result.getAsJsonArray("labels");
-                for (JsonElement label : labels) {
-                    JsonObject labelObj = label.getAsJsonObject();
-                    if ("feature".equals(labelObj.get("name").getAsString())) {
-                        String featureName = labelObj.get("value").getAsString();
-                        if (result.has("fullName")) {
-                            fullName = featureName + "." + result.get("fullName").getAsString();
-                        } else {
-                            fullName = featureName + "." + name;
-                        }
-                        cucumberName = fullName;
-                        break;
-                    }
+            attributes = Files.readAttributes(resultFile, BasicFileAttributes.class);
+        } catch (IOException e) {
+            logger.error("Failed to read Allure result file: " + resultFile, e);
+            return null;
+        }
+        String key = root.relativize(resultFile).toString().replace(File.separatorChar, '/');
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        ParsedAllureResult parsed = index.get(key, size, lastModified);
+        boolean cached = parsed != null;
+        if (!cached) {
+            parsed = parseAllureResult(resultFile);
+        }
+        return parsed == null ? null : new IndexedFile(key, size, lastModified, parsed, cached);
+    }
+
+    private ParsedAllureResult parseAllureResult(Path resultFile) {
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(resultFile, StandardCharsets.UTF_8))) {
+            ParsedAllureResult parsed = new ParsedAllureResult();
+            List<AllureTestResult.Step> steps = new ArrayList<>();
+            List<AllureTestResult.Attachment> attachments = new ArrayList<>();
+            String status = null;
+            String stage = null;
+            long start = 0;
+            long stop = 0;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name": parsed.name = nextString(reader); break;
+                    case "fullName": parsed.fullName = nextString(reader); break;
+                    case "testClass": parsed.testClass = nextString(reader); break;
+                    case "historyId": parsed.historyId = nextString(reader); break;
+                    case "testCaseId": parsed.testCaseId = nextString(reader); break;
+                    case "status": status = nextString(reader); break;
+                    case "stage": stage = nextString(reader); break;
+                    case "start": start = nextLong(reader); break;
+                    case "stop": stop = nextLong(reader); break;
+                    case "labels": readLabels(reader, parsed); break;
+                    case "steps": readSteps(reader, steps); break;
+                    case "attachments": readAttachments(reader, attachments); break;
+                    default: reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (parsed.name == null) {
+                logger.error("Failed to parse Allure result file: {} has no test name", resultFile);
+                return null;
+            }
+
+            // Handle Cucumber test names, then fall back to standard test name handling
+            String fullName = parsed.name;
+            if (parsed.feature != null) {
+                fullName = parsed.feature + "." + (parsed.fullName != null ? parsed.fullName : parsed.name);
+                parsed.cucumberName = fullName;
+            } else if (parsed.fullName != null) {
+                fullName = parsed.fullName;
+            } else if (parsed.testClass != null) {
+                fullName = parsed.testClass + "." + parsed.name;
+            }
+            parsed.methodKey = canonicalMethodKey(parsed);
+
+            parsed.result = new AllureTestResult(fullName, status, stage, start, stop);
+            steps.forEach(parsed.result::addStep);
+            attachments.forEach(att -> parsed.result.addAttachment(att.getSource(), att.getName(), att.getType()));
+            return parsed;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to parse Allure result file: " + resultFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Derives the class#method key: feature and scenario for Cucumber, then the testClass/testMethod
+     * labels, then the testClass field, then the fullName split at its last separator.
+     */
+    private static String canonicalMethodKey(ParsedAllureResult parsed) {
+        if (parsed.feature != null) {
+            return AllureMatchIndex.methodKey(parsed.feature, parsed.name);
+        }
+        if (parsed.labelClass != null) {
+            return AllureMatchIndex.methodKey(parsed.labelClass, parsed.labelMethod != null ? parsed.labelMethod : parsed.name);
+        }
+        if (parsed.testClass != null) {
+            return AllureMatchIndex.methodKey(parsed.testClass, parsed.name);
+        }
+        if (parsed.fullName != null) {
+            String fullName = parsed.fullName;
+            int paren = fullName.indexOf('(');
+            String head = paren > 0 ? fullName.substring(0, paren) : fullName;
+            int split = Math.max(head.lastIndexOf('#'), head.lastIndexOf('.'));
+            if (split > 0 && split < head.length() - 1) {
+                return AllureMatchIndex.methodKey(fullName.substring(0, split), fullName.substring(split + 1));
+            }
+        }
+        return null;
+    }
+
+    private static void readLabels(JsonReader reader, ParsedAllureResult parsed) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String labelName = null;
+            String value = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name": labelName = nextString(reader); break;
+                    case "value": value = nextString(reader); break;
+                    default: reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (parsed.feature == null && "feature".equals(labelName)) {
+                parsed.feature = value;
+            } else if ("testClass".equals(labelName)) {
+                parsed.labelClass = value;
+            } else if ("testMethod".equals(labelName)) {
+                parsed.labelMethod = value;
+            }
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Reads a steps array, descending into nested steps as they stream past.
+     */
+    private static void readSteps(JsonReader reader, List<AllureTestResult.Step> steps) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String name = null;
+            String status = null;
+            long start = 0;
+            long stop = 0;
+            List<AllureTestResult.Step> children = new ArrayList<>();
+            List<AllureTestResult.Attachment> attachments = new ArrayList<>();
+            List<AllureTestResult.Parameter> parameters = new ArrayList<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name": name = nextString(reader); break;
+                    case "status": status = nextString(reader); break;
+                    case "start": start = nextLong(reader); break;
+                    case "stop": stop = nextLong(reader); break;
+                    case "steps": readSteps(reader, children); break;
+                    case "attachments": readAttachments(reader, attachments); break;
+                    case "parameters": readParameters(reader, parameters); break;
+                    default: reader.skipValue();
                 }
             }
-            
-            // Fallback to standard test name handling
-            if (cucumberName == null) {
-                if (result.has("fullName")) {
-                    fullName = result.get("fullName").getAsString();
-                } else if (result.has("testClass")) {
-                    String testClass = result.get("testClass").getAsString();
-                    fullName = testClass + "." + name;
+            reader.endObject();
+            steps.add(new AllureTestResult.Step(name, status, start, stop, children, attachments, parameters));
+        }
+        reader.endArray();
+    }
+
+    private static void readParameters(JsonReader reader, List<AllureTestResult.Parameter> parameters) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String name = null;
+            String value = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name": name = nextString(reader); break;
+                    case "value": value = nextString(reader); break;
+                    default: reader.skipValue();
                 }
             }
-            
-            String status = result.get("status").getAsString();
-            String stage = result.get("stage").getAsString();
-            long start = result.get("start").getAsLong();
-            long stop = result.get("stop").getAsLong();
-            
-            AllureTestResult testResult = new AllureTestResult(fullName, status, stage, start, stop);
-            
-            // Parse steps if present
-            if (result.has("steps")) {
-                JsonArray steps = result.getAsJsonArray("steps");
-                steps.forEach(step -> {
-                    JsonObject stepObj = step.getAsJsonObject();
-                    String stepName = stepObj.get("name").getAsString();
-                    String stepStatus = stepObj.get("status").getAsString();
-                    testResult.addStep(stepName, stepStatus);
-                });
-            }
-            
-            // Parse attachments if present
-            if (result.has("attachments")) {
-                JsonArray attachments = result.getAsJsonArray("attachments");
-                attachments.forEach(attachment -> {
-                    JsonObject attObj = attachment.getAsJsonObject();
-                    String source = attObj.get("source").getAsString();
-                    String attachmentName = attObj.get("name").getAsString();
-                    String type = attObj.get("type").getAsString();
-                    testResult.addAttachment(source, attachmentName, type);
-                });
-            }
-
-            // Add multiple variations of the test name for better matching
-            allureResults.put(fullName, testResult);
-            allureResults.put(name, testResult);
-            if (cucumberName != null) {
-                allureResults.put(cucumberName, testResult);
-            }
-            
-            // Add feature name if available
-            if (result.has("labels")) {
-                JsonArray labels = result.getAsJsonArray("labels");
-                for (JsonElement label : labels) {
-                    JsonObject labelObj = label.getAsJsonObject();
-                    if ("feature".equals(labelObj.get("name").getAsString())) {
-                        String featureName = labelObj.get("value").getAsString();
-                        allureResults.put(featureName + "." + name, testResult);
-                        break;
-                    }
+            reader.endObject();
+            parameters.add(new AllureTestResult.Parameter(name, value));
+        }
+        reader.endArray();
+    }
+
+    private static void readAttachments(JsonReader reader, List<AllureTestResult.Attachment> attachments) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String source = null;
+            String name = null;
+            String type = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "source": source = nextString(reader); break;
+                    case "name": name = nextString(reader); break;
+                    case "type": type = nextString(reader); break;
+                    default: reader.skipValue();
                 }
             }
-            
-            // Log for debugging
-            project.getLogger().info("Parsed Allure result: fullName={}, name={}, cucumberName={}, status={}, steps={}, attachments={}", 
-                fullName, name, cucumberName, status, testResult.getSteps().size(), testResult.getAttachments().size());
-            
-        } catch (IOException | RuntimeException e) {
-            project.getLogger().error("Failed to parse Allure result file: " + resultFile, e);
+            reader.endObject();
+            if (source != null) {
+                attachments.add(new AllureTestResult.Attachment(source, name, type));
+            }
+        }
+        reader.endArray();
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static long nextLong(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+        return reader.nextLong();
+    }
+
+    /**
+     * A result file with the fingerprint it was ingested under.
+     */
+    private static final class IndexedFile {
+        final String key;
+        final long size;
+        final long lastModified;
+        final ParsedAllureResult parsed;
+        final boolean cached;
+
+        IndexedFile(String key, long size, long lastModified, ParsedAllureResult parsed, boolean cached) {
+            this.key = key;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.parsed = parsed;
+            this.cached = cached;
         }
     }
 
+    /**
+     * Fields of one result file needed to match it to test results; persisted by {@link AllureIngestionIndex}.
+     */
+    static final class ParsedAllureResult {
+        String name;
+        String fullName;
+        String testClass;
+        String labelClass;
+        String labelMethod;
+        String feature;
+        String cucumberName;
+        String historyId;
+        String testCaseId;
+        String methodKey;
+        AllureTestResult result;
+    }
+
+    /**
+     * Gets the Allure results directory, where result files and their attachments live.
+     * @return the allure-results directory (may not exist)
+     */
+    public File getAllureResultsDir() {
+        return new File(buildDir, ALLURE_RESULTS_DIR);
+    }
+
     /**
      * Gets the path to the Allure report directory.
      * @return path to Allure report directory or null if not found
      */
     public String getAllureReportPath() {
-        File allureReportDir = new File(project.getBuildDir(), ALLURE_REPORT_DIR);
+        File allureReportDir = new File(buildDir, ALLURE_REPORT_DIR);
         return allureReportDir.exists() ? allureReportDir.getAbsolutePath() : null;
     }
 
@@ -198,6 +428,10 @@ public class AllureReportReader {
             steps.add(new Step(name, status));
         }
 
+        public void addStep(Step step) {
+            steps.add(step);
+        }
+
         public void addAttachment(String source, String name, String type) {
             attachments.add(new Attachment(source, name, type));
         }
@@ -211,17 +445,69 @@ public class AllureReportReader {
         public List<Attachment> getAttachments() { return Collections.unmodifiableList(attachments); }
         public long getDuration() { return endTime - startTime; }
 
+        /**
+         * A step with its timing, parameters, attachments and nested steps.
+         */
         public static class Step {
             private final String name;
             private final String status;
+            private final long startTime;
+            private final long endTime;
+            private final List<Step> steps;
+            private final List<Attachment> attachments;
+            private final List<Parameter> parameters;
 
             public Step(String name, String status) {
+                this(name, status, 0, 0, Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+            }
+
+            public Step(String name, String status, long startTime, long endTime,
+                        List<Step> steps, List<Attachment> attachments, List<Parameter> parameters) {
                 this.name = name;
                 this.status = status;
+                this.startTime = startTime;
+                this.endTime = endTime;
+                this.steps = steps;
+                this.attachments = attachments;
+                this.parameters = parameters;
             }
 
             public String getName() { return name; }
             public String getStatus() { return status; }
+            public long getStartTime() { return startTime; }
+            public long getEndTime() { return endTime; }
+            public List<Step> getSteps() { return Collections.unmodifiableList(steps); }
+            public List<Attachment> getAttachments() { return Collections.unmodifiableList(attachments); }
+            public List<Parameter> getParameters() { return Collections.unmodifiableList(parameters); }
+
+            public long getDuration() {
+                return Math.max(0, endTime - startTime);
+            }
+
+            /**
+             * Gets the time spent in this step itself, excluding nested steps.
+             * @return self time in milliseconds, never negative
+             */
+            public long getSelfTime() {
+                long children = 0;
+                for (Step step : steps) {
+                    children += step.getDuration();
+                }
+                return Math.max(0, getDuration() - children);
+            }
+        }
+
+        public static class Parameter {
+            private final String name;
+            private final String value;
+
+            public Parameter(String name, String value) {
+                this.name = name;
+                this.value = value;
+            }
+
+            public String getName() { return name; }
+            public String getValue() { return value; }
         }
 
         public static class Attachment {
@@ -0,0 +1,178 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for report attachments under {@code <reportDir>/attachments}.
+ * Files are named by the SHA-256 of their content, so identical screenshots and logs are kept once.
+ * Content is hashed in fixed-size chunks and placed with a hardlink where the filesystem allows it,
+ * otherwise copied with {@link FileChannel#transferTo}; it is never loaded onto the heap as a whole.
+ * Hardlinking relies on attachments being write-once, which holds for Allure results.
+ * <p>
+ * A store belongs to one report directory and is passed explicitly to whoever writes into it; each test task
+ * {@link #clear() clears} the store of its build directory before collecting results.
+ */
+public class AttachmentStore {
+    /** Directory name of the store, relative to the report directory */
+    public static final String DIR_NAME = "attachments";
+    /** Report directory of the build, relative to the build directory */
+    public static final String REPORT_DIR = "unifiedtest/reports";
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final File reportDir;
+    private final Map<String, String> stored = new HashMap<>();
+
+    /**
+     * Creates a store inside the given report directory.
+     * @param reportDir the directory holding the report that links to the attachments
+     */
+    public AttachmentStore(File reportDir) {
+        this.reportDir = reportDir;
+    }
+
+    /**
+     * Stores a file, unless identical content is already stored.
+     * @param source the attachment file
+     * @return the stored file's path relative to the report directory, using forward slashes
+     * @throws IOException if the file cannot be read or stored
+     */
+    public String store(File source) throws IOException {
+        String sourceKey = source.getAbsolutePath() + ":" + source.length() + ":" + source.lastModified();
+        String known = stored.get(sourceKey);
+        if (known != null) {
+            return known;
+        }
+
+        String hash = hash(source.toPath());
+        String relative = DIR_NAME + "/" + hash.substring(0, 2) + "/" + hash + extensionOf(source.getName());
+        Path target = new File(reportDir, relative).toPath();
+        if (!Files.exists(target)) {
+            Files.createDirectories(target.getParent());
+            place(source.toPath(), target);
+        }
+        stored.put(sourceKey, relative);
+        return relative;
+    }
+
+    /**
+     * Stores content held in memory, unless identical content is already stored.
+     * @param content the attachment content
+     * @param name the attachment name, whose extension the stored file keeps
+     * @return the stored file's path relative to the report directory, using forward slashes
+     * @throws IOException if the content cannot be stored
+     */
+    public synchronized String store(byte[] content, String name) throws IOException {
+        MessageDigest digest = sha256();
+        String hash = hex(digest.digest(content));
+        String relative = DIR_NAME + "/" + hash.substring(0, 2) + "/" + hash + extensionOf(name != null ? name : "");
+        Path target = new File(reportDir, relative).toPath();
+        if (!Files.exists(target)) {
+            Files.createDirectories(target.getParent());
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return relative;
+    }
+
+    /**
+     * Removes every stored file.
+     * @throws IOException if a file cannot be deleted
+     */
+    public synchronized void clear() throws IOException {
+        stored.clear();
+        Path dir = new File(reportDir, DIR_NAME).toPath();
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Resolves a path returned by {@link #store} to the stored file.
+     * @param relative the relative path
+     * @return the stored file
+     */
+    public Path resolve(String relative) {
+        return new File(reportDir, relative).toPath();
+    }
+
+    private static void place(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+            return;
+        } catch (FileAlreadyExistsException e) {
+            return;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // Different filesystem or no hardlink support: fall back to a kernel-side copy
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest sha256() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static String extensionOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0 || fileName.length() - dot > 10) {
+            return "";
+        }
+        String extension = fileName.substring(dot);
+        return extension.matches("\\.[A-Za-z0-9]+") ? extension : "";
+    }
+}
@@ -0,0 +1,172 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResult;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Groups failed tests by a normalized stack-trace signature.
+ * The signature is the exception type plus the top application frames, with line numbers and
+ * generated lambda/proxy names stripped, so mass failures with one root cause collapse into one cluster.
+ * Assertion-library and reflection frames are skipped: every {@code assertEquals} failure starts with the same
+ * library frames, which would otherwise put unrelated assertion failures into one cluster.
+ */
+public class FailureClusters {
+    /** Number of application stack frames that take part in the signature */
+    static final int SIGNATURE_FRAMES = 5;
+
+    /** Frames of assertion libraries, test runners and reflection, which say nothing about the cause */
+    private static final String[] FRAMEWORK_PREFIXES = {
+        "org.junit.", "org.opentest4j.", "org.assertj.", "org.hamcrest.", "org.testng.",
+        "java.lang.reflect.", "jdk.internal.", "sun.reflect."
+    };
+
+    private static final Pattern LINE_NUMBER = Pattern.compile(":\\d+\\)");
+    private static final Pattern LAMBDA_METHOD = Pattern.compile("(lambda\\$[\\w$]*?)\\$\\d+");
+    private static final Pattern LAMBDA_CLASS = Pattern.compile("\\$\\$Lambda(\\$\\d+)?(/0x[0-9a-fA-F]+)?");
+    private static final Pattern PROXY_CLASS = Pattern.compile("\\$Proxy\\d+");
+    private static final Pattern NUMBERS = Pattern.compile("\\d+");
+
+    private FailureClusters() {
+    }
+
+    /**
+     * Clusters the failed results by signature, largest cluster first.
+     * @param results all test results; non-failed results are ignored
+     * @return list of failure clusters
+     */
+    public static List<FailureCluster> cluster(List<UnifiedTestResult> results) {
+        Map<String, FailureCluster> clusters = new LinkedHashMap<>();
+        for (UnifiedTestResult r : results) {
+            if (!"FAIL".equals(r.status)) {
+                continue;
+            }
+            String normalized = normalize(r.failureMessage, r.stackTrace);
+            String id = hash(normalized);
+            clusters.computeIfAbsent(id, k -> new FailureCluster(k, exceptionType(r.stackTrace), r)).members.add(r);
+        }
+        List<FailureCluster> sorted = new ArrayList<>(clusters.values());
+        sorted.sort((a, b) -> Integer.compare(b.members.size(), a.members.size()));
+        return sorted;
+    }
+
+    /**
+     * Computes the signature id of a failure.
+     * @param failureMessage the failure message, used only when there is no stack trace
+     * @param stackTrace the failure stack trace
+     * @return short hexadecimal signature id
+     */
+    public static String signatureOf(String failureMessage, String stackTrace) {
+        return hash(normalize(failureMessage, stackTrace));
+    }
+
+    /**
+     * Builds the normalized signature text: exception type followed by the top application frames.
+     */
+    static String normalize(String failureMessage, String stackTrace) {
+        StringBuilder sb = new StringBuilder();
+        String type = exceptionType(stackTrace);
+        sb.append(type != null ? type : "unknown");
+
+        int frames = 0;
+        if (stackTrace != null) {
+            for (String line : stackTrace.split("\n")) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith("Caused by:")) {
+                    break;
+                }
+                if (!trimmed.startsWith("at ")) {
+                    continue;
+                }
+                String frame = trimmed.substring(3);
+                if (isFrameworkFrame(frame)) {
+                    continue;
+                }
+                frame = LINE_NUMBER.matcher(frame).replaceAll(")");
+                frame = LAMBDA_METHOD.matcher(frame).replaceAll("$1");
+                frame = LAMBDA_CLASS.matcher(frame).replaceAll("\\$\\$Lambda");
+                frame = PROXY_CLASS.matcher(frame).replaceAll("\\$Proxy");
+                sb.append('\n').append(frame);
+                if (++frames == SIGNATURE_FRAMES) {
+                    break;
+                }
+            }
+        }
+        if (frames == 0 && failureMessage != null) {
+            // Without frames the message is all we have; mask numbers so ids and timings do not split clusters
+            sb.append('\n').append(NUMBERS.matcher(failureMessage.trim()).replaceAll("#"));
+        }
+        return sb.toString();
+    }
+
+    private static boolean isFrameworkFrame(String frame) {
+        // Drop a module or class loader prefix such as java.base/
+        int slash = frame.lastIndexOf('/', frame.indexOf('(') >= 0 ? frame.indexOf('(') : frame.length());
+        String method = slash >= 0 ? frame.substring(slash + 1) : frame;
+        for (String prefix : FRAMEWORK_PREFIXES) {
+            if (method.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts the exception type from the first line of a stack trace.
+     * @param stackTrace the stack trace, may be null
+     * @return the exception class name, or null if it cannot be determined
+     */
+    static String exceptionType(String stackTrace) {
+        if (stackTrace == null || stackTrace.isEmpty()) {
+            return null;
+        }
+        int end = stackTrace.indexOf('\n');
+        String firstLine = (end >= 0 ? stackTrace.substring(0, end) : stackTrace).trim();
+        int colon = firstLine.indexOf(':');
+        String type = colon >= 0 ? firstLine.substring(0, colon) : firstLine;
+        return type.isEmpty() || type.contains(" ") ? null : type;
+    }
+
+    private static String hash(String normalized) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 6; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(normalized.hashCode());
+        }
+    }
+
+    /**
+     * A group of failed tests sharing one signature.
+     */
+    public static class FailureCluster {
+        private final String signature;
+        private final String exceptionType;
+        private final UnifiedTestResult representative;
+        private final List<UnifiedTestResult> members;
+
+        FailureCluster(String signature, String exceptionType, UnifiedTestResult representative) {
+            this.signature = signature;
+            this.exceptionType = exceptionType;
+            this.representative = representative;
+            this.members = new ArrayList<>();
+        }
+
+        public String getSignature() { return signature; }
+        public String getExceptionType() { return exceptionType; }
+        public UnifiedTestResult getRepresentative() { return representative; }
+        public List<UnifiedTestResult> getMembers() { return Collections.unmodifiableList(members); }
+    }
+}
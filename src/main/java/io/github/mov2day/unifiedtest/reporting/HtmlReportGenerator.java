@@ -3,12 +3,15 @@ package io.github.mov2day.unifiedtest.reporting;
 import io.github.mov2day.unifiedtest.collector.UnifiedTestResult;
 import io.github.mov2day.unifiedtest.collector.UnifiedTestResultCollector;
 import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
 import org.gradle.api.tasks.testing.Test;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Collections;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,7 +21,17 @@ import java.util.Map;
  */
 public class HtmlReportGenerator {
     public static void generate(Project project, Test testTask, UnifiedTestResultCollector collector) {
-        File reportFile = new File(project.getBuildDir(), "unifiedtest/reports/index.html");
+        generate(project.getBuildDir(), project.getLogger(), collector);
+    }
+
+    /**
+     * Generates the HTML report without touching the project, so it can run from configuration-cached task actions.
+     * @param buildDir the project's build directory
+     * @param logger the logger to report problems to
+     * @param collector the results to report
+     */
+    public static void generate(File buildDir, Logger logger, UnifiedTestResultCollector collector) {
+        File reportFile = new File(buildDir, "unifiedtest/reports/index.html");
         reportFile.getParentFile().mkdirs();
         
         try (FileWriter writer = new FileWriter(reportFile)) {
@@ -85,6 +98,11 @@ public class HtmlReportGenerator {
             writer.write(".allure-step:hover { transform: translateY(-1px); box-shadow: 0 2px 4px rgba(0,0,0,0.05); }\n");
             writer.write(".allure-step .step-status { display: inline-flex; align-items: center; padding: 0.25rem 0.75rem; border-radius: 9999px; font-size: 0.75rem; font-weight: 500; margin-right: 1rem; gap: 0.25rem; }\n");
             writer.write(".allure-step .step-name { flex: 1; font-size: 0.875rem; }\n");
+            writer.write(".allure-step .step-time { color: #6b7280; font-size: 0.75rem; margin-left: 1rem; white-space: nowrap; }\n");
+            writer.write(".allure-step.slowest .step-time { color: var(--warning); font-weight: 600; }\n");
+            writer.write(".allure-step-node > summary { cursor: pointer; list-style: none; }\n");
+            writer.write(".step-children { margin: 0.5rem 0 0 1.25rem; display: flex; flex-direction: column; gap: 0.5rem; content-visibility: auto; }\n");
+            writer.write(".step-parameter, .step-attachment { font-size: 0.8rem; color: #4b5563; }\n");
             writer.write(".allure-step.passed { border-left: 4px solid var(--success); }\n");
             writer.write(".allure-step.passed .step-status { background: #f0fdf4; color: var(--success); }\n");
             writer.write(".allure-step.passed .step-status::before { content: ''; display: inline-block; width: 0.375rem; height: 0.375rem; border-radius: 50%; background: var(--success); }\n");
@@ -105,6 +123,17 @@ public class HtmlReportGenerator {
             writer.write(".status-summary { display: flex; gap: 1rem; color: #6b7280; font-size: 0.875rem; }\n");
             writer.write(".status-summary .step-count::before { content: '📋'; margin-right: 0.25rem; }\n");
             writer.write(".status-summary .attachment-count::before { content: '📎'; margin-right: 0.25rem; }\n");
+            writer.write(".cluster { border-left: 4px solid var(--error); }\n");
+            writer.write(".cluster-header { display: flex; align-items: baseline; gap: 1rem; flex-wrap: wrap; }\n");
+            writer.write(".cluster-type { font-family: ui-monospace, monospace; font-weight: 500; color: var(--error); }\n");
+            writer.write(".cluster-count { color: #6b7280; font-size: 0.875rem; }\n");
+            writer.write(".signature { font-family: ui-monospace, monospace; font-size: 0.75rem; color: #6b7280; }\n");
+            writer.write(".cluster-members { margin-top: 0.75rem; font-size: 0.875rem; }\n");
+            writer.write(".cluster-members ul { margin: 0.5rem 0 0 1.5rem; max-height: 240px; overflow: auto; }\n");
+            writer.write(".cluster-link { color: var(--primary); text-decoration: none; font-size: 0.75rem; }\n");
+            writer.write(".search-box { width: 100%; padding: 0.75rem 1rem; font-size: 0.875rem; border: 1px solid #e5e7eb; border-radius: 0.5rem; margin-bottom: 0.5rem; }\n");
+            writer.write(".search-box:focus { outline: none; border-color: var(--primary); }\n");
+            writer.write(".search-count { color: #6b7280; font-size: 0.75rem; }\n");
             writer.write("</style>\n");
             writer.write("<link href='https://fonts.googleapis.com/css2?family=Roboto:wght@300;400;500&display=swap' rel='stylesheet'>\n");
             writer.write("</head>\n<body>\n");
@@ -149,10 +178,11 @@ public class HtmlReportGenerator {
             writer.write("</div>\n");
 
             // Check for Allure reports
-            AllureReportReader allureReader = new AllureReportReader(project);
+            AllureReportReader allureReader = new AllureReportReader(buildDir, logger);
             boolean hasAllureReports = allureReader.hasAllureReports();
-            Map<String, AllureReportReader.AllureTestResult> allureResults = hasAllureReports ? 
-                allureReader.readAllureResults() : Collections.emptyMap();
+            AllureMatchIndex allureIndex = hasAllureReports ? allureReader.readMatchIndex() : new AllureMatchIndex();
+            AttachmentStore attachmentStore = new AttachmentStore(reportFile.getParentFile());
+            List<String> testsWithoutAllure = new ArrayList<>();
 
             // Add Allure report link if available
             if (hasAllureReports) {
@@ -166,14 +196,54 @@ public class HtmlReportGenerator {
                 }
             }
 
+            // Failures grouped by stack-trace signature, each rendered once
+            List<FailureClusters.FailureCluster> clusters = FailureClusters.cluster(results);
+            Map<UnifiedTestResult, String> signatures = new IdentityHashMap<>();
+            if (!clusters.isEmpty()) {
+                writer.write("<h2>Failure Clusters</h2>\n");
+                for (FailureClusters.FailureCluster cluster : clusters) {
+                    UnifiedTestResult first = cluster.getRepresentative();
+                    writer.write(String.format("<div class='card cluster' id='cluster-%s'>\n", cluster.getSignature()));
+                    writer.write("  <div class='cluster-header'>\n");
+                    writer.write(String.format("    <span class='cluster-type'>%s</span>\n",
+                        escape(cluster.getExceptionType() != null ? cluster.getExceptionType() : "Unknown failure")));
+                    writer.write(String.format("    <span class='cluster-count'>%d failed %s</span>\n",
+                        cluster.getMembers().size(), cluster.getMembers().size() == 1 ? "test" : "tests"));
+                    writer.write(String.format("    <span class='signature'>signature %s</span>\n", cluster.getSignature()));
+                    writer.write("  </div>\n");
+                    writer.write("  <div class='failure-details'>\n");
+                    if (first.failureMessage != null) {
+                        writer.write(String.format("    <strong>Message:</strong> %s\n", escape(first.failureMessage)));
+                    }
+                    if (first.stackTrace != null) {
+                        writer.write("    <button class='toggle-stack' onclick='toggleStack(this)'>Show Stack Trace</button>\n");
+                        writer.write(String.format("    <pre class='stacktrace'>%s</pre>\n", escape(first.stackTrace)));
+                    }
+                    writer.write("  </div>\n");
+                    writer.write("  <details class='cluster-members'>\n");
+                    writer.write(String.format("    <summary>Affected tests (%d)</summary>\n    <ul>\n", cluster.getMembers().size()));
+                    for (UnifiedTestResult member : cluster.getMembers()) {
+                        signatures.put(member, cluster.getSignature());
+                        writer.write(String.format("      <li>%s.%s</li>\n", escape(member.className), escape(member.testName)));
+                    }
+                    writer.write("    </ul>\n  </details>\n");
+                    writer.write("</div>\n");
+                }
+            }
+
             // Test details table
             writer.write("<div class='card'>\n");
             writer.write("<h2>Test Details</h2>\n");
+            writer.write("<input type='search' id='search' class='search-box' placeholder='Search by class, test or failure message' oninput='onSearchInput(this.value)'>\n");
+            writer.write("<div class='search-count' id='search-count'></div>\n");
             writer.write("<table>\n");
             writer.write("<tr><th>Class</th><th>Test</th><th>Status</th><th>Duration</th><th>Details</th></tr>\n");
 
+            ReportSearchIndex searchIndex = new ReportSearchIndex();
+            int rowId = 0;
             for (UnifiedTestResult r : results) {
-                writer.write("<tr>\n");
+                searchIndex.add(rowId, r.className, r.testName, r.failureMessage);
+                writer.write(String.format("<tr data-row='%d'>\n", rowId++));
                 writer.write(String.format("  <td>%s</td>\n", r.className));
                 writer.write(String.format("  <td>%s</td>\n", r.testName));
                 writer.write(String.format("  <td><span class='status %s'>%s</span></td>\n", r.status, r.status));
@@ -182,31 +252,29 @@ public class HtmlReportGenerator {
                 
                 // For failed tests, show detailed information
                 if ("FAIL".equals(r.status)) {
+                    // The stack trace is rendered once per cluster; rows only link to it
                     writer.write("    <div class='failure-details'>\n");
                     if (r.failureMessage != null) {
-                        writer.write(String.format("      <strong>Message:</strong> %s\n", r.failureMessage.replace("<", "&lt;").replace(">", "&gt;")));
-                    }
-                    if (r.stackTrace != null) {
-                        writer.write("      <button class='toggle-stack' onclick='toggleStack(this)'>Show Stack Trace</button>\n");
-                        writer.write(String.format("      <pre class='stacktrace'>%s</pre>\n", r.stackTrace.replace("<", "&lt;").replace(">", "&gt;")));
+                        writer.write(String.format("      <strong>Message:</strong> %s\n", escape(r.failureMessage)));
                     }
+                    String signature = signatures.get(r);
+                    writer.write(String.format("      <a class='cluster-link' href='#cluster-%s'>signature %s</a>\n", signature, signature));
                     writer.write("    </div>\n");
 
                     // Add Allure details if available
-                    String testKey = r.className + "." + r.testName;
-                    String simpleTestKey = r.testName;
-                    AllureReportReader.AllureTestResult allureResult = allureResults.get(testKey);
+                    AllureReportReader.AllureTestResult allureResult = allureIndex.find(r.className, r.testName);
                     if (allureResult == null) {
-                        allureResult = allureResults.get(simpleTestKey);
+                        testsWithoutAllure.add(r.className + "." + r.testName);
                     }
                     
                     if (allureResult != null) {
                         writer.write("    <div class='allure-details'>\n");
                         writer.write("      <h4>Test Execution Details</h4>\n");
                         
-                        // Add test status and duration
+                        // Add test status and duration; interrupted tests are left without a status
+                        String allureStatus = allureResult.getStatus() != null ? allureResult.getStatus() : "unknown";
                         writer.write(String.format("      <div class='allure-status %s'>Status: %s</div>\n",
-                            allureResult.getStatus().toLowerCase(), allureResult.getStatus()));
+                            allureStatus.toLowerCase(), escape(allureStatus)));
                         writer.write(String.format("      <div class='allure-duration'>Duration: %s</div>\n",
                             formatDuration(allureResult.getDuration())));
                         
@@ -214,15 +282,8 @@ public class HtmlReportGenerator {
                         if (!allureResult.getSteps().isEmpty()) {
                             writer.write("      <h4>Test Steps:</h4>\n");
                             writer.write("      <div class='allure-steps'>\n");
-                            for (AllureReportReader.AllureTestResult.Step step : allureResult.getSteps()) {
-                                writer.write(String.format("        <div class='allure-step %s'>\n", 
-                                    step.getStatus().toLowerCase()));
-                                writer.write(String.format("          <span class='step-status'>%s</span>\n",
-                                    step.getStatus()));
-                                writer.write(String.format("          <span class='step-name'>%s</span>\n",
-                                    step.getName()));
-                                writer.write("        </div>\n");
-                            }
+                            writeSteps(writer, allureResult.getSteps(), maxSelfTime(allureResult.getSteps()),
+                                logger, attachmentStore, allureReader);
                             writer.write("      </div>\n");
                         }
                         
@@ -231,21 +292,20 @@ public class HtmlReportGenerator {
                             writer.write("      <h4>Evidence:</h4>\n");
                             writer.write("      <div class='allure-attachments'>\n");
                             for (AllureReportReader.AllureTestResult.Attachment attachment : allureResult.getAttachments()) {
-                                if (attachment.getType().startsWith("image/")) {
-                                    writer.write(String.format("        <div class='allure-attachment'>\n"));
-                                    writer.write(String.format("          <div class='attachment-name'>%s</div>\n",
-                                        attachment.getName()));
-                                    writer.write(String.format("          <img src='file://%s' alt='%s'>\n", 
-                                        attachment.getSource(), attachment.getName()));
-                                    writer.write("        </div>\n");
+                                String href = storeAttachment(logger, attachmentStore, allureReader, attachment);
+                                writer.write("        <div class='allure-attachment'>\n");
+                                writer.write(String.format("          <div class='attachment-name'>%s</div>\n",
+                                    escape(attachment.getName())));
+                                if (href == null) {
+                                    writer.write("          <span>Attachment file not found</span>\n");
+                                } else if (attachment.getType() != null && attachment.getType().startsWith("image/")) {
+                                    writer.write(String.format("          <img src='%s' alt='%s' loading='lazy'>\n",
+                                        escape(href), escape(attachment.getName())));
                                 } else {
-                                    writer.write(String.format("        <div class='allure-attachment'>\n"));
-                                    writer.write(String.format("          <div class='attachment-name'>%s</div>\n",
-                                        attachment.getName()));
-                                    writer.write(String.format("          <a href='file://%s' target='_blank'>View Attachment</a>\n", 
-                                        attachment.getSource()));
-                                    writer.write("        </div>\n");
+                                    writer.write(String.format("          <a href='%s' target='_blank'>View Attachment</a>\n",
+                                        escape(href)));
                                 }
+                                writer.write("        </div>\n");
                             }
                             writer.write("      </div>\n");
                         }
@@ -254,11 +314,9 @@ public class HtmlReportGenerator {
                     }
                 } else {
                     // For passed and skipped tests, show minimal information
-                    String testKey = r.className + "." + r.testName;
-                    String simpleTestKey = r.testName;
-                    AllureReportReader.AllureTestResult allureResult = allureResults.get(testKey);
+                    AllureReportReader.AllureTestResult allureResult = allureIndex.find(r.className, r.testName);
                     if (allureResult == null) {
-                        allureResult = allureResults.get(simpleTestKey);
+                        testsWithoutAllure.add(r.className + "." + r.testName);
                     }
                     
                     if (allureResult != null) {
@@ -277,9 +335,11 @@ public class HtmlReportGenerator {
             }
             
             writer.write("</table>\n");
+            allureIndex.logMismatches(logger, testsWithoutAllure);
             writer.write("</div>\n"); // card end
             writer.write("</div>\n"); // container end
             writer.write("</body>\n");
+            writer.write(String.format("<script src='%s'></script>\n", ReportSearchIndex.FILE_NAME));
             writer.write("<script>\n" +
                 "function toggleStack(btn) {\n" +
                 "  var pre = btn.nextElementSibling;\n" +
@@ -291,16 +351,32 @@ public class HtmlReportGenerator {
                 "    btn.textContent = 'Show Stack Trace';\n" +
                 "  }\n" +
                 "}\n\n" +
-                "function filterTests(status) {\n" +
-                "  const rows = document.querySelectorAll('table tr:not(:first-child)');\n" +
-                "  rows.forEach(row => {\n" +
+                "var statusFilter = 'all';\n" +
+                "var searchMatches = null;\n" +
+                "var searchTimer = null;\n\n" +
+                "function applyFilters() {\n" +
+                "  let shown = 0;\n" +
+                "  document.querySelectorAll('tr[data-row]').forEach(row => {\n" +
                 "    const statusCell = row.querySelector('.status');\n" +
-                "    if (status === 'all' || (statusCell && statusCell.textContent === status)) {\n" +
-                "      row.style.display = '';\n" +
-                "    } else {\n" +
-                "      row.style.display = 'none';\n" +
-                "    }\n" +
+                "    const statusOk = statusFilter === 'all' || (statusCell && statusCell.textContent === statusFilter);\n" +
+                "    const searchOk = searchMatches === null || searchMatches.has(+row.dataset.row);\n" +
+                "    row.style.display = statusOk && searchOk ? '' : 'none';\n" +
+                "    if (statusOk && searchOk) shown++;\n" +
                 "  });\n" +
+                "  document.getElementById('search-count').textContent = searchMatches === null ? '' : shown + ' matching tests';\n" +
+                "}\n\n" +
+                ReportSearchIndex.QUERY_SCRIPT +
+                "function searchTests(query) {\n" +
+                "  searchMatches = queryIndex(window.UNIFIEDTEST_SEARCH_INDEX, query);\n" +
+                "  applyFilters();\n" +
+                "}\n\n" +
+                "function onSearchInput(query) {\n" +
+                "  clearTimeout(searchTimer);\n" +
+                "  searchTimer = setTimeout(() => searchTests(query), 150);\n" +
+                "}\n\n" +
+                "function filterTests(status) {\n" +
+                "  statusFilter = status;\n" +
+                "  applyFilters();\n" +
                 "  // Update active state on summary stats\n" +
                 "  document.querySelectorAll('.stat').forEach(stat => {\n" +
                 "    if ((status === 'all' && stat.classList.contains('total')) ||\n" +
@@ -313,9 +389,81 @@ public class HtmlReportGenerator {
                 "}\n" +
                 "</script>\n");
             writer.write("</html>");
+
+            // Written next to the report; the embedded search box loads it through a script include
+            searchIndex.writeTo(reportFile.getParentFile());
         } catch (IOException e) {
-            project.getLogger().error("Failed to write UnifiedTest HTML report", e);
+            logger.error("Failed to write UnifiedTest HTML report", e);
+        }
+    }
+
+    /**
+     * Writes a step tree. Steps with details are collapsible {@code <details>} elements, so nested steps only
+     * take layout space once opened; the step with the largest self time is highlighted.
+     */
+    private static void writeSteps(Writer writer, List<AllureReportReader.AllureTestResult.Step> steps, long slowestSelfTime,
+                                   Logger logger, AttachmentStore store, AllureReportReader allureReader) throws IOException {
+        for (AllureReportReader.AllureTestResult.Step step : steps) {
+            String status = step.getStatus() != null ? step.getStatus().toLowerCase() : "unknown";
+            String slowest = slowestSelfTime > 0 && step.getSelfTime() == slowestSelfTime ? " slowest" : "";
+            boolean hasDetails = !step.getSteps().isEmpty() || !step.getAttachments().isEmpty() || !step.getParameters().isEmpty();
+            writer.write(hasDetails ? "<details class='allure-step-node'>\n<summary" : "<div");
+            writer.write(String.format(" class='allure-step %s%s'>", status, slowest));
+            writer.write(String.format("<span class='step-status'>%s</span><span class='step-name'>%s</span>",
+                escape(step.getStatus()), escape(step.getName())));
+            writer.write(String.format("<span class='step-time'>%s &middot; self %s</span>",
+                formatDuration(step.getDuration()), formatDuration(step.getSelfTime())));
+            writer.write(hasDetails ? "</summary>\n<div class='step-children'>\n" : "</div>\n");
+            if (!hasDetails) {
+                continue;
+            }
+            for (AllureReportReader.AllureTestResult.Parameter parameter : step.getParameters()) {
+                writer.write(String.format("<div class='step-parameter'>%s = %s</div>\n",
+                    escape(parameter.getName()), escape(parameter.getValue())));
+            }
+            for (AllureReportReader.AllureTestResult.Attachment attachment : step.getAttachments()) {
+                String href = storeAttachment(logger, store, allureReader, attachment);
+                if (href != null) {
+                    writer.write(String.format("<div class='step-attachment'><a href='%s' target='_blank'>%s</a></div>\n",
+                        escape(href), escape(attachment.getName())));
+                }
+            }
+            writeSteps(writer, step.getSteps(), slowestSelfTime, logger, store, allureReader);
+            writer.write("</div>\n</details>\n");
+        }
+    }
+
+    private static long maxSelfTime(List<AllureReportReader.AllureTestResult.Step> steps) {
+        long max = 0;
+        for (AllureReportReader.AllureTestResult.Step step : steps) {
+            max = Math.max(max, Math.max(step.getSelfTime(), maxSelfTime(step.getSteps())));
+        }
+        return max;
+    }
+
+    /**
+     * Copies an Allure attachment into the report's attachment store.
+     * @return the link relative to index.html, or null if the attachment file is missing
+     */
+    private static String storeAttachment(Logger logger, AttachmentStore store, AllureReportReader allureReader,
+                                          AllureReportReader.AllureTestResult.Attachment attachment) {
+        File source = new File(allureReader.getAllureResultsDir(), attachment.getSource());
+        if (!source.isFile()) {
+            return null;
+        }
+        try {
+            return store.store(source);
+        } catch (IOException e) {
+            logger.warn("Failed to store attachment {}: {}", source, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
         }
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("'", "&#39;");
     }
 
     private static String formatDuration(long millis) {
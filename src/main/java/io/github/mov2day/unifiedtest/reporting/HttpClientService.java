@@ -0,0 +1,93 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import java.time.Duration;
+
+/**
+ * Build service owning the {@link SharedHttpClient} of a build. It is registered once for all projects, so a
+ * multi-module build opens one connection pool instead of one per project and system. The client is closed, and its
+ * metrics logged, when the build finishes.
+ */
+public abstract class HttpClientService implements BuildService<HttpClientService.Params>, AutoCloseable {
+    /** Name the service is registered under */
+    public static final String NAME = "unifiedTestHttpClient";
+
+    private static final Logger logger = Logging.getLogger(HttpClientService.class);
+
+    private SharedHttpClient client;
+    private int users;
+    private boolean closed;
+
+    /**
+     * Parameters of the shared client.
+     */
+    public interface Params extends BuildServiceParameters {
+        /**
+         * Number of threads handling asynchronous responses.
+         */
+        Property<Integer> getThreads();
+    }
+
+    /**
+     * Registers the service, or returns the one registered by another project.
+     * @param project the project applying the plugin
+     * @param threads the thread count, used if this project registers the service
+     * @return the service provider
+     */
+    public static Provider<HttpClientService> register(Project project, Provider<Integer> threads) {
+        return project.getGradle().getSharedServices().registerIfAbsent(NAME, HttpClientService.class,
+            spec -> spec.getParameters().getThreads().set(threads));
+    }
+
+    /**
+     * Gets the shared client, created on first use.
+     * @return the client
+     */
+    public synchronized SharedHttpClient getClient() {
+        if (client == null) {
+            client = new SharedHttpClient(getParameters().getThreads().getOrElse(SharedHttpClient.DEFAULT_THREADS),
+                Duration.ofSeconds(10));
+        }
+        return client;
+    }
+
+    /**
+     * Keeps the client open until {@link #release()}, for another build service that still pushes when the build
+     * finishes. Gradle closes services in no particular order.
+     */
+    public synchronized void retain() {
+        users++;
+    }
+
+    /**
+     * Ends a {@link #retain()}; the client is closed once the build finished and no service uses it any more.
+     */
+    public synchronized void release() {
+        users--;
+        if (closed && users <= 0) {
+            shutdown();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (users <= 0) {
+            shutdown();
+        }
+    }
+
+    private void shutdown() {
+        if (client != null) {
+            logger.info("UnifiedTest HTTP: {}", client.getMetrics());
+            client.close();
+            client = null;
+        }
+    }
+}
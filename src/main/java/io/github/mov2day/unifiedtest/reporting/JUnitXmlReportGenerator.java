@@ -0,0 +1,216 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResult;
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResultCollector;
+import org.gradle.api.logging.Logger;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Generates JUnit XML reports in the Surefire format from UnifiedTest results.
+ * The XML is streamed through StAX, so no document tree is built and escaping happens while writing.
+ */
+public class JUnitXmlReportGenerator {
+    /** Writes one TEST-&lt;class&gt;.xml file per test class */
+    public static final String MODE_PER_CLASS = "perClass";
+    /** Writes all test classes into a single TEST-results.xml file */
+    public static final String MODE_SINGLE = "single";
+
+    private static final String REPORT_DIR = "unifiedtest/reports/junit";
+    private static final String SINGLE_FILE_NAME = "TEST-results.xml";
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    /**
+     * Generates JUnit XML reports for the collected results.
+     * Each test task writes into its own directory, so tasks of the same build do not remove each other's reports.
+     * @param buildDir the project's build directory
+     * @param taskName the name of the test task the results come from
+     * @param logger the logger to report problems to
+     * @param collector the collector holding the results
+     * @param mode either {@link #MODE_PER_CLASS} or {@link #MODE_SINGLE}
+     */
+    public static void generate(File buildDir, String taskName, Logger logger, UnifiedTestResultCollector collector, String mode) {
+        File reportsDir = new File(new File(buildDir, REPORT_DIR), taskName);
+        reportsDir.mkdirs();
+        deleteStaleReports(reportsDir);
+
+        Map<String, List<UnifiedTestResult>> suites = groupByClass(collector.getResults());
+        try {
+            if (MODE_SINGLE.equalsIgnoreCase(mode)) {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(reportsDir, SINGLE_FILE_NAME)))) {
+                    XMLStreamWriter xml = OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+                    xml.writeStartDocument("UTF-8", "1.0");
+                    writeTestSuites(xml, suites);
+                    xml.writeEndDocument();
+                    xml.close();
+                }
+            } else {
+                for (Map.Entry<String, List<UnifiedTestResult>> suite : suites.entrySet()) {
+                    File reportFile = new File(reportsDir, "TEST-" + fileNameFor(suite.getKey()) + ".xml");
+                    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(reportFile))) {
+                        XMLStreamWriter xml = OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+                        xml.writeStartDocument("UTF-8", "1.0");
+                        writeTestSuite(xml, suite.getKey(), suite.getValue());
+                        xml.writeEndDocument();
+                        xml.close();
+                    }
+                }
+            }
+        } catch (IOException | XMLStreamException e) {
+            logger.error("Failed to write UnifiedTest JUnit XML report", e);
+        }
+    }
+
+    private static void writeTestSuites(XMLStreamWriter xml, Map<String, List<UnifiedTestResult>> suites) throws XMLStreamException {
+        int tests = 0, failures = 0, skipped = 0;
+        long duration = 0;
+        for (List<UnifiedTestResult> results : suites.values()) {
+            for (UnifiedTestResult r : results) {
+                tests++;
+                if ("FAIL".equals(r.status)) failures++;
+                if ("SKIP".equals(r.status)) skipped++;
+                duration += r.duration;
+            }
+        }
+
+        xml.writeStartElement("testsuites");
+        xml.writeAttribute("name", "UnifiedTest");
+        xml.writeAttribute("tests", String.valueOf(tests));
+        xml.writeAttribute("failures", String.valueOf(failures));
+        xml.writeAttribute("errors", "0");
+        xml.writeAttribute("skipped", String.valueOf(skipped));
+        xml.writeAttribute("time", formatSeconds(duration));
+        for (Map.Entry<String, List<UnifiedTestResult>> suite : suites.entrySet()) {
+            writeTestSuite(xml, suite.getKey(), suite.getValue());
+        }
+        xml.writeEndElement();
+    }
+
+    private static void writeTestSuite(XMLStreamWriter xml, String className, List<UnifiedTestResult> results) throws XMLStreamException {
+        int failures = 0, skipped = 0;
+        long duration = 0;
+        for (UnifiedTestResult r : results) {
+            if ("FAIL".equals(r.status)) failures++;
+            if ("SKIP".equals(r.status)) skipped++;
+            duration += r.duration;
+        }
+
+        xml.writeStartElement("testsuite");
+        xml.writeAttribute("name", clean(className));
+        xml.writeAttribute("tests", String.valueOf(results.size()));
+        xml.writeAttribute("failures", String.valueOf(failures));
+        xml.writeAttribute("errors", "0");
+        xml.writeAttribute("skipped", String.valueOf(skipped));
+        xml.writeAttribute("time", formatSeconds(duration));
+
+        for (UnifiedTestResult r : results) {
+            xml.writeStartElement("testcase");
+            xml.writeAttribute("name", clean(r.testName));
+            xml.writeAttribute("classname", clean(className));
+            xml.writeAttribute("time", formatSeconds(r.duration));
+            if ("FAIL".equals(r.status)) {
+                xml.writeStartElement("failure");
+                if (r.failureMessage != null) {
+                    xml.writeAttribute("message", clean(r.failureMessage));
+                }
+                String type = FailureClusters.exceptionType(r.stackTrace);
+                if (type != null) {
+                    xml.writeAttribute("type", clean(type));
+                }
+                if (r.stackTrace != null) {
+                    xml.writeCharacters(clean(r.stackTrace));
+                }
+                xml.writeEndElement();
+            } else if ("SKIP".equals(r.status)) {
+                xml.writeEmptyElement("skipped");
+                if (r.failureMessage != null) {
+                    xml.writeAttribute("message", clean(r.failureMessage));
+                }
+            }
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    private static Map<String, List<UnifiedTestResult>> groupByClass(List<UnifiedTestResult> results) {
+        Map<String, List<UnifiedTestResult>> suites = new LinkedHashMap<>();
+        for (UnifiedTestResult r : results) {
+            String className = r.className != null ? r.className : "unknown";
+            suites.computeIfAbsent(className, k -> new ArrayList<>()).add(r);
+        }
+        return suites;
+    }
+
+    private static void deleteStaleReports(File reportsDir) {
+        File[] stale = reportsDir.listFiles((dir, name) -> name.startsWith("TEST-") && name.endsWith(".xml"));
+        if (stale != null) {
+            for (File file : stale) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Drops characters that are not allowed in XML 1.0 (ANSI escapes, NUL and other control characters, and
+     * surrogates that are not part of a valid pair). Returns the input unchanged, without copying, when it is
+     * already valid.
+     */
+    static String clean(String value) {
+        if (value == null) {
+            return "";
+        }
+        int i = 0;
+        while (i < value.length()) {
+            int length = validCharLength(value, i);
+            if (length == 0) {
+                StringBuilder sb = new StringBuilder(value.length());
+                sb.append(value, 0, i);
+                int j = i + 1;
+                while (j < value.length()) {
+                    int valid = validCharLength(value, j);
+                    if (valid == 0) {
+                        j++;
+                    } else {
+                        sb.append(value, j, j + valid);
+                        j += valid;
+                    }
+                }
+                return sb.toString();
+            }
+            i += length;
+        }
+        return value;
+    }
+
+    /**
+     * Gets the number of chars of the valid XML character at the index: 2 for a surrogate pair, 1 for any other
+     * allowed character and 0 when the char has to be dropped.
+     */
+    private static int validCharLength(String value, int index) {
+        char c = value.charAt(index);
+        if (Character.isHighSurrogate(c)) {
+            return index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1)) ? 2 : 0;
+        }
+        return c == '\t' || c == '\n' || c == '\r' || (c >= 0x20 && c <= 0xD7FF) || (c >= 0xE000 && c <= 0xFFFD) ? 1 : 0;
+    }
+
+    private static String fileNameFor(String className) {
+        return className.replaceAll("[^A-Za-z0-9._$-]", "_");
+    }
+
+    private static String formatSeconds(long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+}
@@ -3,6 +3,7 @@ package io.github.mov2day.unifiedtest.reporting;
 import io.github.mov2day.unifiedtest.collector.UnifiedTestResult;
 import io.github.mov2day.unifiedtest.collector.UnifiedTestResultCollector;
 import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
 import org.gradle.api.tasks.testing.Test;
 import java.io.File;
 import java.io.FileWriter;
@@ -15,7 +16,17 @@ import java.util.List;
  */
 public class JsonReportGenerator {
     public static void generate(Project project, Test testTask, UnifiedTestResultCollector collector) {
-        File reportFile = new File(project.getBuildDir(), "unifiedtest/reports/results.json");
+        generate(project.getBuildDir(), project.getLogger(), collector);
+    }
+
+    /**
+     * Generates the JSON report from a build directory instead of the project.
+     * @param buildDir the project's build directory
+     * @param logger the logger to report problems to
+     * @param collector the results to report
+     */
+    public static void generate(File buildDir, Logger logger, UnifiedTestResultCollector collector) {
+        File reportFile = new File(buildDir, "unifiedtest/reports/results.json");
         reportFile.getParentFile().mkdirs();
         
         try (FileWriter writer = new FileWriter(reportFile)) {
@@ -23,10 +34,12 @@ public class JsonReportGenerator {
             List<UnifiedTestResult> results = collector.getResults();
             for (int i = 0; i < results.size(); i++) {
                 UnifiedTestResult r = results.get(i);
-                writer.write(String.format("  {\"class\":\"%s\", \"name\":\"%s\", \"status\":\"%s\"%s%s}%s\n",
+                writer.write(String.format("  {\"class\":\"%s\", \"name\":\"%s\", \"status\":\"%s\"%s%s%s}%s\n",
                     r.className,
                     r.testName,
                     r.status,
+                    "FAIL".equals(r.status) ? String.format(", \"signature\":\"%s\"",
+                        FailureClusters.signatureOf(r.failureMessage, r.stackTrace)) : "",
                     r.failureMessage != null ? String.format(", \"failureMessage\":\"%s\"", 
                         r.failureMessage.replace("\"", "\\\"").replace("\n", "\\n")) : "",
                     r.stackTrace != null ? String.format(", \"stackTrace\":\"%s\"", 
@@ -36,7 +49,7 @@ public class JsonReportGenerator {
             }
             writer.write("]");
         } catch (IOException e) {
-            project.getLogger().error("Failed to write UnifiedTest JSON report", e);
+            logger.error("Failed to write UnifiedTest JSON report", e);
         }
     }
 }
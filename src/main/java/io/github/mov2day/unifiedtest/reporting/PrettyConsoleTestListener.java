@@ -1,6 +1,7 @@
 package io.github.mov2day.unifiedtest.reporting;
 
 import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
 import org.gradle.api.tasks.testing.TestDescriptor;
 import org.gradle.api.tasks.testing.TestListener;
 import org.gradle.api.tasks.testing.TestResult;
@@ -18,7 +19,7 @@ import io.github.mov2day.unifiedtest.collector.UnifiedTestResult;
  * Supports different themes for console output formatting.
  */
 public class PrettyConsoleTestListener implements TestListener {
-    private final Project project;
+    private final Logger logger;
     private final Map<String, String> testStatus = new ConcurrentHashMap<>();
     private int total = 0, passed = 0, failed = 0, skipped = 0;
     private final UnifiedTestResultCollector collector;
@@ -43,7 +44,17 @@ public class PrettyConsoleTestListener implements TestListener {
      * @param collector the UnifiedTestResultCollector to add results to
      */
     public PrettyConsoleTestListener(Project project, String theme, UnifiedTestResultCollector collector) {
-        this.project = project;
+        this(project.getLogger(), theme, collector);
+    }
+
+    /**
+     * Creates a new PrettyConsoleTestListener that prints through the given logger.
+     * @param logger the logger to print to, typically the test task's
+     * @param theme the console output theme to use
+     * @param collector the UnifiedTestResultCollector to add results to
+     */
+    public PrettyConsoleTestListener(Logger logger, String theme, UnifiedTestResultCollector collector) {
+        this.logger = logger;
         this.collector = collector;
     }
 
@@ -65,7 +76,7 @@ public class PrettyConsoleTestListener implements TestListener {
     @Override
     public void beforeTest(TestDescriptor testDescriptor) {
         String display = formatTestName(testDescriptor);
-        project.getLogger().lifecycle(CYAN + RUNNING_SYMBOL + " [RUNNING] " + display + RESET);
+        logger.lifecycle(CYAN + RUNNING_SYMBOL + " [RUNNING] " + display + RESET);
     }
 
     @Override
@@ -113,20 +124,20 @@ public class PrettyConsoleTestListener implements TestListener {
         long durationMs = result.getEndTime() - result.getStartTime();
         String duration = String.format("(%.2fs)", durationMs / 1000.0);
         
-        project.getLogger().lifecycle(color + symbol + " " + display + " - " + BOLD + status + RESET + 
+        logger.lifecycle(color + symbol + " " + display + " - " + BOLD + status + RESET + 
             color + " " + duration + RESET);
 
         if (result.getResultType() == TestResult.ResultType.FAILURE && result.getException() != null) {
-            project.getLogger().error("\n" + RED + "Failure Details:" + RESET);
-            project.getLogger().error(RED + "Message: " + RESET + result.getException().getMessage());
-            project.getLogger().error(RED + "Stack Trace:" + RESET);
+            logger.error("\n" + RED + "Failure Details:" + RESET);
+            logger.error(RED + "Message: " + RESET + result.getException().getMessage());
+            logger.error(RED + "Stack Trace:" + RESET);
             StringWriter sw = new StringWriter();
             result.getException().printStackTrace(new PrintWriter(sw));
             String[] stackTraceLines = sw.toString().split("\\n");
             for (String line : stackTraceLines) {
-                project.getLogger().error("  " + line);
+                logger.error("  " + line);
             }
-            project.getLogger().lifecycle(""); // Empty line for better readability
+            logger.lifecycle(""); // Empty line for better readability
         }
 
         // Add result to collector
@@ -158,7 +169,7 @@ public class PrettyConsoleTestListener implements TestListener {
                 (passed * 100.0 / Math.max(1, total)), passed,
                 (failed * 100.0 / Math.max(1, total)), failed,
                 (skipped * 100.0 / Math.max(1, total)), skipped);
-            project.getLogger().lifecycle(summary);
+            logger.lifecycle(summary);
         }
     }
 
@@ -0,0 +1,409 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import com.google.gson.stream.JsonWriter;
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResult;
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResultCollector;
+import org.gradle.api.logging.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates a compressed, self-contained single-file HTML report.
+ * The result data is serialized as JSON, gzip-compressed and embedded as base64; the page inflates it
+ * with the browser's {@code DecompressionStream} and renders the rows client-side. Small Allure
+ * attachments are inlined as data URIs so the bundle still shows evidence once archived.
+ */
+public class ReportBundleGenerator {
+    /** Default upper bound for inlined attachments, in bytes */
+    public static final long DEFAULT_INLINE_ATTACHMENT_LIMIT = 256 * 1024;
+
+    private static final String BUNDLE_FILE = "unifiedtest/reports/bundle.html";
+
+    /**
+     * Generates the bundle report.
+     * @param buildDir the project's build directory
+     * @param logger the logger to report problems to
+     * @param collector the collector holding the results
+     * @param inlineAttachmentLimit attachments up to this many bytes are embedded in the bundle
+     */
+    public static void generate(File buildDir, Logger logger, UnifiedTestResultCollector collector, long inlineAttachmentLimit) {
+        File bundleFile = new File(buildDir, BUNDLE_FILE);
+        bundleFile.getParentFile().mkdirs();
+
+        List<UnifiedTestResult> results = collector.getResults();
+        AllureReportReader allureReader = new AllureReportReader(buildDir, logger);
+        AllureMatchIndex allureIndex = allureReader.hasAllureReports() ? allureReader.readMatchIndex() : new AllureMatchIndex();
+        File allureResultsDir = allureReader.getAllureResultsDir();
+        AttachmentStore attachmentStore = new AttachmentStore(bundleFile.getParentFile());
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(bundleFile.toPath()))) {
+            Writer page = new OutputStreamWriter(new NonClosingOutputStream(out), StandardCharsets.UTF_8);
+            page.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset='UTF-8'>\n");
+            page.write("<meta name='viewport' content='width=device-width, initial-scale=1.0'>\n");
+            page.write("<title>UnifiedTest Report</title>\n");
+            page.write(STYLE);
+            page.write("</head>\n<body>\n<div class='container' id='app'><h1>UnifiedTest Report</h1><p id='loading'>Loading report data...</p></div>\n");
+            page.write("<script type='application/octet-stream' id='report-data'>");
+            page.flush();
+
+            // JSON -> gzip -> base64 straight into the page, without materializing the payload
+            try (Writer json = new OutputStreamWriter(new GZIPOutputStream(
+                    Base64.getEncoder().wrap(new NonClosingOutputStream(out)), 64 * 1024), StandardCharsets.UTF_8)) {
+                writeData(new JsonWriter(json), results, allureIndex, allureResultsDir, attachmentStore, inlineAttachmentLimit);
+            }
+
+            page.write("</script>\n<script>\n");
+            page.write(ReportSearchIndex.QUERY_SCRIPT);
+            page.write(SCRIPT);
+            page.write("</script>\n</body>\n</html>");
+            page.flush();
+        } catch (IOException e) {
+            logger.error("Failed to write UnifiedTest report bundle", e);
+        }
+    }
+
+    private static void writeData(JsonWriter json, List<UnifiedTestResult> results,
+                                  AllureMatchIndex allureIndex,
+                                  File allureResultsDir, AttachmentStore attachmentStore,
+                                  long inlineAttachmentLimit) throws IOException {
+        List<FailureClusters.FailureCluster> clusters = FailureClusters.cluster(results);
+        ReportSearchIndex searchIndex = new ReportSearchIndex();
+
+        json.beginObject();
+        json.name("generated").value(java.time.LocalDateTime.now().format(
+            java.time.format.DateTimeFormatter.ofPattern("MMMM d, yyyy HH:mm:ss")));
+
+        json.name("clusters").beginArray();
+        for (FailureClusters.FailureCluster cluster : clusters) {
+            UnifiedTestResult first = cluster.getRepresentative();
+            json.beginObject();
+            json.name("id").value(cluster.getSignature());
+            json.name("type").value(cluster.getExceptionType());
+            json.name("count").value(cluster.getMembers().size());
+            json.name("m").value(first.failureMessage);
+            json.name("t").value(first.stackTrace);
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("tests").beginArray();
+        int rowId = 0;
+        for (UnifiedTestResult r : results) {
+            searchIndex.add(rowId++, r.className, r.testName, r.failureMessage);
+            json.beginObject();
+            json.name("c").value(r.className);
+            json.name("n").value(r.testName);
+            json.name("s").value(r.status);
+            json.name("d").value(r.duration);
+            if (r.failureMessage != null) {
+                json.name("m").value(r.failureMessage);
+            }
+            if ("FAIL".equals(r.status)) {
+                json.name("g").value(FailureClusters.signatureOf(r.failureMessage, r.stackTrace));
+            }
+            AllureReportReader.AllureTestResult allure = allureIndex.find(r.className, r.testName);
+            if (allure != null) {
+                writeAllure(json, allure, allureResultsDir, attachmentStore, inlineAttachmentLimit);
+            }
+            json.endObject();
+        }
+        json.endArray();
+
+        StringWriter index = new StringWriter();
+        searchIndex.writeJson(index);
+        json.name("search").jsonValue(index.toString());
+        json.endObject();
+        json.flush();
+    }
+
+    private static void writeAllure(JsonWriter json, AllureReportReader.AllureTestResult allure,
+                                    File allureResultsDir, AttachmentStore attachmentStore,
+                                    long inlineAttachmentLimit) throws IOException {
+        json.name("a").beginObject();
+        json.name("status").value(allure.getStatus());
+        json.name("duration").value(allure.getDuration());
+        json.name("steps");
+        writeSteps(json, allure.getSteps(), allureResultsDir, attachmentStore, inlineAttachmentLimit);
+        json.name("attachments");
+        writeAttachments(json, allure.getAttachments(), allureResultsDir, attachmentStore, inlineAttachmentLimit);
+        json.endObject();
+    }
+
+    private static void writeSteps(JsonWriter json, List<AllureReportReader.AllureTestResult.Step> steps,
+                                   File allureResultsDir, AttachmentStore attachmentStore,
+                                   long inlineAttachmentLimit) throws IOException {
+        json.beginArray();
+        for (AllureReportReader.AllureTestResult.Step step : steps) {
+            json.beginObject();
+            json.name("n").value(step.getName());
+            json.name("s").value(step.getStatus());
+            json.name("d").value(step.getDuration());
+            json.name("t").value(step.getSelfTime());
+            if (!step.getParameters().isEmpty()) {
+                json.name("p").beginArray();
+                for (AllureReportReader.AllureTestResult.Parameter parameter : step.getParameters()) {
+                    json.beginArray().value(parameter.getName()).value(parameter.getValue()).endArray();
+                }
+                json.endArray();
+            }
+            if (!step.getAttachments().isEmpty()) {
+                json.name("a");
+                writeAttachments(json, step.getAttachments(), allureResultsDir, attachmentStore, inlineAttachmentLimit);
+            }
+            if (!step.getSteps().isEmpty()) {
+                json.name("c");
+                writeSteps(json, step.getSteps(), allureResultsDir, attachmentStore, inlineAttachmentLimit);
+            }
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    private static void writeAttachments(JsonWriter json, List<AllureReportReader.AllureTestResult.Attachment> attachments,
+                                         File allureResultsDir, AttachmentStore attachmentStore,
+                                         long inlineAttachmentLimit) throws IOException {
+        json.beginArray();
+        for (AllureReportReader.AllureTestResult.Attachment attachment : attachments) {
+            json.beginObject();
+            json.name("name").value(attachment.getName());
+            json.name("type").value(attachment.getType());
+            File source = new File(allureResultsDir, attachment.getSource());
+            if (source.isFile() && source.length() <= inlineAttachmentLimit) {
+                json.name("data").value("data:" + mediaType(attachment.getType()) + ";base64," +
+                    Base64.getEncoder().encodeToString(Files.readAllBytes(source.toPath())));
+            } else if (source.isFile()) {
+                // Too large to inline: link to the attachment store next to the bundle
+                json.name("href").value(attachmentStore.store(source));
+                json.name("size").value(source.length());
+            } else {
+                json.name("size").value(-1);
+            }
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    /**
+     * Gets the media type for a data URI; Allure omits the type of some attachments.
+     */
+    private static String mediaType(String type) {
+        return type == null || type.isBlank() ? "application/octet-stream" : type;
+    }
+
+    /**
+     * Lets the compressed payload stream be closed (flushing gzip and base64 trailers) without closing the page.
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private static final String STYLE = "<style>\n" +
+        ":root { --primary: #1976d2; --success: #2e7d32; --error: #d32f2f; --warning: #ed6c02; }\n" +
+        "* { box-sizing: border-box; margin: 0; padding: 0; }\n" +
+        "body { font-family: system-ui, -apple-system, sans-serif; line-height: 1.5; color: #1f2937; background: #f5f5f5; }\n" +
+        ".container { max-width: 1200px; margin: 0 auto; padding: 2rem; }\n" +
+        "h1 { font-size: 2.25rem; font-weight: 400; color: var(--primary); margin-bottom: 1rem; }\n" +
+        "h2 { font-size: 1.5rem; font-weight: 400; color: #374151; margin: 2rem 0 1rem; }\n" +
+        ".card { background: white; border-radius: 0.75rem; box-shadow: 0 2px 4px rgba(0,0,0,0.05); margin-bottom: 1rem; padding: 1.25rem; }\n" +
+        ".summary { display: grid; grid-template-columns: repeat(auto-fit, minmax(160px, 1fr)); gap: 1rem; }\n" +
+        ".stat { padding: 1rem; border-radius: 0.75rem; text-align: center; cursor: pointer; background: #f8fafc; }\n" +
+        ".stat p { font-size: 2rem; font-weight: 300; }\n" +
+        ".cluster { border-left: 4px solid var(--error); }\n" +
+        ".muted { color: #6b7280; font-size: 0.875rem; }\n" +
+        ".step { margin-left: 1rem; font-size: 0.8rem; }\n" +
+        "table { width: 100%; border-collapse: collapse; background: white; }\n" +
+        "th, td { padding: 0.75rem; border-bottom: 1px solid #e5e7eb; font-size: 0.875rem; text-align: left; vertical-align: top; word-break: break-all; }\n" +
+        ".status { font-weight: 500; padding: 0.25rem 0.75rem; border-radius: 9999px; font-size: 0.75rem; }\n" +
+        ".status.PASS { background: #f0fdf4; color: var(--success); }\n" +
+        ".status.FAIL { background: #fef2f2; color: var(--error); }\n" +
+        ".status.SKIP { background: #fff7ed; color: var(--warning); }\n" +
+        "pre { background: #f8fafc; border: 1px solid #e5e7eb; padding: 1rem; margin-top: 0.5rem; max-height: 300px; overflow: auto; font-size: 0.8rem; }\n" +
+        ".search-box { width: 100%; padding: 0.75rem 1rem; border: 1px solid #e5e7eb; border-radius: 0.5rem; margin-bottom: 0.5rem; }\n" +
+        ".attachment img { max-width: 240px; max-height: 160px; display: block; margin-top: 0.25rem; }\n" +
+        "button { margin-top: 0.75rem; padding: 0.5rem 1rem; cursor: pointer; background: white; border: 1px solid #e5e7eb; color: var(--primary); border-radius: 0.5rem; }\n" +
+        "</style>\n";
+
+    private static final String SCRIPT =
+        "const PAGE_SIZE = 500;\n" +
+        "let data = null, statusFilter = 'all', searchMatches = null, visible = PAGE_SIZE, searchTimer = null;\n\n" +
+        "function el(tag, cls, text) {\n" +
+        "  const e = document.createElement(tag);\n" +
+        "  if (cls) e.className = cls;\n" +
+        "  if (text !== undefined && text !== null) e.textContent = text;\n" +
+        "  return e;\n" +
+        "}\n\n" +
+        "function formatDuration(ms) {\n" +
+        "  if (ms < 1000) return ms + 'ms';\n" +
+        "  if (ms < 60000) return (ms / 1000).toFixed(2) + 's';\n" +
+        "  return Math.floor(ms / 60000) + 'm ' + ((ms % 60000) / 1000).toFixed(2) + 's';\n" +
+        "}\n\n" +
+        "async function loadData() {\n" +
+        "  const b64 = document.getElementById('report-data').textContent.trim();\n" +
+        "  const bytes = Uint8Array.from(atob(b64), c => c.charCodeAt(0));\n" +
+        "  const stream = new Blob([bytes]).stream().pipeThrough(new DecompressionStream('gzip'));\n" +
+        "  return JSON.parse(await new Response(stream).text());\n" +
+        "}\n\n" +
+        "function renderSummary(app) {\n" +
+        "  const card = el('div', 'card');\n" +
+        "  const summary = el('div', 'summary');\n" +
+        "  const counts = { all: data.tests.length, PASS: 0, FAIL: 0, SKIP: 0 };\n" +
+        "  data.tests.forEach(t => { if (counts[t.s] !== undefined) counts[t.s]++; });\n" +
+        "  [['all', 'Total Tests'], ['PASS', 'Passed'], ['FAIL', 'Failed'], ['SKIP', 'Skipped']].forEach(([key, label]) => {\n" +
+        "    const stat = el('div', 'stat');\n" +
+        "    stat.appendChild(el('h3', null, label));\n" +
+        "    stat.appendChild(el('p', null, counts[key]));\n" +
+        "    stat.onclick = () => { statusFilter = key; visible = PAGE_SIZE; renderRows(); };\n" +
+        "    summary.appendChild(stat);\n" +
+        "  });\n" +
+        "  card.appendChild(summary);\n" +
+        "  app.appendChild(card);\n" +
+        "}\n\n" +
+        "function renderClusters(app) {\n" +
+        "  if (data.clusters.length === 0) return;\n" +
+        "  app.appendChild(el('h2', null, 'Failure Clusters'));\n" +
+        "  data.clusters.forEach(c => {\n" +
+        "    const card = el('div', 'card cluster');\n" +
+        "    card.id = 'cluster-' + c.id;\n" +
+        "    card.appendChild(el('strong', null, c.type || 'Unknown failure'));\n" +
+        "    card.appendChild(el('span', 'muted', ' ' + c.count + ' failed tests, signature ' + c.id));\n" +
+        "    if (c.m) card.appendChild(el('p', null, c.m));\n" +
+        "    if (c.t) {\n" +
+        "      const details = el('details');\n" +
+        "      details.appendChild(el('summary', 'muted', 'Stack trace'));\n" +
+        "      details.appendChild(el('pre', null, c.t));\n" +
+        "      card.appendChild(details);\n" +
+        "    }\n" +
+        "    app.appendChild(card);\n" +
+        "  });\n" +
+        "}\n\n" +
+        "function renderAttachments(parent, attachments) {\n" +
+        "  (attachments || []).forEach(a => {\n" +
+        "    const box = el('div', 'attachment', a.name);\n" +
+        "    if (a.data && a.type && a.type.startsWith('image/')) {\n" +
+        "      const img = el('img');\n" +
+        "      img.src = a.data;\n" +
+        "      img.alt = a.name;\n" +
+        "      box.appendChild(img);\n" +
+        "    } else {\n" +
+        "      const link = el('a', null, a.data || a.href ? ' (open)' : ' (missing)');\n" +
+        "      if (a.data || a.href) link.href = a.data || a.href;\n" +
+        "      link.target = '_blank';\n" +
+        "      box.appendChild(link);\n" +
+        "    }\n" +
+        "    parent.appendChild(box);\n" +
+        "  });\n" +
+        "}\n\n" +
+        "// Nested steps are only turned into DOM nodes when their parent is opened\n" +
+        "function renderSteps(parent, steps) {\n" +
+        "  (steps || []).forEach(s => {\n" +
+        "    const label = (s.s || 'unknown') + ' - ' + s.n + ' (' + formatDuration(s.d) + ', self ' + formatDuration(s.t) + ')';\n" +
+        "    if (!s.c && !s.a && !s.p) { parent.appendChild(el('div', 'step', label)); return; }\n" +
+        "    const node = el('details', 'step');\n" +
+        "    node.appendChild(el('summary', null, label));\n" +
+        "    node.addEventListener('toggle', () => {\n" +
+        "      if (!node.open || node.dataset.rendered) return;\n" +
+        "      node.dataset.rendered = '1';\n" +
+        "      (s.p || []).forEach(p => node.appendChild(el('div', 'muted', p[0] + ' = ' + p[1])));\n" +
+        "      renderAttachments(node, s.a);\n" +
+        "      renderSteps(node, s.c);\n" +
+        "    });\n" +
+        "    parent.appendChild(node);\n" +
+        "  });\n" +
+        "}\n\n" +
+        "function renderDetails(cell, t) {\n" +
+        "  if (t.m) cell.appendChild(el('div', null, t.m));\n" +
+        "  if (t.g) {\n" +
+        "    const link = el('a', 'muted', 'signature ' + t.g);\n" +
+        "    link.href = '#cluster-' + t.g;\n" +
+        "    cell.appendChild(link);\n" +
+        "  }\n" +
+        "  if (!t.a) return;\n" +
+        "  const allure = el('details');\n" +
+        "  allure.appendChild(el('summary', 'muted', t.a.steps.length + ' steps, ' + t.a.attachments.length + ' attachments'));\n" +
+        "  renderSteps(allure, t.a.steps);\n" +
+        "  renderAttachments(allure, t.a.attachments);\n" +
+        "  cell.appendChild(allure);\n" +
+        "}\n\n" +
+        "function renderRows() {\n" +
+        "  const body = document.getElementById('rows');\n" +
+        "  body.textContent = '';\n" +
+        "  let shown = 0, matched = 0;\n" +
+        "  for (let i = 0; i < data.tests.length; i++) {\n" +
+        "    const t = data.tests[i];\n" +
+        "    if (statusFilter !== 'all' && t.s !== statusFilter) continue;\n" +
+        "    if (searchMatches !== null && !searchMatches.has(i)) continue;\n" +
+        "    matched++;\n" +
+        "    if (shown >= visible) continue;\n" +
+        "    shown++;\n" +
+        "    const row = el('tr');\n" +
+        "    row.appendChild(el('td', null, t.c));\n" +
+        "    row.appendChild(el('td', null, t.n));\n" +
+        "    const status = el('td');\n" +
+        "    status.appendChild(el('span', 'status ' + t.s, t.s));\n" +
+        "    row.appendChild(status);\n" +
+        "    row.appendChild(el('td', null, formatDuration(t.d)));\n" +
+        "    const details = el('td');\n" +
+        "    renderDetails(details, t);\n" +
+        "    row.appendChild(details);\n" +
+        "    body.appendChild(row);\n" +
+        "  }\n" +
+        "  document.getElementById('more').style.display = matched > shown ? '' : 'none';\n" +
+        "  document.getElementById('count').textContent = 'Showing ' + shown + ' of ' + matched + ' tests';\n" +
+        "}\n\n" +
+        "loadData().then(d => {\n" +
+        "  data = d;\n" +
+        "  const app = document.getElementById('app');\n" +
+        "  document.getElementById('loading').textContent = 'Generated on ' + data.generated;\n" +
+        "  renderSummary(app);\n" +
+        "  renderClusters(app);\n" +
+        "  const card = el('div', 'card');\n" +
+        "  card.appendChild(el('h2', null, 'Test Details'));\n" +
+        "  const search = el('input', 'search-box');\n" +
+        "  search.type = 'search';\n" +
+        "  search.placeholder = 'Search by class, test or failure message';\n" +
+        "  search.oninput = () => {\n" +
+        "    clearTimeout(searchTimer);\n" +
+        "    searchTimer = setTimeout(() => { searchMatches = queryIndex(data.search, search.value); visible = PAGE_SIZE; renderRows(); }, 150);\n" +
+        "  };\n" +
+        "  card.appendChild(search);\n" +
+        "  card.appendChild(el('div', 'muted')).id = 'count';\n" +
+        "  const table = el('table');\n" +
+        "  const head = el('tr');\n" +
+        "  ['Class', 'Test', 'Status', 'Duration', 'Details'].forEach(h => head.appendChild(el('th', null, h)));\n" +
+        "  table.appendChild(head);\n" +
+        "  table.appendChild(el('tbody')).id = 'rows';\n" +
+        "  card.appendChild(table);\n" +
+        "  const more = el('button', null, 'Show more');\n" +
+        "  more.id = 'more';\n" +
+        "  more.onclick = () => { visible += PAGE_SIZE; renderRows(); };\n" +
+        "  card.appendChild(more);\n" +
+        "  app.appendChild(card);\n" +
+        "  renderRows();\n" +
+        "}).catch(e => {\n" +
+        "  document.getElementById('loading').textContent = 'Failed to load report data: ' + e;\n" +
+        "});\n";
+}
@@ -0,0 +1,234 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over the rows of the HTML report.
+ * Class names, method names and failure messages are tokenized into terms, and each term maps to the
+ * sorted list of row ids containing it. Posting lists are delta-encoded as varints, so the embedded
+ * search box can answer prefix and substring queries by scanning terms instead of table rows.
+ */
+public class ReportSearchIndex {
+    /** Name of the index file written next to index.html */
+    public static final String FILE_NAME = "search-index.js";
+    /** Upper bound of message tokens indexed per row, keeps huge assertion dumps from bloating the index */
+    static final int MAX_MESSAGE_TOKENS = 64;
+
+    /**
+     * Browser-side query functions shared by the reports that embed the index.
+     * {@code queryIndex(index, query)} returns the set of matching row ids, or null when the query is empty.
+     */
+    public static final String QUERY_SCRIPT =
+        "function decodePostings(encoded) {\n" +
+        "  const bin = atob(encoded);\n" +
+        "  const rows = [];\n" +
+        "  let value = 0, shift = 0, previous = 0;\n" +
+        "  for (let i = 0; i < bin.length; i++) {\n" +
+        "    const b = bin.charCodeAt(i);\n" +
+        "    value |= (b & 0x7f) << shift;\n" +
+        "    if (b & 0x80) { shift += 7; } else { previous += value; rows.push(previous); value = 0; shift = 0; }\n" +
+        "  }\n" +
+        "  return rows;\n" +
+        "}\n\n" +
+        "function matchingRows(index, word) {\n" +
+        "  const rows = new Set();\n" +
+        "  const terms = index.terms;\n" +
+        "  if (word.length < 3) {\n" +
+        "    // Short words: prefix match via binary search over the sorted terms\n" +
+        "    let lo = 0, hi = terms.length;\n" +
+        "    while (lo < hi) { const mid = (lo + hi) >> 1; if (terms[mid] < word) lo = mid + 1; else hi = mid; }\n" +
+        "    for (let i = lo; i < terms.length && terms[i].startsWith(word); i++) {\n" +
+        "      decodePostings(index.postings[i]).forEach(r => rows.add(r));\n" +
+        "    }\n" +
+        "  } else {\n" +
+        "    for (let i = 0; i < terms.length; i++) {\n" +
+        "      if (terms[i].indexOf(word) !== -1) decodePostings(index.postings[i]).forEach(r => rows.add(r));\n" +
+        "    }\n" +
+        "  }\n" +
+        "  return rows;\n" +
+        "}\n\n" +
+        "function queryIndex(index, query) {\n" +
+        "  const words = query.toLowerCase().split(/[^\\p{L}\\p{N}]+/u).filter(w => w.length > 0);\n" +
+        "  if (!index || words.length === 0) return null;\n" +
+        "  let result = null;\n" +
+        "  for (const word of words) {\n" +
+        "    const rows = matchingRows(index, word);\n" +
+        "    result = result === null ? rows : new Set([...result].filter(r => rows.has(r)));\n" +
+        "  }\n" +
+        "  return result;\n" +
+        "}\n\n";
+
+    private final Map<String, Postings> terms = new TreeMap<>();
+    private int documents;
+
+    /**
+     * Adds a report row to the index. Rows must be added in increasing id order.
+     * @param rowId the row id as rendered in the report
+     * @param className the test class name
+     * @param testName the test method name
+     * @param failureMessage the failure message, may be null
+     */
+    public void add(int rowId, String className, String testName, String failureMessage) {
+        documents = Math.max(documents, rowId + 1);
+        tokenize(className, rowId, Integer.MAX_VALUE);
+        tokenize(testName, rowId, Integer.MAX_VALUE);
+        tokenize(failureMessage, rowId, MAX_MESSAGE_TOKENS);
+    }
+
+    /**
+     * Gets the number of distinct terms in the index.
+     * @return term count
+     */
+    public int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * Looks up the row ids of an exact term.
+     * @param term the lowercase term
+     * @return row ids in ascending order, empty if the term is unknown
+     */
+    public int[] lookup(String term) {
+        Postings postings = terms.get(term);
+        return postings == null ? new int[0] : Arrays.copyOf(postings.rows, postings.size);
+    }
+
+    /**
+     * Writes the index as a script that assigns {@code window.UNIFIEDTEST_SEARCH_INDEX}.
+     * A script include works for reports opened from disk, where fetching a JSON file is blocked.
+     * @param reportDir the directory holding index.html
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(File reportDir) throws IOException {
+        File indexFile = new File(reportDir, FILE_NAME);
+        try (Writer writer = Files.newBufferedWriter(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            writeScript(writer);
+        }
+    }
+
+    /**
+     * Writes the index script to the given writer.
+     * @param writer target writer
+     * @throws IOException if writing fails
+     */
+    public void writeScript(Writer writer) throws IOException {
+        writer.write("window.UNIFIEDTEST_SEARCH_INDEX=");
+        writeJson(writer);
+        writer.write(";\n");
+    }
+
+    /**
+     * Writes the index as a JSON object with sorted {@code terms} and matching {@code postings}.
+     * @param writer target writer
+     * @throws IOException if writing fails
+     */
+    public void writeJson(Writer writer) throws IOException {
+        writer.write("{\"version\":1,\"docs\":");
+        writer.write(String.valueOf(documents));
+        writer.write(",\"terms\":[");
+        boolean first = true;
+        for (String term : terms.keySet()) {
+            writer.write(first ? "\"" : ",\"");
+            writer.write(term);
+            writer.write('"');
+            first = false;
+        }
+        writer.write("],\"postings\":[");
+        first = true;
+        for (Postings postings : terms.values()) {
+            writer.write(first ? "\"" : ",\"");
+            writer.write(postings.encode());
+            writer.write('"');
+            first = false;
+        }
+        writer.write("]}");
+    }
+
+    private void tokenize(String text, int rowId, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        int tokens = 0;
+        int start = -1;
+        for (int i = 0; i <= text.length() && tokens < maxTokens; i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens += addWord(text.substring(start, i), rowId);
+                start = -1;
+            }
+        }
+    }
+
+    private int addWord(String word, int rowId) {
+        int added = addTerm(word.toLowerCase(Locale.ROOT), rowId);
+        // Split camelCase so "CalculatorTest" is also found as "calculator" and "test"
+        int partStart = 0;
+        for (int i = 1; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (Character.isUpperCase(c) && !Character.isUpperCase(word.charAt(i - 1))) {
+                added += addTerm(word.substring(partStart, i).toLowerCase(Locale.ROOT), rowId);
+                partStart = i;
+            }
+        }
+        if (partStart > 0) {
+            added += addTerm(word.substring(partStart).toLowerCase(Locale.ROOT), rowId);
+        }
+        return added;
+    }
+
+    private int addTerm(String term, int rowId) {
+        if (term.length() < 2) {
+            return 0;
+        }
+        terms.computeIfAbsent(term, k -> new Postings()).add(rowId);
+        return 1;
+    }
+
+    /**
+     * Growable posting list of ascending row ids.
+     */
+    private static final class Postings {
+        private int[] rows = new int[4];
+        private int size;
+
+        void add(int rowId) {
+            if (size > 0 && rows[size - 1] == rowId) {
+                return;
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = rowId;
+        }
+
+        /**
+         * Encodes the gaps between consecutive row ids as unsigned LEB128 varints, then base64.
+         */
+        String encode() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(size + 4);
+            int previous = 0;
+            for (int i = 0; i < size; i++) {
+                int gap = rows[i] - previous;
+                previous = rows[i];
+                while ((gap & ~0x7F) != 0) {
+                    out.write((gap & 0x7F) | 0x80);
+                    gap >>>= 7;
+                }
+                out.write(gap);
+            }
+            return Base64.getEncoder().withoutPadding().encodeToString(out.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP client shared by everything that talks to remote services: test management systems and exporters.
+ * One client keeps one connection pool, so connections are kept alive and reused across projects and systems, and
+ * HTTPS servers that support HTTP/2 multiplex all requests over a single connection per host. Asynchronous
+ * responses are handled on a bounded daemon pool. Every request is counted in {@link Metrics}.
+ * Within a build the instance comes from {@link HttpClientService}; {@link #getDefault()} covers code running
+ * outside of Gradle.
+ */
+public class SharedHttpClient implements Closeable {
+    /** Default number of threads handling asynchronous responses */
+    public static final int DEFAULT_THREADS = 4;
+
+    private static SharedHttpClient defaultClient;
+
+    private final HttpClient client;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong http2Responses = new AtomicLong();
+    private final AtomicLong latencyNanos = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Set<String> hosts = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param threads the number of threads handling asynchronous responses
+     * @param connectTimeout the timeout for opening a connection
+     */
+    public SharedHttpClient(int threads, Duration connectTimeout) {
+        AtomicInteger threadCount = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "unifiedtest-http-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(connectTimeout)
+            .executor(executor)
+            .build();
+    }
+
+    /**
+     * Gets the client shared by code that runs without the build service, created on first use.
+     * @return the process-wide client
+     */
+    public static synchronized SharedHttpClient getDefault() {
+        if (defaultClient == null) {
+            defaultClient = new SharedHttpClient(DEFAULT_THREADS, Duration.ofSeconds(10));
+        }
+        return defaultClient;
+    }
+
+    /**
+     * Gets the underlying client, for requests that need other body handlers. Such requests are not counted.
+     * @return the client
+     */
+    public HttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Sends a request and reads the response body as a string.
+     * @param request the request
+     * @return the response
+     * @throws IOException if sending or receiving fails
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        long start = begin(request);
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            end(start, response, null);
+            return response;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            end(start, null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a request without blocking and reads the response body as a string.
+     * @param request the request
+     * @return the response, completed on the shared pool
+     */
+    public CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request) {
+        long start = begin(request);
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .whenComplete((response, error) -> end(start, response, error));
+    }
+
+    /**
+     * Gets the request counts so far.
+     * @return a snapshot of the metrics
+     */
+    public Metrics getMetrics() {
+        return new Metrics(requests.get(), failures.get(), http2Responses.get(), hosts.size(), maxInFlight.get(),
+            latencyNanos.get());
+    }
+
+    /**
+     * Stops the response threads once running requests are done. The process-wide default client is never closed.
+     */
+    @Override
+    public void close() {
+        if (this != defaultClient) {
+            executor.shutdown();
+        }
+    }
+
+    private long begin(HttpRequest request) {
+        requests.incrementAndGet();
+        hosts.add(request.uri().getScheme() + "://" + request.uri().getAuthority());
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return System.nanoTime();
+    }
+
+    private void end(long start, HttpResponse<?> response, Throwable error) {
+        inFlight.decrementAndGet();
+        latencyNanos.addAndGet(System.nanoTime() - start);
+        if (error != null) {
+            failures.incrementAndGet();
+        } else if (response.version() == HttpClient.Version.HTTP_2) {
+            http2Responses.incrementAndGet();
+        }
+    }
+
+    /**
+     * Request counts of a {@link SharedHttpClient}.
+     */
+    public static class Metrics {
+        private final long requests;
+        private final long failures;
+        private final long http2Responses;
+        private final int hosts;
+        private final int maxInFlight;
+        private final long latencyNanos;
+
+        Metrics(long requests, long failures, long http2Responses, int hosts, int maxInFlight, long latencyNanos) {
+            this.requests = requests;
+            this.failures = failures;
+            this.http2Responses = http2Responses;
+            this.hosts = hosts;
+            this.maxInFlight = maxInFlight;
+            this.latencyNanos = latencyNanos;
+        }
+
+        /** Gets the number of requests sent. */
+        public long getRequests() { return requests; }
+
+        /** Gets the number of requests that failed without a response. */
+        public long getFailures() { return failures; }
+
+        /** Gets the number of responses received over HTTP/2. */
+        public long getHttp2Responses() { return http2Responses; }
+
+        /** Gets the number of distinct hosts, each served by its own connection pool. */
+        public int getHosts() { return hosts; }
+
+        /** Gets the highest number of requests in flight at once. */
+        public int getMaxInFlight() { return maxInFlight; }
+
+        /** Gets the mean time from sending a request to receiving its response. */
+        public Duration getAverageLatency() {
+            return Duration.ofNanos(requests == 0 ? 0 : latencyNanos / requests);
+        }
+
+        @Override
+        public String toString() {
+            return requests + " requests to " + hosts + " hosts (" + http2Responses + " over HTTP/2, " + failures
+                + " failed, up to " + maxInFlight + " in flight, " + getAverageLatency().toMillis() + " ms average)";
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package io.github.mov2day.unifiedtest.reporting;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -140,15 +145,39 @@ public class UnifiedTestResult {
         }
     }
 
+    /**
+     * An attachment backed by a file. Only the path is held; content is read when it is needed.
+     */
     public static class Attachment {
         private final String name;
         private final String type;
-        private final byte[] content;
+        private final Path path;
 
-        public Attachment(String name, String type, byte[] content) {
+        public Attachment(String name, String type, Path path) {
             this.name = name;
             this.type = type;
-            this.content = content;
+            this.path = path;
+        }
+
+        /**
+         * Creates an attachment from content held in memory, which is written to the given store.
+         * @param name the attachment name
+         * @param type the media type
+         * @param content the attachment content
+         * @param store the store of the report directory the attachment belongs to
+         */
+        public Attachment(String name, String type, byte[] content, AttachmentStore store) {
+            this(name, type, spill(name, content, store));
+        }
+
+        /**
+         * Creates an attachment from content held in memory, which is written to a temporary file of its own.
+         * @deprecated use {@link #Attachment(String, String, byte[], AttachmentStore)} to write the content into the
+         * build's report directory, or {@link #Attachment(String, String, Path)} to stream it from disk
+         */
+        @Deprecated
+        public Attachment(String name, String type, byte[] content) {
+            this(name, type, spill(name, content));
         }
 
         public String getName() {
@@ -159,8 +188,54 @@ public class UnifiedTestResult {
             return type;
         }
 
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() throws IOException {
+            return Files.size(path);
+        }
+
+        /**
+         * Opens the attachment content for streaming, e.g. into an upload request.
+         * @return a new input stream over the file
+         * @throws IOException if the file cannot be opened
+         */
+        public InputStream openStream() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        /**
+         * Reads the whole attachment content.
+         * @return the content
+         * @deprecated use {@link #openStream()} so that the content is not loaded onto the heap
+         */
+        @Deprecated
         public byte[] getContent() {
-            return content;
+            try (InputStream in = openStream()) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read attachment " + name, e);
+            }
+        }
+
+        private static Path spill(String name, byte[] content, AttachmentStore store) {
+            try {
+                return store.resolve(store.store(content, name));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not store attachment " + name, e);
+            }
+        }
+
+        private static Path spill(String name, byte[] content) {
+            try {
+                Path file = Files.createTempFile("unifiedtest-attachment", null);
+                file.toFile().deleteOnExit();
+                Files.write(file, content);
+                return file;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not store attachment " + name, e);
+            }
         }
     }
-} 
\ No newline at end of file
+}
@@ -1,26 +1,116 @@
 package io.github.mov2day.unifiedtest.reporting.testmanagement;
 
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension.SystemConfig;
+import io.github.mov2day.unifiedtest.reporting.SharedHttpClient;
 import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.ArrayList;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 
 /**
  * Abstract base implementation of TestManagementSystem.
  * Provides common functionality and helper methods for test management system implementations.
+ * <p>
+ * Queued results are pushed in micro-batches by a background thread while tests are still running, once a batch
+ * reaches {@code flushBatchSize} results or its oldest result has waited {@code flushLingerSeconds}.
+ * {@link #pushQueuedResults()} pushes whatever is queued at the end of a test task. All batches go to the same test
+ * run until {@link #flushResults()} pushes the last partial batch and completes the run.
+ * <p>
+ * Queued results are also written to a {@link PushOutbox} and acknowledged there once pushed, so results whose push
+ * failed, or whose build died, can be sent later with {@link #pushPending()}.
+ * <p>
+ * Failures are retried where they happen: {@link #send} retries a single request on throttling, gateway errors and
+ * connection failures, with exponential backoff and full jitter. Implementations report each delivered chunk through
+ * {@link #markDelivered}, so when a batch still fails, its next attempt resends only the undelivered results into
+ * the same run or cycle.
+ * <p>
+ * With the {@code changed} sync policy, a {@link SyncStatusCache} remembers the last status pushed for every test,
+ * and results whose status did not change are not queued at all. Periodic full syncs push everything again.
+ * <p>
+ * A sick server cannot hold the build up indefinitely: every request passes the system's {@link CircuitBreaker} and
+ * the build's {@link PushBudget}. Once either refuses, the push stops and its undelivered results are written to the
+ * outbox, even if the outbox is disabled, for {@link #pushPending()} to send later.
+ * <p>
+ * Every request attempt and pushed batch is recorded in {@link PushMetrics}, which {@link #flushResults()} writes to
+ * {@code metrics/<name>.json} in the state directory.
  */
 public abstract class AbstractTestManagementSystem implements TestManagementSystem {
+    private static final Logger logger = Logging.getLogger(AbstractTestManagementSystem.class);
+    private static final long FLUSHER_SHUTDOWN_TIMEOUT_MINUTES = 10;
+
     protected Object config;
-    protected OperationStatus lastStatus;
+    protected volatile OperationStatus lastStatus;
     protected boolean configured;
     protected static final int MAX_RETRIES = 3;
     protected static final long RETRY_DELAY_MS = 1000;
+    /** Attempts of a single request before its failure is handed to the caller */
+    protected static final int MAX_REQUEST_ATTEMPTS = 5;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
     protected final List<UnifiedTestResult> pendingResults;
+    protected final SharedHttpClient httpClient;
+    /** Time left for pushes in this build, shared with all other systems and test tasks */
+    protected final PushBudget pushBudget;
+
+    private final Object pushLock = new Object();
+    private int flushBatchSize;
+    private long flushLingerNanos;
+    private long oldestPendingAt;
+    private ScheduledExecutorService flusher;
+    private int runPushes;
+    private OperationStatus runFailure;
+    private File outboxFile;
+    private boolean outboxEnabled;
+    private CircuitBreaker breaker = new CircuitBreaker(0, Duration.ZERO);
+    private PushOutbox outbox;
+    private final Map<UnifiedTestResult, Long> outboxSeqs = new IdentityHashMap<>();
+    private final Set<UnifiedTestResult> delivered = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<String, String> deliveredIds = new HashMap<>();
+    private long retryDelayMillis = RETRY_DELAY_MS;
+    private File syncFile;
+    private int fullSyncEveryBuilds;
+    private Duration fullSyncInterval;
+    private SyncStatusCache syncCache;
+    private int unchangedResults;
+    private final PushMetrics metrics = new PushMetrics();
+    private File metricsFile;
 
     protected AbstractTestManagementSystem() {
+        this(SharedHttpClient.getDefault());
+    }
+
+    /**
+     * @param httpClient the client shared with the other systems and exporters of the build
+     */
+    protected AbstractTestManagementSystem(SharedHttpClient httpClient) {
+        this(httpClient, PushBudget.unlimited());
+    }
+
+    /**
+     * @param httpClient the client shared with the other systems and exporters of the build
+     * @param pushBudget the push budget and circuit breakers shared by the build
+     */
+    protected AbstractTestManagementSystem(SharedHttpClient httpClient, PushBudget pushBudget) {
         this.pendingResults = new ArrayList<>();
+        this.httpClient = httpClient;
+        this.pushBudget = pushBudget;
     }
 
     @Override
@@ -30,6 +120,28 @@ public abstract class AbstractTestManagementSystem implements TestManagementSyst
         if (!configured) {
             lastStatus = OperationStatus.failure("Invalid configuration");
         }
+        if (config instanceof SystemConfig) {
+            SystemConfig systemConfig = (SystemConfig) config;
+            this.flushBatchSize = Math.max(0, systemConfig.getFlushBatchSize().getOrElse(0));
+            this.flushLingerNanos = TimeUnit.SECONDS.toNanos(Math.max(0, systemConfig.getFlushLingerSeconds().getOrElse(0)));
+            if (systemConfig.getStateDirectory().isPresent()) {
+                // Diverted results go to the outbox file even when queued results are not written to it
+                this.outboxFile = systemConfig.getStateDirectory()
+                    .file(PushOutbox.DIR_NAME + "/" + getName() + ".log").get().getAsFile();
+                this.outboxEnabled = systemConfig.getOutboxEnabled().getOrElse(false);
+                this.metricsFile = systemConfig.getStateDirectory()
+                    .file(PushMetrics.DIR_NAME + "/" + getName() + ".json").get().getAsFile();
+            }
+            // One breaker per server and project, so a dead server does not divert pushes to a healthy one
+            this.breaker = pushBudget.getBreaker(getRunKey(), systemConfig.getCircuitBreakerThreshold().getOrElse(0),
+                Duration.ofSeconds(Math.max(0, systemConfig.getCircuitBreakerOpenSeconds().getOrElse(0))));
+            if ("changed".equalsIgnoreCase(systemConfig.getSyncPolicy().getOrElse("full")) && systemConfig.getStateDirectory().isPresent()) {
+                this.syncFile = systemConfig.getStateDirectory().file(SyncStatusCache.DIR_NAME + "/" + getName() + "-"
+                    + getSyncScope().replaceAll("[^A-Za-z0-9._-]", "_") + ".json").get().getAsFile();
+                this.fullSyncEveryBuilds = Math.max(0, systemConfig.getFullSyncEveryBuilds().getOrElse(0));
+                this.fullSyncInterval = Duration.ofHours(Math.max(0, systemConfig.getFullSyncIntervalHours().getOrElse(0)));
+            }
+        }
     }
 
     @Override
@@ -42,10 +154,33 @@ public abstract class AbstractTestManagementSystem implements TestManagementSyst
         return lastStatus;
     }
 
+    @Override
+    public PushMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public void queueTestResult(UnifiedTestResult result) {
-        if (result != null) {
+        if (result == null) {
+            return;
+        }
+        boolean batchFull;
+        synchronized (pendingResults) {
+            if (isUnchanged(result)) {
+                return;
+            }
+            if (pendingResults.isEmpty()) {
+                oldestPendingAt = System.nanoTime();
+            }
+            record(result);
             pendingResults.add(result);
+            batchFull = flushBatchSize > 0 && pendingResults.size() >= flushBatchSize;
+        }
+        if (configured && flushBatchSize > 0) {
+            ScheduledExecutorService executor = startFlusher();
+            if (batchFull) {
+                executor.execute(this::flushFullBatches);
+            }
         }
     }
 
@@ -57,49 +192,684 @@ public abstract class AbstractTestManagementSystem implements TestManagementSyst
         }
 
         // Combine queued results with provided results
-        List<UnifiedTestResult> allResults = new ArrayList<>(pendingResults);
+        List<UnifiedTestResult> allResults = drainPending();
         if (results != null) {
-            allResults.addAll(results);
+            synchronized (pendingResults) {
+                for (UnifiedTestResult result : results) {
+                    if (!isUnchanged(result)) {
+                        allResults.add(result);
+                    }
+                }
+            }
         }
-        pendingResults.clear();
 
-        if (allResults.isEmpty()) {
+        synchronized (pushLock) {
+            Map<String, String> testIds = new HashMap<>();
+            if (!allResults.isEmpty()) {
+                testIds = push(allResults);
+            } else if (runPushes == 0) {
+                lastStatus = OperationStatus.success("No results to push");
+                finishSync(true);
+                return testIds;
+            }
+
+            OperationStatus completion = completeRunWithinBudget();
+            if (completion != null && lastStatus.isSuccess()) {
+                lastStatus = completion;
+            }
+            if (runFailure != null && lastStatus.isSuccess()) {
+                lastStatus = runFailure;
+            }
+            runPushes = 0;
+            runFailure = null;
+            finishSync(lastStatus.isSuccess());
+            return testIds;
+        }
+    }
+
+    @Override
+    public void flushResults() {
+        stopFlusher();
+        boolean pending;
+        synchronized (pendingResults) {
+            pending = !pendingResults.isEmpty();
+        }
+        if (pending || runPushes > 0) {
+            pushResults(null);
+        } else if (configured && lastStatus == null) {
+            // Every result was skipped by the differential sync
             lastStatus = OperationStatus.success("No results to push");
-            return new HashMap<>();
         }
+        finishSync(true);
+        closeOutbox();
+        writeMetrics();
+    }
+
+    @Override
+    public void pushQueuedResults() {
+        if (!isConfigured()) {
+            return;
+        }
+        List<UnifiedTestResult> batch;
+        while (!(batch = drainPending(flushBatchSize > 0 ? flushBatchSize : Integer.MAX_VALUE, 1)).isEmpty()) {
+            pushIntoRun(batch);
+        }
+    }
+
+    @Override
+    public String getRunKey() {
+        return getName() + ":" + getSyncScope();
+    }
+
+    @Override
+    public int pushPending() {
+        if (!isConfigured() || outboxFile == null || !outboxFile.isFile()) {
+            lastStatus = OperationStatus.success("No pending results");
+            return 0;
+        }
+        List<UnifiedTestResult> results;
+        synchronized (pendingResults) {
+            PushOutbox box = openOutbox(false);
+            if (box == null) {
+                return 0;
+            }
+            results = new ArrayList<>();
+            for (Map.Entry<Long, UnifiedTestResult> record : box.getPending().entrySet()) {
+                outboxSeqs.put(record.getValue(), record.getKey());
+                results.add(record.getValue());
+            }
+        }
+
+        int pushed = 0;
+        int chunkSize = flushBatchSize > 0 ? flushBatchSize : results.size();
+        synchronized (pushLock) {
+            for (int from = 0; from < results.size(); from += chunkSize) {
+                List<UnifiedTestResult> chunk = results.subList(from, Math.min(from + chunkSize, results.size()));
+                push(chunk);
+                if (!lastStatus.isSuccess()) {
+                    break;
+                }
+                pushed += chunk.size();
+            }
+            OperationStatus pushStatus = lastStatus;
+            if (pushed > 0) {
+                OperationStatus completion = completeRunWithinBudget();
+                if (completion != null) {
+                    pushStatus = completion;
+                }
+            }
+            lastStatus = pushStatus != null && !pushStatus.isSuccess()
+                ? pushStatus
+                : OperationStatus.success("Pushed " + pushed + " pending test results");
+        }
+        closeOutbox();
+        return pushed;
+    }
 
+    /**
+     * Pushes one batch and records the outcome in {@link #lastStatus}. A failed attempt is retried with backoff,
+     * resending only the results that were not marked delivered. When the circuit breaker or the push budget stops
+     * the push, the undelivered results are diverted to the outbox.
+     */
+    private Map<String, String> push(List<UnifiedTestResult> batch) {
         Map<String, String> testIds = new HashMap<>();
-        int retryCount = 0;
-        boolean success = false;
+        int attempt = 0;
+        metrics.recordBatch(batch.size());
+        long budgetStart = pushBudget.begin();
 
-        while (!success && retryCount < MAX_RETRIES) {
-            try {
-                testIds = doPushResults(allResults);
-                success = true;
-                lastStatus = OperationStatus.success("Successfully pushed " + allResults.size() + " test results");
-            } catch (Exception e) {
-                retryCount++;
-                if (retryCount < MAX_RETRIES) {
+        try {
+            while (true) {
+                List<UnifiedTestResult> remaining = undelivered(batch);
+                if (remaining.isEmpty()) {
+                    lastStatus = OperationStatus.success("Successfully pushed " + batch.size() + " test results");
+                    break;
+                }
+                try {
+                    checkPushAllowed();
+                    markDelivered(remaining, doPushResults(remaining));
+                    lastStatus = OperationStatus.success("Successfully pushed " + batch.size() + " test results");
+                    break;
+                } catch (Exception e) {
+                    PushDivertedException diverted = divertedCause(e);
+                    if (diverted != null) {
+                        divert(undelivered(batch), diverted);
+                        break;
+                    }
+                    attempt++;
+                    if (attempt >= MAX_RETRIES) {
+                        lastStatus = OperationStatus.failure("Failed to push test results after " + MAX_RETRIES + " attempts", e);
+                        break;
+                    }
+                    logger.info("UnifiedTest: push to {} failed ({}), resending {} undelivered results",
+                        getName(), e.getMessage(), undelivered(batch).size());
                     try {
-                        TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MS * retryCount);
+                        TimeUnit.MILLISECONDS.sleep(delayWithinBudget(backoffMillis(attempt, null)));
+                    } catch (PushDivertedException de) {
+                        divert(undelivered(batch), de);
+                        break;
                     } catch (InterruptedException ie) {
                         Thread.currentThread().interrupt();
+                        lastStatus = OperationStatus.failure("Interrupted while pushing test results", e);
                         break;
                     }
-                } else {
-                    lastStatus = OperationStatus.failure("Failed to push test results after " + MAX_RETRIES + " attempts", e);
                 }
             }
+        } finally {
+            pushBudget.end(budgetStart);
         }
 
+        List<UnifiedTestResult> accepted = new ArrayList<>(batch.size());
+        synchronized (delivered) {
+            for (UnifiedTestResult result : batch) {
+                if (delivered.remove(result)) {
+                    accepted.add(result);
+                }
+                String id = deliveredIds.remove(result.getName());
+                if (id != null) {
+                    testIds.put(result.getName(), id);
+                }
+            }
+        }
+        // Delivered results leave the outbox even when the batch failed, so a replay does not repeat them
+        acknowledge(accepted);
+        SyncStatusCache cache;
+        synchronized (pendingResults) {
+            cache = syncCache;
+        }
+        if (cache != null) {
+            for (UnifiedTestResult result : accepted) {
+                cache.update(result.getName(), result.getStatus());
+            }
+        }
         return testIds;
     }
 
-    @Override
-    public void flushResults() {
-        if (!pendingResults.isEmpty()) {
-            pushResults(null);
+    /**
+     * Records results as delivered, so a retry of the current batch does not send them again. Implementations call
+     * this after every request or chunk the server accepted; it may be called from any thread.
+     * @param results the delivered results
+     * @param testIds test names mapped to their IDs in the test management system, may be empty
+     */
+    protected void markDelivered(List<UnifiedTestResult> results, Map<String, String> testIds) {
+        synchronized (delivered) {
+            delivered.addAll(results);
+            deliveredIds.putAll(testIds);
+        }
+    }
+
+    private List<UnifiedTestResult> undelivered(List<UnifiedTestResult> batch) {
+        synchronized (delivered) {
+            List<UnifiedTestResult> remaining = new ArrayList<>(batch.size());
+            for (UnifiedTestResult result : batch) {
+                if (!delivered.contains(result)) {
+                    remaining.add(result);
+                }
+            }
+            return remaining;
+        }
+    }
+
+    /**
+     * Sends a request, retrying throttled responses ({@code 429}), gateway errors ({@code 502}-{@code 504}) and
+     * connection failures. Requests that may have reached the server are only retried when their method is
+     * idempotent, so a POST that timed out is left to the batch retry, which knows what was delivered.
+     * @return the final response; its status is for the caller to check
+     * @throws IOException if the request still fails after {@link #MAX_REQUEST_ATTEMPTS}
+     */
+    protected HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            HttpResponse<String> response = null;
+            IOException failure = null;
+            HttpRequest admitted = admit(request);
+            long start = System.nanoTime();
+            try {
+                response = httpClient.send(admitted);
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                // An interrupted or otherwise aborted request must still free a half-open probe
+                if (response != null) {
+                    recordOutcome(isHealthy(response.statusCode()));
+                } else if (failure != null) {
+                    recordOutcome(false);
+                } else {
+                    recordAbandoned();
+                }
+            }
+            recordRequest(request, attempt, start, response, failure);
+            if (failure != null) {
+                if (attempt >= MAX_REQUEST_ATTEMPTS || !isRetryable(request, failure)) {
+                    throw failure;
+                }
+                TimeUnit.MILLISECONDS.sleep(delayWithinBudget(backoffMillis(attempt, null)));
+                continue;
+            }
+            if (attempt >= MAX_REQUEST_ATTEMPTS || !isRetryableStatus(response.statusCode())) {
+                return response;
+            }
+            TimeUnit.MILLISECONDS.sleep(delayWithinBudget(backoffMillis(attempt, AdaptiveRateLimiter.retryAfter(response))));
+        }
+    }
+
+    /**
+     * Lets a request pass the circuit breaker and the push budget. Its timeout is shortened to the time left in the
+     * budget. Callers that are let through must report the outcome with {@link #recordOutcome}, or with
+     * {@link #recordAbandoned} when the request was given up before the server answered.
+     * @return the request to send
+     * @throws PushDivertedException if the circuit is open or the budget is used up
+     */
+    protected HttpRequest admit(HttpRequest request) throws IOException {
+        long remaining = checkPushAllowed();
+        if (!breaker.allowRequest()) {
+            throw new PushDivertedException("circuit breaker for " + getName() + " is open");
+        }
+        if (!pushBudget.isLimited()) {
+            return request;
+        }
+        Duration left = Duration.ofNanos(remaining);
+        if (request.timeout().isPresent() && request.timeout().get().compareTo(left) <= 0) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true).timeout(left).build();
+    }
+
+    /**
+     * Records one attempt of a request in the {@link #getMetrics() metrics}.
+     * @param request the request
+     * @param attempt the attempt number, starting at 1
+     * @param startNanos when the attempt was sent, from {@link System#nanoTime()}
+     * @param response the response, or null if the attempt failed
+     * @param error the failure, or null
+     */
+    protected void recordRequest(HttpRequest request, int attempt, long startNanos, HttpResponse<String> response, Throwable error) {
+        long received = 0;
+        if (response != null) {
+            received = response.headers().firstValueAsLong("Content-Length")
+                .orElseGet(() -> response.body() == null ? 0 : response.body().getBytes(StandardCharsets.UTF_8).length);
+        }
+        long sent = request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+        metrics.recordRequest(PushMetrics.endpointOf(request), System.nanoTime() - startNanos,
+            response != null ? response.statusCode() : -1, attempt > 1, sent, received);
+    }
+
+    private void writeMetrics() {
+        if (metricsFile == null || metrics.getRequests() == 0) {
+            return;
+        }
+        try {
+            metrics.writeTo(metricsFile, getName());
+        } catch (IOException e) {
+            logger.warn("UnifiedTest: could not write push metrics {}: {}", metricsFile, e.getMessage());
+        }
+        logger.info("UnifiedTest: {} push metrics: {}", getName(), metrics);
+    }
+
+    /**
+     * Reports the outcome of an admitted request to the circuit breaker.
+     * @param healthy false for connection failures and gateway errors, which count towards opening the circuit
+     */
+    protected void recordOutcome(boolean healthy) {
+        if (healthy) {
+            breaker.onSuccess();
+        } else {
+            breaker.onFailure();
+        }
+    }
+
+    /**
+     * Reports an admitted request that was given up without an answer, e.g. because the task was cancelled.
+     * It does not count as a failure of the server.
+     */
+    protected void recordAbandoned() {
+        breaker.onAbandoned();
+    }
+
+    /**
+     * Whether a response shows the server working. Throttling does; gateway errors do not.
+     */
+    protected static boolean isHealthy(int status) {
+        return status != 502 && status != 503 && status != 504;
+    }
+
+    /**
+     * Checks a retry delay against the push budget.
+     * @return the delay, if the budget has time for it
+     * @throws PushDivertedException if waiting would exceed the budget
+     */
+    protected long delayWithinBudget(long delayMillis) throws PushDivertedException {
+        if (TimeUnit.MILLISECONDS.toNanos(delayMillis) >= pushBudget.remainingNanos()) {
+            throw new PushDivertedException("push budget would run out before the next retry");
+        }
+        return delayMillis;
+    }
+
+    /**
+     * @return the nanoseconds left in the push budget
+     * @throws PushDivertedException if the budget is used up
+     */
+    private long checkPushAllowed() throws PushDivertedException {
+        long remaining = pushBudget.remainingNanos();
+        if (remaining <= 0) {
+            throw new PushDivertedException("push budget of the build is used up");
+        }
+        return remaining;
+    }
+
+    private static PushDivertedException divertedCause(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PushDivertedException) {
+                return (PushDivertedException) cause;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keeps results the push gave up on in the outbox, writing those that are not in it yet.
+     */
+    private void divert(List<UnifiedTestResult> results, PushDivertedException reason) {
+        int saved = 0;
+        File file;
+        synchronized (pendingResults) {
+            PushOutbox box = openOutbox(false);
+            file = box != null ? box.getFile() : null;
+            if (box != null) {
+                try {
+                    for (UnifiedTestResult result : results) {
+                        if (!outboxSeqs.containsKey(result)) {
+                            outboxSeqs.put(result, box.append(result));
+                        }
+                        saved++;
+                    }
+                } catch (IOException e) {
+                    logger.warn("UnifiedTest: could not write to outbox {}: {}", box.getFile(), e.getMessage());
+                }
+            }
+        }
+        if (saved > 0) {
+            logger.warn("UnifiedTest: stopped pushing to {} ({}); {} results were saved to {}, run unifiedTestPushPending to send them",
+                getName(), reason.getMessage(), saved, file);
+        } else {
+            logger.warn("UnifiedTest: stopped pushing to {} ({}); {} results were not sent", getName(), reason.getMessage(), results.size());
+        }
+        lastStatus = OperationStatus.failure("Stopped pushing to " + getName() + ": " + reason.getMessage() + "; "
+            + saved + " of " + results.size() + " results kept for unifiedTestPushPending", reason);
+    }
+
+    /**
+     * Completes the run, counting the time against the push budget.
+     * @return a failure status, or null if the run was completed
+     */
+    private OperationStatus completeRunWithinBudget() {
+        long budgetStart = pushBudget.begin();
+        try {
+            completeRun();
+            return null;
+        } catch (Exception e) {
+            return OperationStatus.failure("Failed to complete test run", e);
+        } finally {
+            pushBudget.end(budgetStart);
+        }
+    }
+
+    /**
+     * Whether a response status is worth retrying: throttling and transient gateway errors.
+     */
+    protected static boolean isRetryableStatus(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * Whether a failed request can be sent again without risking a duplicate.
+     */
+    protected static boolean isRetryable(HttpRequest request, IOException error) {
+        if (error instanceof ConnectException || error instanceof HttpConnectTimeoutException) {
+            // Never reached the server
+            return true;
+        }
+        String method = request.method();
+        return "GET".equals(method) || "PUT".equals(method) || "DELETE".equals(method) || "HEAD".equals(method);
+    }
+
+    /**
+     * Delay before the given retry: exponential in the attempt number with full jitter, but never shorter
+     * than the server's Retry-After.
+     * @param attempt the number of attempts made so far, starting at 1
+     * @param retryAfter the server's Retry-After, or null
+     */
+    protected long backoffMillis(int attempt, Duration retryAfter) {
+        long ceiling = Math.min(MAX_RETRY_DELAY_MS, retryDelayMillis << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+        return retryAfter != null ? Math.max(delay, retryAfter.toMillis()) : delay;
+    }
+
+    /**
+     * Sets the base delay of the exponential backoff.
+     */
+    void setRetryDelayMillis(long retryDelayMillis) {
+        this.retryDelayMillis = Math.max(1, retryDelayMillis);
+    }
+
+    /**
+     * Checks a result against the sync status cache, loading it on the first result of a build.
+     * Must hold the pendingResults lock.
+     * @return true if the result is skipped because its status was already pushed
+     */
+    private boolean isUnchanged(UnifiedTestResult result) {
+        if (syncFile == null) {
+            return false;
+        }
+        if (syncCache == null) {
+            syncCache = new SyncStatusCache(syncFile, getName() + ":" + getSyncScope(), fullSyncEveryBuilds, fullSyncInterval);
+            if (syncCache.isFullSync()) {
+                logger.info("UnifiedTest: full sync of all results to {}", getName());
+            }
+        }
+        if (syncCache.isUnchanged(result.getName(), result.getStatus())) {
+            unchangedResults++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Saves the sync status cache at the end of a build; the next build loads it again.
+     */
+    private void finishSync(boolean succeeded) {
+        SyncStatusCache cache;
+        int skipped;
+        synchronized (pendingResults) {
+            cache = syncCache;
+            skipped = unchangedResults;
+            syncCache = null;
+            unchangedResults = 0;
+        }
+        if (cache == null) {
+            return;
+        }
+        cache.save(succeeded);
+        if (skipped > 0) {
+            logger.lifecycle("UnifiedTest: {} results unchanged since the last push to {} were not sent", skipped, getName());
+        }
+    }
+
+    /**
+     * Writes a queued result to the outbox; must be called while holding the pendingResults lock.
+     */
+    private void record(UnifiedTestResult result) {
+        if (!outboxEnabled) {
+            return;
         }
+        PushOutbox box = openOutbox(true);
+        if (box == null) {
+            return;
+        }
+        try {
+            outboxSeqs.put(result, box.append(result));
+        } catch (IOException e) {
+            logger.warn("UnifiedTest: could not write to outbox {}: {}", box.getFile(), e.getMessage());
+        }
+    }
+
+    private void acknowledge(List<UnifiedTestResult> batch) {
+        List<Long> seqs = new ArrayList<>(batch.size());
+        PushOutbox box;
+        synchronized (pendingResults) {
+            for (UnifiedTestResult result : batch) {
+                Long seq = outboxSeqs.remove(result);
+                if (seq != null) {
+                    seqs.add(seq);
+                }
+            }
+            box = outbox;
+        }
+        if (box == null || seqs.isEmpty()) {
+            return;
+        }
+        try {
+            box.acknowledge(seqs);
+        } catch (IOException e) {
+            logger.warn("UnifiedTest: could not acknowledge pushed results in outbox {}: {}", box.getFile(), e.getMessage());
+        }
+    }
+
+    private PushOutbox openOutbox(boolean warnAboutEarlierBuilds) {
+        synchronized (pendingResults) {
+            if (outbox == null && outboxFile != null) {
+                try {
+                    outbox = PushOutbox.open(outboxFile);
+                    int earlier = outbox.getPending().size();
+                    if (earlier > 0 && warnAboutEarlierBuilds) {
+                        logger.warn("UnifiedTest: {} results from earlier builds were never pushed to {}; run unifiedTestPushPending to send them",
+                            earlier, getName());
+                    }
+                } catch (IOException e) {
+                    logger.warn("UnifiedTest: could not open outbox {}: {}", outboxFile, e.getMessage());
+                    outboxFile = null;
+                }
+            }
+            return outbox;
+        }
+    }
+
+    private void closeOutbox() {
+        PushOutbox box;
+        synchronized (pendingResults) {
+            box = outbox;
+            outbox = null;
+            outboxSeqs.clear();
+        }
+        if (box != null) {
+            try {
+                box.close();
+            } catch (IOException e) {
+                logger.warn("UnifiedTest: could not close outbox {}: {}", box.getFile(), e.getMessage());
+            }
+        }
+    }
+
+    private List<UnifiedTestResult> drainPending() {
+        return drainPending(Integer.MAX_VALUE, 1);
+    }
+
+    /**
+     * Takes up to {@code max} of the oldest queued results, or nothing if fewer than {@code min} are queued.
+     */
+    private List<UnifiedTestResult> drainPending(int max, int min) {
+        synchronized (pendingResults) {
+            if (pendingResults.size() < min) {
+                return new ArrayList<>();
+            }
+            List<UnifiedTestResult> head = pendingResults.subList(0, Math.min(max, pendingResults.size()));
+            List<UnifiedTestResult> drained = new ArrayList<>(head);
+            head.clear();
+            if (!pendingResults.isEmpty()) {
+                // The remaining results arrived after the drained ones; restart their linger time conservatively late
+                oldestPendingAt = System.nanoTime();
+            }
+            return drained;
+        }
+    }
+
+    private void flushFullBatches() {
+        List<UnifiedTestResult> batch;
+        while (!(batch = drainPending(flushBatchSize, flushBatchSize)).isEmpty()) {
+            pushIntoRun(batch);
+        }
+    }
+
+    private void flushIfLingering() {
+        boolean due;
+        synchronized (pendingResults) {
+            due = !pendingResults.isEmpty() && System.nanoTime() - oldestPendingAt >= flushLingerNanos;
+        }
+        if (due) {
+            List<UnifiedTestResult> batch;
+            while (!(batch = drainPending(flushBatchSize, 1)).isEmpty()) {
+                pushIntoRun(batch);
+            }
+        }
+    }
+
+    /**
+     * Pushes a batch into the current run, leaving the run open for later batches.
+     */
+    private void pushIntoRun(List<UnifiedTestResult> batch) {
+        synchronized (pushLock) {
+            push(batch);
+            runPushes++;
+            if (!lastStatus.isSuccess()) {
+                runFailure = lastStatus;
+                logger.warn("UnifiedTest: push of {} results to {} failed: {}",
+                    batch.size(), getName(), lastStatus.getMessage());
+            }
+        }
+    }
+
+    private synchronized ScheduledExecutorService startFlusher() {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "unifiedtest-" + getName() + "-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (flushLingerNanos > 0) {
+                long period = Math.max(TimeUnit.MILLISECONDS.toNanos(100), flushLingerNanos / 4);
+                flusher.scheduleWithFixedDelay(this::flushIfLingering, period, period, TimeUnit.NANOSECONDS);
+            }
+        }
+        return flusher;
+    }
+
+    /**
+     * Stops the background flusher after the batch it may be pushing, so the caller pushes whatever remains.
+     */
+    private void stopFlusher() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = flusher;
+            flusher = null;
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(FLUSHER_SHUTDOWN_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Identifies the cycle or run statuses are compared within, for the {@code changed} sync policy.
+     * @return the scope; by default all pushes of this system share one
+     */
+    protected String getSyncScope() {
+        return "default";
     }
 
     /**
@@ -110,12 +880,23 @@ public abstract class AbstractTestManagementSystem implements TestManagementSyst
 
     /**
      * Implementation-specific method to push test results.
+     * Called once per batch; all batches up to the next {@link #completeRun()} belong to the same test run.
+     * Implementations that send a batch in several requests should {@link #markDelivered mark} each chunk once it
+     * was accepted, so a retry after a failure only sends the rest.
      * @param results List of test results to push
      * @return Map of test names to their corresponding IDs in the test management system
      * @throws Exception if the operation fails
      */
     protected abstract Map<String, String> doPushResults(List<UnifiedTestResult> results) throws Exception;
 
+    /**
+     * Called after the last batch of a push; implementations close the current test run here so the next push
+     * starts a new one.
+     * @throws Exception if the run cannot be completed
+     */
+    protected void completeRun() throws Exception {
+    }
+
     /**
      * Convert UnifiedTestResult status to test management system specific status.
      * @param status UnifiedTestResult status
@@ -129,4 +910,4 @@ public abstract class AbstractTestManagementSystem implements TestManagementSyst
      * @return UnifiedTestResult status
      */
     protected abstract String convertFromStatus(String status);
-} 
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that adapts its rate to server throttling.
+ * Callers {@link #reserve() reserve} a slot and wait the returned delay before sending, so no thread is blocked
+ * while waiting. A {@code 429} halves the rate and pauses all senders for the server's {@code Retry-After};
+ * every successful response then raises the rate again in small steps, back up to the configured maximum.
+ */
+class AdaptiveRateLimiter {
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final double maxRate;
+    private final double minRate;
+    private final double increaseStep;
+    private final int burst;
+    private double rate;
+    private long nextFree;
+    private long pausedUntil;
+
+    /**
+     * @param permitsPerSecond the maximum sustained request rate
+     * @param burst how many requests may be sent back-to-back after an idle period
+     */
+    AdaptiveRateLimiter(double permitsPerSecond, int burst) {
+        this.maxRate = Math.max(0.1, permitsPerSecond);
+        this.minRate = Math.min(1.0, maxRate);
+        this.increaseStep = maxRate / 50;
+        this.burst = Math.max(1, burst);
+        this.rate = maxRate;
+        this.nextFree = System.nanoTime();
+        this.pausedUntil = nextFree;
+    }
+
+    /**
+     * Reserves the next send slot.
+     * @return nanoseconds to wait before sending, 0 if the request may be sent now
+     */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        long interval = interval();
+        // An idle bucket accumulates up to burst slots in the past, which are handed out without delay
+        long start = Math.max(Math.max(nextFree, now - (burst - 1) * interval), pausedUntil);
+        nextFree = start + interval;
+        return Math.max(0, start - now);
+    }
+
+    /**
+     * Records a successful response.
+     */
+    synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + increaseStep);
+    }
+
+    /**
+     * Records a throttled response: halves the rate and pauses every sender until the server accepts requests again.
+     * @param retryAfter how long the server asked to wait, or null if it did not say
+     */
+    synchronized void onThrottle(Duration retryAfter) {
+        rate = Math.max(minRate, rate / 2);
+        long resumeAt = System.nanoTime() + (retryAfter != null ? retryAfter : DEFAULT_RETRY_AFTER).toNanos();
+        pausedUntil = Math.max(pausedUntil, resumeAt);
+        nextFree = Math.max(nextFree, pausedUntil);
+    }
+
+    /**
+     * Gets the current request rate.
+     * @return permits per second
+     */
+    synchronized double getRate() {
+        return rate;
+    }
+
+    private long interval() {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    /**
+     * Reads {@code Retry-After} as delta seconds or as an HTTP date.
+     * @return the delay, or null if the header is missing or malformed
+     */
+    static Duration retryAfter(HttpResponse<?> response) {
+        String value = response.headers().firstValue("Retry-After").orElse(null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration delay = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
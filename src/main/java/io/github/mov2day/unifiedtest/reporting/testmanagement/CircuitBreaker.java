@@ -0,0 +1,93 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker for one remote service. After {@code failureThreshold} failures in a row the circuit opens and
+ * requests are refused without being sent. Once {@code openDuration} has passed, a single probe request is let
+ * through: if it succeeds the circuit closes again, if it fails the circuit stays open for another period.
+ */
+public class CircuitBreaker {
+    /**
+     * States of a circuit.
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    /**
+     * @param failureThreshold failures in a row that open the circuit, 0 to never open it
+     * @param openDuration how long the circuit stays open before a probe is let through
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = Math.max(0, failureThreshold);
+        this.openNanos = Math.max(0, openDuration.toNanos());
+    }
+
+    /**
+     * Whether a request may be sent now. While half-open only one probe is allowed at a time; a caller that was
+     * allowed must report the outcome with {@link #onSuccess()}, {@link #onFailure()} or {@link #onAbandoned()}.
+     * @return true if the request may be sent
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * Records a request the service handled.
+     */
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    /**
+     * Records a request that failed because of the service: a connection failure or a gateway error.
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || (failureThreshold > 0 && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Records a request that was given up before the service answered. It frees the half-open probe, so the next
+     * request probes instead, without counting towards opening the circuit.
+     */
+    public synchronized void onAbandoned() {
+        probeInFlight = false;
+    }
+
+    /**
+     * Gets the current state; an open circuit whose period has passed is reported open until a probe is allowed.
+     * @return the state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+}
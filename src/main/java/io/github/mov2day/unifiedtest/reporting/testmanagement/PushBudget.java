@@ -0,0 +1,94 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wall-clock time all pushes of a build may take together, and the circuit breakers of the services they push to.
+ * Time is counted while at least one push is running; pushes running at the same time are counted each, so the
+ * budget errs on the side of stopping early. Once it is used up, pushes stop sending and leave their results on disk.
+ * Within a build the instance comes from {@link TestManagementService}, so all projects and test tasks share it.
+ */
+public class PushBudget {
+    private final long limitNanos;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private long spentNanos;
+    private int active;
+    private long activeStartSum;
+
+    /**
+     * @param limit the time all pushes may take, zero for no limit
+     */
+    public PushBudget(Duration limit) {
+        this.limitNanos = Math.max(0, limit.toNanos());
+    }
+
+    /**
+     * Creates a budget without a time limit, for code running outside of Gradle.
+     * @return a new budget
+     */
+    public static PushBudget unlimited() {
+        return new PushBudget(Duration.ZERO);
+    }
+
+    /**
+     * Whether pushes are limited at all.
+     * @return true if there is a limit
+     */
+    public boolean isLimited() {
+        return limitNanos > 0;
+    }
+
+    /**
+     * Starts counting a push against the budget.
+     * @return the start time to pass to {@link #end(long)}
+     */
+    public synchronized long begin() {
+        long now = System.nanoTime();
+        active++;
+        activeStartSum += now;
+        return now;
+    }
+
+    /**
+     * Stops counting a push.
+     * @param start the value returned by {@link #begin()}
+     */
+    public synchronized void end(long start) {
+        active--;
+        activeStartSum -= start;
+        spentNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Gets the time left for pushes.
+     * @return the remaining time, never negative; {@code Long.MAX_VALUE} when there is no limit
+     */
+    public synchronized long remainingNanos() {
+        if (!isLimited()) {
+            return Long.MAX_VALUE;
+        }
+        long running = active * System.nanoTime() - activeStartSum;
+        return Math.max(0, limitNanos - spentNanos - running);
+    }
+
+    /**
+     * Gets the total time counted so far, including running pushes.
+     * @return the time spent
+     */
+    public synchronized Duration getSpent() {
+        return Duration.ofNanos(spentNanos + active * System.nanoTime() - activeStartSum);
+    }
+
+    /**
+     * Gets the circuit breaker of a service, created with the given settings on first use.
+     * @param service identifies the service, e.g. the run key of a test management system
+     * @param failureThreshold failures in a row that open the circuit, 0 to never open it
+     * @param openDuration how long the circuit stays open before a probe is let through
+     * @return the breaker shared by everything pushing to the service in this build
+     */
+    public CircuitBreaker getBreaker(String service, int failureThreshold, Duration openDuration) {
+        return breakers.computeIfAbsent(service, key -> new CircuitBreaker(failureThreshold, openDuration));
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request when the system's circuit is open or the build's push budget is used up.
+ * Pushes are not retried after it; their undelivered results are kept in the outbox instead.
+ */
+class PushDivertedException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    PushDivertedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,284 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Instrumentation of the requests and batches of one test management system: per endpoint, request, retry,
+ * throttling and server error counts, bytes sent and received, and a latency histogram; and a histogram of pushed
+ * batch sizes. Endpoints are named by method and path with IDs and keys replaced, e.g.
+ * {@code POST /api/v2/add_results_for_cases/{id}}, so all requests of one kind share their numbers.
+ * Safe to record from any thread.
+ */
+public class PushMetrics {
+    /** Upper bounds of the latency buckets, in milliseconds */
+    static final long[] LATENCY_BUCKETS_MS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+    /** Upper bounds of the batch size buckets, in results */
+    static final long[] BATCH_BUCKETS = {1, 10, 50, 100, 250, 500, 1000, 5000};
+    /** Metrics directory name, relative to the state directory */
+    static final String DIR_NAME = "metrics";
+
+    private static final Pattern ID_SEGMENT = Pattern.compile("\\d+|[A-Z][A-Z0-9_]*-[A-Z]*\\d+");
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+    private final Histogram batchSizes = new Histogram(BATCH_BUCKETS);
+
+    /**
+     * Records one attempt of a request.
+     * @param endpoint the endpoint name, see {@link #endpointOf(HttpRequest)}
+     * @param latencyNanos time from sending the request until its response or failure
+     * @param status the response status, or -1 if the request failed without a response
+     * @param retry whether this attempt repeats an earlier one
+     * @param bytesSent size of the request body
+     * @param bytesReceived size of the response body
+     */
+    void recordRequest(String endpoint, long latencyNanos, int status, boolean retry, long bytesSent, long bytesReceived) {
+        endpoints.computeIfAbsent(endpoint, key -> new Endpoint())
+            .record(latencyNanos, status, retry, bytesSent, bytesReceived);
+    }
+
+    /**
+     * Records the size of a pushed batch.
+     */
+    void recordBatch(int size) {
+        batchSizes.record(size);
+    }
+
+    /**
+     * Gets the metrics of every endpoint called so far, ordered by name.
+     * @return endpoint names mapped to their metrics
+     */
+    public Map<String, Endpoint> getEndpoints() {
+        return Collections.unmodifiableMap(endpoints);
+    }
+
+    /**
+     * Gets the sizes of the batches pushed so far.
+     * @return the batch size histogram
+     */
+    public Histogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    /**
+     * Gets the number of requests sent to all endpoints, retries included.
+     * @return the request count
+     */
+    public long getRequests() {
+        return endpoints.values().stream().mapToLong(Endpoint::getRequests).sum();
+    }
+
+    /**
+     * Names the endpoint of a request: its method and path, with numeric IDs and issue-style keys replaced by
+     * {@code {id}}. TestRail routes in the query string ({@code index.php?/api/v2/...}) are treated as the path.
+     * @param request the request
+     * @return the endpoint name
+     */
+    static String endpointOf(HttpRequest request) {
+        URI uri = request.uri();
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        String query = uri.getRawQuery();
+        if (query != null && query.startsWith("/")) {
+            int end = query.indexOf('&');
+            path = end < 0 ? query : query.substring(0, end);
+        }
+        StringBuilder name = new StringBuilder(request.method()).append(' ');
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            name.append('/').append(ID_SEGMENT.matcher(segment).matches() ? "{id}" : segment);
+        }
+        return name.toString();
+    }
+
+    /**
+     * Writes the metrics as JSON, replacing the file atomically.
+     * @param file the file to write
+     * @param system the system the metrics belong to
+     * @throws IOException if the file cannot be written
+     */
+    void writeTo(File file, String system) throws IOException {
+        JsonObject root = new JsonObject();
+        root.addProperty("system", system);
+        root.addProperty("generatedAt", Instant.now().toString());
+        root.add("batchSizes", batchSizes.toJson());
+        JsonObject endpointsJson = new JsonObject();
+        endpoints.forEach((name, endpoint) -> endpointsJson.add(name, endpoint.toJson()));
+        root.add("endpoints", endpointsJson);
+
+        file.getParentFile().mkdirs();
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(root, writer);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(batchSizes.getCount()).append(" batches (").append(batchSizes.getSum()).append(" results)");
+        endpoints.forEach((name, endpoint) -> summary.append("; ").append(name).append(": ").append(endpoint));
+        return summary.toString();
+    }
+
+    /**
+     * Request metrics of one endpoint.
+     */
+    public static class Endpoint {
+        private final Histogram latencyMillis = new Histogram(LATENCY_BUCKETS_MS);
+        private long requests;
+        private long retries;
+        private long throttled;
+        private long serverErrors;
+        private long failures;
+        private long bytesSent;
+        private long bytesReceived;
+
+        synchronized void record(long latencyNanos, int status, boolean retry, long sent, long received) {
+            requests++;
+            if (retry) {
+                retries++;
+            }
+            if (status == 429) {
+                throttled++;
+            } else if (status >= 500) {
+                serverErrors++;
+            } else if (status < 0) {
+                failures++;
+            }
+            bytesSent += Math.max(0, sent);
+            bytesReceived += Math.max(0, received);
+            latencyMillis.record(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+
+        /** Gets the number of requests sent, retries included. */
+        public synchronized long getRequests() { return requests; }
+
+        /** Gets the number of requests that repeated an earlier attempt. */
+        public synchronized long getRetries() { return retries; }
+
+        /** Gets the number of {@code 429} responses. */
+        public synchronized long getThrottled() { return throttled; }
+
+        /** Gets the number of {@code 5xx} responses. */
+        public synchronized long getServerErrors() { return serverErrors; }
+
+        /** Gets the number of requests that failed without a response. */
+        public synchronized long getFailures() { return failures; }
+
+        /** Gets the number of request body bytes sent. */
+        public synchronized long getBytesSent() { return bytesSent; }
+
+        /** Gets the number of response body bytes received. */
+        public synchronized long getBytesReceived() { return bytesReceived; }
+
+        /** Gets the latency histogram, in milliseconds. */
+        public Histogram getLatencyMillis() { return latencyMillis; }
+
+        synchronized JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("requests", requests);
+            json.addProperty("retries", retries);
+            json.addProperty("throttled", throttled);
+            json.addProperty("serverErrors", serverErrors);
+            json.addProperty("failures", failures);
+            json.addProperty("bytesSent", bytesSent);
+            json.addProperty("bytesReceived", bytesReceived);
+            json.add("latencyMs", latencyMillis.toJson());
+            return json;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return requests + " requests (" + retries + " retries, " + throttled + " throttled, " + serverErrors
+                + " 5xx, " + failures + " failed), p50 " + latencyMillis.getPercentile(0.5) + " ms, p99 "
+                + latencyMillis.getPercentile(0.99) + " ms";
+        }
+    }
+
+    /**
+     * Histogram with fixed bucket bounds and an overflow bucket, keeping count, sum and maximum exactly.
+     */
+    public static class Histogram {
+        private final long[] bounds;
+        private final long[] counts;
+        private long count;
+        private long sum;
+        private long max;
+
+        Histogram(long[] bounds) {
+            this.bounds = bounds;
+            this.counts = new long[bounds.length + 1];
+        }
+
+        synchronized void record(long value) {
+            int bucket = 0;
+            while (bucket < bounds.length && value > bounds[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        /** Gets the number of recorded values. */
+        public synchronized long getCount() { return count; }
+
+        /** Gets the sum of the recorded values. */
+        public synchronized long getSum() { return sum; }
+
+        /** Gets the largest recorded value. */
+        public synchronized long getMax() { return max; }
+
+        /**
+         * Estimates a percentile as the upper bound of the bucket it falls in, capped at the maximum.
+         * @param quantile the quantile, between 0 and 1
+         * @return the estimate, 0 if nothing was recorded
+         */
+        public synchronized long getPercentile(double quantile) {
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(bounds[i], max);
+                }
+            }
+            return max;
+        }
+
+        synchronized JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("count", count);
+            json.addProperty("sum", sum);
+            json.addProperty("max", max);
+            json.addProperty("p50", getPercentile(0.5));
+            json.addProperty("p95", getPercentile(0.95));
+            json.addProperty("p99", getPercentile(0.99));
+            JsonObject buckets = new JsonObject();
+            for (int i = 0; i < bounds.length; i++) {
+                buckets.addProperty("le_" + bounds[i], counts[i]);
+            }
+            buckets.addProperty("inf", counts[bounds.length]);
+            json.add("buckets", buckets);
+            return json;
+        }
+    }
+}
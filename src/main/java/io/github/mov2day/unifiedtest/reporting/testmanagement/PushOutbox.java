@@ -0,0 +1,317 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Write-ahead outbox of results bound for one test management system, stored as
+ * {@code build/unifiedtest/outbox/<system>.log}.
+ * Every queued result is appended as a numbered record before it is pushed, and an acknowledgement record is
+ * appended once the push succeeded. Records without an acknowledgement, whether the push failed or the build
+ * died, survive in the file and can be replayed later. Once every record is acknowledged the file is removed.
+ * Like the result journal, appends reach the OS immediately and are forced to disk in batches; acknowledgements
+ * are forced right away, so a replay repeats at most the batch that was in flight when the process died.
+ */
+public class PushOutbox implements Closeable {
+    /** Outbox directory name, relative to the state directory */
+    public static final String DIR_NAME = "outbox";
+
+    private static final int SYNC_EVERY = 64;
+    private static final long SYNC_INTERVAL_MILLIS = 1000;
+
+    private final File file;
+    private final FileChannel channel;
+    private final TreeMap<Long, UnifiedTestResult> pending = new TreeMap<>();
+    private long nextSeq = 1;
+    private int unsynced;
+    private long lastSync;
+
+    private PushOutbox(File file) throws IOException {
+        this.file = file;
+        file.getParentFile().mkdirs();
+        if (file.isFile() && readExisting()) {
+            compact();
+        }
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        this.lastSync = System.currentTimeMillis();
+    }
+
+    /**
+     * Opens an outbox, keeping the unacknowledged records of earlier builds.
+     * @param file the outbox file
+     * @return the open outbox
+     * @throws IOException if the file cannot be read or created
+     */
+    public static PushOutbox open(File file) throws IOException {
+        return new PushOutbox(file);
+    }
+
+    /**
+     * Gets the outbox file.
+     * @return the outbox file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Records a result before it is pushed.
+     * @param result the result
+     * @return the record's sequence number, used to acknowledge it
+     * @throws IOException if writing fails
+     */
+    public synchronized long append(UnifiedTestResult result) throws IOException {
+        long seq = nextSeq++;
+        write(encode(seq, result));
+        pending.put(seq, result);
+        unsynced++;
+        long now = System.currentTimeMillis();
+        if (unsynced >= SYNC_EVERY || now - lastSync >= SYNC_INTERVAL_MILLIS) {
+            sync(now);
+        }
+        return seq;
+    }
+
+    /**
+     * Marks records as pushed. Unknown or already acknowledged sequence numbers are ignored.
+     * @param seqs sequence numbers returned by {@link #append}
+     * @throws IOException if writing fails
+     */
+    public synchronized void acknowledge(Collection<Long> seqs) throws IOException {
+        JsonArray acked = new JsonArray();
+        for (Long seq : seqs) {
+            if (pending.remove(seq) != null) {
+                acked.add(seq);
+            }
+        }
+        if (acked.size() == 0) {
+            return;
+        }
+        JsonObject record = new JsonObject();
+        record.add("ack", acked);
+        write(record.toString());
+        sync(System.currentTimeMillis());
+    }
+
+    /**
+     * Gets the results that were recorded but never acknowledged.
+     * @return sequence numbers mapped to results, in recording order
+     */
+    public synchronized Map<Long, UnifiedTestResult> getPending() {
+        return new TreeMap<>(pending);
+    }
+
+    /**
+     * Forces outstanding records to disk and closes the outbox; the file is deleted if nothing is pending.
+     * @throws IOException if syncing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            if (unsynced > 0) {
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+        }
+        if (pending.isEmpty()) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private void write(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void sync(long now) throws IOException {
+        channel.force(false);
+        unsynced = 0;
+        lastSync = now;
+    }
+
+    /**
+     * Loads the records of earlier builds.
+     * @return true if the file also holds acknowledged or torn records that can be dropped
+     */
+    private boolean readExisting() throws IOException {
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                lines++;
+                JsonElement element;
+                try {
+                    element = JsonParser.parseString(line);
+                } catch (JsonParseException | IllegalStateException e) {
+                    // Partially written record from a killed process
+                    continue;
+                }
+                if (!element.isJsonObject()) {
+                    continue;
+                }
+                JsonObject record = element.getAsJsonObject();
+                if (record.has("ack")) {
+                    JsonArray acks = array(record, "ack");
+                    if (acks != null) {
+                        for (JsonElement seq : acks) {
+                            if (isNumber(seq)) {
+                                pending.remove(seq.getAsLong());
+                            }
+                        }
+                    }
+                } else if (isNumber(record.get("seq"))) {
+                    long seq = record.get("seq").getAsLong();
+                    pending.put(seq, decode(record));
+                    nextSeq = Math.max(nextSeq, seq + 1);
+                }
+                // Records without a sequence number or acknowledgements are not ours and are dropped on compaction
+            }
+        }
+        return lines > pending.size();
+    }
+
+    /**
+     * Rewrites the file with only the pending records, keeping their sequence numbers.
+     */
+    private void compact() throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<Long, UnifiedTestResult> entry : pending.entrySet()) {
+            content.append(encode(entry.getKey(), entry.getValue())).append('\n');
+        }
+        Files.write(temp.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String encode(long seq, UnifiedTestResult result) throws IOException {
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter json = new JsonWriter(buffer)) {
+            json.beginObject();
+            json.name("seq").value(seq);
+            json.name("name").value(result.getName());
+            json.name("status").value(result.getStatus());
+            json.name("start").value(toMillis(result.getStartTime()));
+            json.name("end").value(toMillis(result.getEndTime()));
+            json.name("failure").value(result.getFailureMessage());
+            json.name("trace").value(result.getStackTrace());
+            json.name("metadata").beginObject();
+            for (Map.Entry<String, String> entry : result.getMetadata().entrySet()) {
+                json.name(entry.getKey()).value(entry.getValue());
+            }
+            json.endObject();
+            json.name("steps").beginArray();
+            for (UnifiedTestResult.TestStep step : result.getSteps()) {
+                json.beginObject();
+                json.name("name").value(step.getName());
+                json.name("status").value(step.getStatus());
+                json.name("start").value(toMillis(step.getStartTime()));
+                json.name("end").value(toMillis(step.getEndTime()));
+                json.name("failure").value(step.getFailureMessage());
+                json.name("trace").value(step.getStackTrace());
+                json.endObject();
+            }
+            json.endArray();
+            json.name("attachments").beginArray();
+            for (UnifiedTestResult.Attachment attachment : result.getAttachments()) {
+                json.beginObject();
+                json.name("name").value(attachment.getName());
+                json.name("type").value(attachment.getType());
+                json.name("path").value(attachment.getPath() != null ? attachment.getPath().toString() : null);
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+        return buffer.toString();
+    }
+
+    private static UnifiedTestResult decode(JsonObject record) {
+        UnifiedTestResult result = new UnifiedTestResult(string(record, "name"), string(record, "status"),
+            instant(record, "start"), instant(record, "end"), string(record, "failure"), string(record, "trace"));
+        JsonElement metadata = record.get("metadata");
+        if (metadata != null && metadata.isJsonObject()) {
+            for (String key : metadata.getAsJsonObject().keySet()) {
+                result.addMetadata(key, string(metadata.getAsJsonObject(), key));
+            }
+        }
+        JsonArray steps = array(record, "steps");
+        if (steps != null) {
+            for (JsonElement element : steps) {
+                if (!element.isJsonObject()) {
+                    continue;
+                }
+                JsonObject step = element.getAsJsonObject();
+                result.addStep(new UnifiedTestResult.TestStep(string(step, "name"), string(step, "status"),
+                    instant(step, "start"), instant(step, "end"), string(step, "failure"), string(step, "trace")));
+            }
+        }
+        JsonArray attachments = array(record, "attachments");
+        if (attachments != null) {
+            for (JsonElement element : attachments) {
+                if (!element.isJsonObject()) {
+                    continue;
+                }
+                JsonObject attachment = element.getAsJsonObject();
+                String path = string(attachment, "path");
+                result.addAttachment(new UnifiedTestResult.Attachment(string(attachment, "name"), string(attachment, "type"),
+                    path != null ? Paths.get(path) : null));
+            }
+        }
+        return result;
+    }
+
+    private static Long toMillis(Instant instant) {
+        return instant != null ? instant.toEpochMilli() : null;
+    }
+
+    private static String string(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+
+    private static Instant instant(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        return isNumber(value) ? Instant.ofEpochMilli(value.getAsLong()) : null;
+    }
+
+    private static JsonArray array(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        return value != null && value.isJsonArray() ? value.getAsJsonArray() : null;
+    }
+
+    private static boolean isNumber(JsonElement value) {
+        return value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber();
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Last status pushed for every test of one system and cycle, kept between builds so a differential sync can skip
+ * results whose verdict did not change. Every few builds, or once the last full sync is too old, a full sync pushes
+ * everything again; completing it also forgets tests that no longer ran.
+ */
+class SyncStatusCache {
+    private static final Logger logger = Logging.getLogger(SyncStatusCache.class);
+    private static final int CACHE_VERSION = 1;
+    /** Cache directory name, relative to the state directory */
+    static final String DIR_NAME = "sync";
+
+    private final File file;
+    private final String scope;
+    private final Gson gson = new Gson();
+    private final Map<String, String> statuses = new HashMap<>();
+    private final Set<String> seen = new HashSet<>();
+    private long lastFullSync;
+    private int buildsSinceFullSync;
+    private boolean fullSync;
+
+    /**
+     * @param file the file to persist the cache to
+     * @param scope identifies the system and cycle the statuses belong to
+     * @param fullSyncEveryBuilds every how many builds to push everything, 0 to not count builds
+     * @param fullSyncInterval maximum age of the last full sync, zero to not limit it
+     */
+    SyncStatusCache(File file, String scope, int fullSyncEveryBuilds, Duration fullSyncInterval) {
+        this.file = file;
+        this.scope = scope;
+        boolean loaded = read();
+        long age = System.currentTimeMillis() - lastFullSync;
+        this.fullSync = !loaded
+            || (fullSyncEveryBuilds > 0 && buildsSinceFullSync + 1 >= fullSyncEveryBuilds)
+            || (!fullSyncInterval.isZero() && age >= fullSyncInterval.toMillis());
+    }
+
+    /**
+     * Whether this build pushes every result.
+     */
+    boolean isFullSync() {
+        return fullSync;
+    }
+
+    /**
+     * Whether a result can be skipped because its status was already pushed.
+     */
+    synchronized boolean isUnchanged(String name, String status) {
+        seen.add(name);
+        return !fullSync && status != null && status.equals(statuses.get(name));
+    }
+
+    /**
+     * Records the status of a pushed result.
+     */
+    synchronized void update(String name, String status) {
+        seen.add(name);
+        statuses.put(name, status);
+    }
+
+    /**
+     * Persists the cache at the end of a build.
+     * @param succeeded whether every result of the build was pushed; only then does a full sync count as done
+     */
+    synchronized void save(boolean succeeded) {
+        CacheFile data = new CacheFile();
+        data.version = CACHE_VERSION;
+        data.scope = scope;
+        if (fullSync && succeeded) {
+            statuses.keySet().retainAll(seen);
+            data.lastFullSync = System.currentTimeMillis();
+            data.buildsSinceFullSync = 0;
+        } else {
+            data.lastFullSync = lastFullSync;
+            data.buildsSinceFullSync = buildsSinceFullSync + 1;
+        }
+        data.statuses = statuses;
+        try {
+            file.getParentFile().mkdirs();
+            File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                gson.toJson(data, writer);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("UnifiedTest: could not write sync status cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    private boolean read() {
+        if (!file.isFile()) {
+            return false;
+        }
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            CacheFile data = gson.fromJson(reader, CacheFile.class);
+            if (data == null || data.version != CACHE_VERSION || !scope.equals(data.scope) || data.statuses == null) {
+                return false;
+            }
+            statuses.putAll(data.statuses);
+            lastFullSync = data.lastFullSync;
+            buildsSinceFullSync = data.buildsSinceFullSync;
+            return true;
+        } catch (IOException | JsonParseException e) {
+            logger.warn("UnifiedTest: ignoring unreadable sync status cache {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private static final class CacheFile {
+        int version;
+        String scope;
+        long lastFullSync;
+        int buildsSinceFullSync;
+        Map<String, String> statuses;
+    }
+}
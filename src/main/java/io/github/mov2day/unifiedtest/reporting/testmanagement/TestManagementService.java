@@ -0,0 +1,161 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension;
+import io.github.mov2day.unifiedtest.reporting.HttpClientService;
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Build service hosting the test management systems of a build. Systems that report into the same run, as told by
+ * {@link TestManagementSystem#getRunKey()}, are created once and shared by all test tasks of all projects, so a build
+ * creates one test run or cycle per system instead of one per test task, and looks up its cases once. Test tasks
+ * push what they queued with {@link TestManagementSystem#pushQueuedResults()}; the runs are completed once, when the
+ * build finishes. A shared system keeps its outbox, metrics and sync state in the {@code stateDirectory} of the
+ * project that first used it, so {@code unifiedTestPushPending} of that project sends what the run could not deliver.
+ * The service also owns the build's {@link PushBudget}, so all test tasks draw on the same push time
+ * and circuit breakers.
+ */
+public abstract class TestManagementService implements BuildService<TestManagementService.Params>, AutoCloseable {
+    /** Name the service is registered under */
+    public static final String NAME = "unifiedTestManagement";
+
+    private static final Logger logger = Logging.getLogger(TestManagementService.class);
+
+    private final Map<String, TestManagementSystem> systems = new LinkedHashMap<>();
+    private HttpClientService httpClient;
+    private TestManagementSystemFactory factory;
+    private PushBudget pushBudget;
+
+    /**
+     * Parameters of the service.
+     */
+    public interface Params extends BuildServiceParameters {
+        /**
+         * The service providing the HTTP client the systems use.
+         */
+        Property<HttpClientService> getHttpClient();
+
+        /**
+         * Seconds all pushes of the build may take together, 0 for no limit.
+         */
+        Property<Integer> getPushBudgetSeconds();
+    }
+
+    /**
+     * Registers the service, or returns the one registered by another project.
+     * @param project the project applying the plugin
+     * @param httpClient the build's HTTP client service
+     * @param pushBudgetSeconds the push budget, used if this project registers the service
+     * @return the service provider
+     */
+    public static Provider<TestManagementService> register(Project project, Provider<HttpClientService> httpClient,
+                                                           Provider<Integer> pushBudgetSeconds) {
+        return project.getGradle().getSharedServices().registerIfAbsent(NAME, TestManagementService.class, spec -> {
+            spec.getParameters().getHttpClient().set(httpClient);
+            spec.getParameters().getPushBudgetSeconds().set(pushBudgetSeconds);
+        });
+    }
+
+    /**
+     * Gets the push budget of the build, created on first use.
+     * @return the budget
+     */
+    public synchronized PushBudget getPushBudget() {
+        if (pushBudget == null) {
+            pushBudget = new PushBudget(Duration.ofSeconds(Math.max(0, getParameters().getPushBudgetSeconds().getOrElse(0))));
+        }
+        return pushBudget;
+    }
+
+    /**
+     * Gets the systems configured by a project's extension, creating those not yet used in this build.
+     * A system is looked up by the run key of its configuration first, so only the first test task creates it.
+     * Systems that are not configured correctly are returned too, but not shared.
+     * @param extension the project's test management configuration
+     * @return the project's systems
+     */
+    public synchronized List<TestManagementSystem> getSystems(TestManagementExtension extension) {
+        List<TestManagementSystem> result = new ArrayList<>();
+        if (!extension.getEnabled().get()) {
+            return result;
+        }
+        for (TestManagementExtension.TestManagementSystem config : extension.getSystems()) {
+            String runKey = factory().runKeyOf(config.getType(), config.getConfig());
+            TestManagementSystem shared = runKey != null ? systems.get(runKey) : null;
+            if (shared != null) {
+                result.add(shared);
+                continue;
+            }
+            TestManagementSystem system = factory().createSystem(config.getType());
+            if (system == null) {
+                continue;
+            }
+            system.initialize(config.getConfig());
+            if (system.isConfigured()) {
+                systems.putIfAbsent(system.getRunKey(), system);
+            }
+            result.add(system);
+        }
+        return result;
+    }
+
+    /**
+     * Pushes what is left and completes the run of every system used in this build.
+     */
+    @Override
+    public void close() {
+        List<TestManagementSystem> used;
+        HttpClientService client;
+        PushBudget budget;
+        synchronized (this) {
+            used = new ArrayList<>(systems.values());
+            budget = pushBudget;
+            systems.clear();
+            client = httpClient;
+            httpClient = null;
+            factory = null;
+        }
+        try {
+            for (TestManagementSystem system : used) {
+                try {
+                    system.flushResults();
+                    OperationStatus status = system.getLastStatus();
+                    if (status != null && !status.isSuccess()) {
+                        logger.error("Failed to complete the test run in {}: {}", system.getName(), status.getMessage());
+                    } else {
+                        logger.info("UnifiedTest: completed the test run in {}", system.getName());
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to complete the test run in {}: {}", system.getName(), e.getMessage());
+                }
+            }
+        } finally {
+            if (budget != null && budget.isLimited()) {
+                logger.info("UnifiedTest: pushes took {} s of the push budget", budget.getSpent().toSeconds());
+            }
+            if (client != null) {
+                client.release();
+            }
+        }
+    }
+
+    private TestManagementSystemFactory factory() {
+        if (factory == null) {
+            httpClient = getParameters().getHttpClient().get();
+            httpClient.retain();
+            HttpClientService service = httpClient;
+            factory = new TestManagementSystemFactory(service::getClient, this::getPushBudget);
+        }
+        return factory;
+    }
+}
@@ -30,16 +30,42 @@ public interface TestManagementSystem {
     Map<String, String> pushResults(List<UnifiedTestResult> results);
 
     /**
-     * Flush any queued results to the test management system.
+     * Flush any queued results to the test management system and complete the current test run.
      */
     void flushResults();
 
+    /**
+     * Push queued results into the current test run without completing it, so results queued later in the build
+     * are reported into the same run. Systems that cannot keep a run open flush instead.
+     */
+    default void pushQueuedResults() {
+        flushResults();
+    }
+
+    /**
+     * Push the results that earlier builds recorded in the outbox but never got acknowledged,
+     * without running any tests. Systems without an outbox have nothing pending.
+     * @return number of results pushed
+     */
+    default int pushPending() {
+        return 0;
+    }
+
     /**
      * Get the name of the test management system.
      * @return System name (e.g., "zephyr", "testrail")
      */
     String getName();
 
+    /**
+     * Identifies the test run or cycle this system reports into. Systems with the same key, e.g. configured by
+     * several projects of a build, share one run per build.
+     * @return the run key
+     */
+    default String getRunKey() {
+        return getName();
+    }
+
     /**
      * Check if the test management system is properly configured.
      * @return true if the system is configured and ready to use
@@ -51,4 +77,13 @@ public interface TestManagementSystem {
      * @return Status object containing success/failure information and any error messages
      */
     OperationStatus getLastStatus();
+
+    /**
+     * Get the request and batch metrics collected since the system was created. Systems that do not record
+     * metrics report none.
+     * @return the metrics, updated live
+     */
+    default PushMetrics getMetrics() {
+        return new PushMetrics();
+    }
 } 
\ No newline at end of file
@@ -1,18 +1,41 @@
 package io.github.mov2day.unifiedtest.reporting.testmanagement;
 
 import io.github.mov2day.unifiedtest.extension.TestManagementExtension;
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension.TestRailConfig;
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension.ZephyrConfig;
+import io.github.mov2day.unifiedtest.reporting.SharedHttpClient;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Factory class for creating and managing test management system instances.
  */
 public class TestManagementSystemFactory {
     private final Map<String, TestManagementSystem> systems;
+    private final Supplier<SharedHttpClient> httpClient;
+    private final Supplier<PushBudget> pushBudget;
 
     public TestManagementSystemFactory() {
+        this(SharedHttpClient::getDefault);
+    }
+
+    /**
+     * @param httpClient supplies the client all systems send through; called when systems are initialized
+     */
+    public TestManagementSystemFactory(Supplier<SharedHttpClient> httpClient) {
+        this(httpClient, PushBudget::unlimited);
+    }
+
+    /**
+     * @param httpClient supplies the client all systems send through; called when systems are initialized
+     * @param pushBudget supplies the push budget and circuit breakers shared by the build
+     */
+    public TestManagementSystemFactory(Supplier<SharedHttpClient> httpClient, Supplier<PushBudget> pushBudget) {
         this.systems = new HashMap<>();
+        this.httpClient = httpClient;
+        this.pushBudget = pushBudget;
     }
 
     /**
@@ -50,14 +73,36 @@ public class TestManagementSystemFactory {
         return List.copyOf(systems.values());
     }
 
-    private TestManagementSystem createSystem(String type) {
+    /**
+     * Builds the run key a system of the given type would have, without creating it.
+     * @param type System type (e.g., "zephyr", "testrail")
+     * @param config the system's configuration
+     * @return the run key, or null if the type is unknown or the configuration does not identify a run
+     */
+    public String runKeyOf(String type, Object config) {
+        switch (type.toLowerCase()) {
+            case "zephyr":
+                return config instanceof ZephyrConfig ? ZephyrTestManagementSystem.runKeyOf((ZephyrConfig) config) : null;
+            case "testrail":
+                return config instanceof TestRailConfig ? TestRailManagementSystem.runKeyOf((TestRailConfig) config) : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Create an uninitialized test management system of the given type.
+     * @param type System type (e.g., "zephyr", "testrail")
+     * @return TestManagementSystem instance or null if the type is unknown
+     */
+    public TestManagementSystem createSystem(String type) {
         switch (type.toLowerCase()) {
             case "zephyr":
-                return new ZephyrTestManagementSystem();
+                return new ZephyrTestManagementSystem(httpClient.get(), pushBudget.get());
             case "testrail":
-                return new TestRailManagementSystem();
+                return new TestRailManagementSystem(httpClient.get(), pushBudget.get());
             default:
                 return null;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,273 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalog of the test cases of one TestRail suite, indexed by title and by {@code custom_automation_id}.
+ * The catalog is fetched page by page (TestRail returns at most 250 cases per request) and cached on disk.
+ * Within the TTL the cached catalog is used without any request; after it, only cases updated since the last
+ * sync are fetched. A catalog that turns out to be stale can be {@link #invalidate() invalidated}, which forces
+ * a full fetch on the next {@link #load()}.
+ */
+class TestRailCaseCatalog {
+    private static final Logger logger = Logging.getLogger(TestRailCaseCatalog.class);
+    private static final int CACHE_VERSION = 1;
+    /** Maximum page size accepted by get_cases */
+    static final int PAGE_SIZE = 250;
+
+    /**
+     * Performs a GET against the TestRail API.
+     */
+    @FunctionalInterface
+    interface Fetcher {
+        /**
+         * @param route the API route after {@code /api/v2/}, including query filters
+         * @return the parsed response body
+         */
+        JsonElement get(String route) throws Exception;
+    }
+
+    private final Fetcher fetcher;
+    private final String projectId;
+    private final String suiteId;
+    private final File cacheFile;
+    private final Duration ttl;
+    private final Gson gson = new Gson();
+
+    private final Map<Long, CaseEntry> cases = new LinkedHashMap<>();
+    private final Map<String, Long> byTitle = new HashMap<>();
+    private final Map<String, Long> byAutomationId = new HashMap<>();
+    private long syncedAt;
+    private boolean loaded;
+    private boolean fromCache;
+    private boolean dirty;
+
+    /**
+     * @param cacheFile the file to persist the catalog to, or null to keep it in memory only
+     * @param ttl how long a cached catalog is used without revalidation
+     */
+    TestRailCaseCatalog(Fetcher fetcher, String projectId, String suiteId, File cacheFile, Duration ttl) {
+        this.fetcher = fetcher;
+        this.projectId = projectId;
+        this.suiteId = suiteId;
+        this.cacheFile = cacheFile;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Makes the catalog current: a no-op once loaded, otherwise served from the cache, revalidated incrementally,
+     * or fetched in full, in that order of preference.
+     */
+    void load() throws Exception {
+        if (loaded) {
+            return;
+        }
+        long now = System.currentTimeMillis() / 1000;
+        if (readCache()) {
+            if (now - syncedAt < ttl.getSeconds()) {
+                fromCache = true;
+                loaded = true;
+                return;
+            }
+            // TestRail filters on whole seconds; overlap by one so edits in the sync second are not missed
+            fetchPages("&updated_after=" + (syncedAt - 1));
+        } else {
+            clear();
+            fetchPages("");
+        }
+        syncedAt = now;
+        fromCache = false;
+        loaded = true;
+        dirty = true;
+    }
+
+    /**
+     * Finds a case by automation id first, then by title.
+     * @return the case id, or null if the suite has no such case
+     */
+    String find(String automationId, String title) {
+        Long id = automationId != null ? byAutomationId.get(automationId) : null;
+        if (id == null && title != null) {
+            id = byTitle.get(title);
+        }
+        return id != null ? String.valueOf(id) : null;
+    }
+
+    /**
+     * Records a case created during this push, so it is found by later lookups and builds.
+     */
+    void put(long id, String title, String automationId) {
+        index(new CaseEntry(id, title, automationId));
+        dirty = true;
+    }
+
+    /**
+     * Whether the current contents were taken from the disk cache without contacting TestRail.
+     */
+    boolean isFromCache() {
+        return fromCache;
+    }
+
+    /**
+     * Discards the catalog, in memory and on disk, so the next {@link #load()} fetches it in full.
+     * TestRail reports no deletions, so this is how a cache that references deleted cases recovers.
+     */
+    void invalidate() {
+        clear();
+        loaded = false;
+        fromCache = false;
+        dirty = false;
+        if (cacheFile != null) {
+            cacheFile.delete();
+        }
+    }
+
+    int size() {
+        return cases.size();
+    }
+
+    /**
+     * Writes the catalog to the cache file if it changed since it was loaded.
+     */
+    void save() {
+        if (!dirty || cacheFile == null) {
+            return;
+        }
+        CacheFile data = new CacheFile();
+        data.version = CACHE_VERSION;
+        data.projectId = projectId;
+        data.suiteId = suiteId;
+        data.syncedAt = syncedAt;
+        data.cases = new ArrayList<>(cases.values());
+        try {
+            cacheFile.getParentFile().mkdirs();
+            File temp = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                gson.toJson(data, writer);
+            }
+            Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            logger.warn("UnifiedTest: could not write TestRail case cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    private void fetchPages(String filter) throws Exception {
+        String route = "get_cases/" + projectId + "&suite_id=" + suiteId + filter + "&limit=" + PAGE_SIZE;
+        int offset = 0;
+        while (true) {
+            JsonElement response = fetcher.get(route + "&offset=" + offset);
+            JsonArray page;
+            boolean hasNext;
+            if (response.isJsonArray()) {
+                // TestRail before 6.7 returns the whole suite as a bare array
+                page = response.getAsJsonArray();
+                hasNext = false;
+            } else {
+                JsonObject body = response.getAsJsonObject();
+                page = body.getAsJsonArray("cases");
+                JsonElement links = body.get("_links");
+                hasNext = links != null && links.isJsonObject()
+                    && links.getAsJsonObject().has("next") && !links.getAsJsonObject().get("next").isJsonNull();
+            }
+            for (JsonElement element : page) {
+                JsonObject testCase = element.getAsJsonObject();
+                index(new CaseEntry(testCase.get("id").getAsLong(), stringOrNull(testCase, "title"),
+                    stringOrNull(testCase, "custom_automation_id")));
+            }
+            if (!hasNext || page.size() == 0) {
+                return;
+            }
+            offset += page.size();
+        }
+    }
+
+    private void index(CaseEntry entry) {
+        CaseEntry previous = cases.put(entry.id, entry);
+        if (previous != null) {
+            // A renamed case must no longer be found under its old title
+            byTitle.remove(previous.title, previous.id);
+            byAutomationId.remove(previous.automationId, previous.id);
+        }
+        if (entry.title != null) {
+            byTitle.putIfAbsent(entry.title, entry.id);
+        }
+        if (entry.automationId != null && !entry.automationId.isEmpty()) {
+            byAutomationId.putIfAbsent(entry.automationId, entry.id);
+        }
+    }
+
+    private void clear() {
+        cases.clear();
+        byTitle.clear();
+        byAutomationId.clear();
+        syncedAt = 0;
+    }
+
+    private boolean readCache() {
+        if (cacheFile == null || !cacheFile.isFile()) {
+            return false;
+        }
+        try (Reader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+            CacheFile data = gson.fromJson(reader, CacheFile.class);
+            if (data == null || data.version != CACHE_VERSION || !projectId.equals(data.projectId)
+                || !suiteId.equals(data.suiteId) || data.cases == null) {
+                return false;
+            }
+            clear();
+            for (CaseEntry entry : data.cases) {
+                index(entry);
+            }
+            syncedAt = data.syncedAt;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.info("UnifiedTest: ignoring unreadable TestRail case cache {}: {}", cacheFile, e.getMessage());
+            clear();
+            return false;
+        }
+    }
+
+    private static String stringOrNull(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    private static final class CaseEntry {
+        long id;
+        String title;
+        String automationId;
+
+        CaseEntry(long id, String title, String automationId) {
+            this.id = id;
+            this.title = title;
+            this.automationId = automationId;
+        }
+    }
+
+    private static final class CacheFile {
+        int version;
+        String projectId;
+        String suiteId;
+        long syncedAt;
+        List<CaseEntry> cases;
+    }
+}
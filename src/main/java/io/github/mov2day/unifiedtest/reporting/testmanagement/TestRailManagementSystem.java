@@ -1,11 +1,15 @@
 package io.github.mov2day.unifiedtest.reporting.testmanagement;
 
+import io.github.mov2day.unifiedtest.reporting.SharedHttpClient;
 import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
 import io.github.mov2day.unifiedtest.extension.TestManagementExtension.TestRailConfig;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
-import java.net.http.HttpClient;
+import java.util.Set;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.URI;
@@ -14,6 +18,7 @@ import java.util.Base64;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonArray;
 
@@ -28,18 +33,27 @@ public class TestRailManagementSystem extends AbstractTestManagementSystem {
     private static final int STATUS_SKIPPED = 6;
     private static final int STATUS_BLOCKED = 2;
 
-    private HttpClient httpClient;
     private String baseUrl;
     private String apiKey;
     private String projectId;
     private String suiteId;
     private boolean createTestCases;
+    private int batchSize;
+    private TestRailCaseCatalog catalog;
+    private String runId;
+    private final Set<String> runCaseIds = new LinkedHashSet<>();
     private Gson gson;
 
     public TestRailManagementSystem() {
-        this.httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+        this(SharedHttpClient.getDefault());
+    }
+
+    public TestRailManagementSystem(SharedHttpClient httpClient) {
+        this(httpClient, PushBudget.unlimited());
+    }
+
+    public TestRailManagementSystem(SharedHttpClient httpClient, PushBudget pushBudget) {
+        super(httpClient, pushBudget);
         this.gson = new Gson();
     }
 
@@ -62,6 +76,13 @@ public class TestRailManagementSystem extends AbstractTestManagementSystem {
         this.projectId = testRailConfig.getProjectId().get();
         this.suiteId = testRailConfig.getSuiteId().get();
         this.createTestCases = testRailConfig.getCreateTestCases().getOrElse(false);
+        this.batchSize = Math.max(1, testRailConfig.getBatchSize().getOrElse(250));
+
+        File cacheFile = testRailConfig.getCacheDirectory().isPresent()
+            ? testRailConfig.getCacheDirectory().file("testrail-cases-" + projectId + "-" + suiteId + ".json").get().getAsFile()
+            : null;
+        Duration ttl = Duration.ofMinutes(Math.max(0, testRailConfig.getCaseCacheTtlMinutes().getOrElse(60)));
+        this.catalog = new TestRailCaseCatalog(this::get, projectId, suiteId, cacheFile, ttl);
 
         return true;
     }
@@ -69,23 +90,111 @@ public class TestRailManagementSystem extends AbstractTestManagementSystem {
     @Override
     protected Map<String, String> doPushResults(List<UnifiedTestResult> results) throws Exception {
         Map<String, String> testIds = new HashMap<>();
-        String runId = createTestRun();
+        List<UnifiedTestResult> matched = new ArrayList<>(results.size());
+        List<String> caseIds = new ArrayList<>(results.size());
+        catalog.load();
+        try {
+            for (UnifiedTestResult result : results) {
+                String caseId = getOrCreateTestCase(result);
+                if (caseId == null) {
+                    continue;
+                }
+                testIds.put(result.getName(), caseId);
+                matched.add(result);
+                caseIds.add(caseId);
+            }
+        } finally {
+            catalog.save();
+        }
+        if (matched.size() < results.size()) {
+            logger.warn("UnifiedTest: {} results have no TestRail case and createTestCases is off; they are not reported",
+                results.size() - matched.size());
+        }
+        if (matched.isEmpty()) {
+            return testIds;
+        }
 
-        for (UnifiedTestResult result : results) {
-            String caseId = getOrCreateTestCase(result);
-            testIds.put(result.getName(), caseId);
-            addTestResult(caseId, runId, result);
+        // The run only includes the cases being reported, and results are sent in chunks rather than one request each
+        try {
+            ensureTestRun(caseIds);
+        } catch (Exception e) {
+            if (catalog.isFromCache()) {
+                // The cached catalog may reference cases deleted since; the retry starts from a full fetch
+                catalog.invalidate();
+            }
+            throw e;
+        }
+        // Each accepted chunk is checkpointed, so a failure part way only resends the later chunks into this run
+        for (int from = 0; from < matched.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, matched.size());
+            List<UnifiedTestResult> chunk = matched.subList(from, to);
+            addTestResults(runId, chunk, caseIds.subList(from, to));
+            Map<String, String> chunkIds = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                chunkIds.put(matched.get(i).getName(), caseIds.get(i));
+            }
+            markDelivered(chunk, chunkIds);
         }
 
         return testIds;
     }
 
-    private String createTestRun() throws Exception {
+    /**
+     * Creates the run of this push on its first batch; later batches extend its case selection when they bring new cases.
+     */
+    private String ensureTestRun(List<String> caseIds) throws Exception {
+        if (runId == null) {
+            Set<String> cases = new LinkedHashSet<>(caseIds);
+            runId = createTestRun(cases);
+            runCaseIds.addAll(cases);
+        } else if (!runCaseIds.containsAll(caseIds)) {
+            Set<String> cases = new LinkedHashSet<>(runCaseIds);
+            cases.addAll(caseIds);
+            updateTestRun(cases);
+            runCaseIds.addAll(cases);
+        }
+        return runId;
+    }
+
+    @Override
+    protected void completeRun() {
+        runId = null;
+        runCaseIds.clear();
+    }
+
+    private static JsonArray toJsonIds(Set<String> caseIds) {
+        JsonArray cases = new JsonArray();
+        for (String caseId : caseIds) {
+            cases.add(Long.parseLong(caseId));
+        }
+        return cases;
+    }
+
+    private void updateTestRun(Set<String> caseIds) throws Exception {
+        JsonObject run = new JsonObject();
+        run.addProperty("include_all", false);
+        run.add("case_ids", toJsonIds(caseIds));
+
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(baseUrl + "/index.php?/api/" + API_VERSION + "/update_run/" + runId))
+            .header("Authorization", "Basic " + Base64.getEncoder().encodeToString((apiKey + ":password").getBytes()))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(run)))
+            .build();
+
+        HttpResponse<String> response = send(request);
+        if (response.statusCode() != 200) {
+            throw new Exception("Failed to update test run: " + response.body());
+        }
+    }
+
+    private String createTestRun(Set<String> caseIds) throws Exception {
         JsonObject run = new JsonObject();
         run.addProperty("suite_id", suiteId);
         run.addProperty("name", "Automated Test Run");
         run.addProperty("description", "Test run created by UnifiedTest");
-        run.addProperty("include_all", true);
+        run.addProperty("include_all", false);
+        run.add("case_ids", toJsonIds(caseIds));
 
         HttpRequest request = HttpRequest.newBuilder()
             .uri(URI.create(baseUrl + "/index.php?/api/" + API_VERSION + "/add_run/" + projectId))
@@ -94,7 +203,7 @@ public class TestRailManagementSystem extends AbstractTestManagementSystem {
             .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(run)))
             .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = send(request);
         if (response.statusCode() != 200) {
             throw new Exception("Failed to create test run: " + response.body());
         }
@@ -104,24 +213,9 @@ public class TestRailManagementSystem extends AbstractTestManagementSystem {
     }
 
     private String getOrCreateTestCase(UnifiedTestResult result) throws Exception {
-        if (!createTestCases) {
-            // Search for existing test case
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/index.php?/api/" + API_VERSION + "/get_cases/" + projectId + "&suite_id=" + suiteId))
-                .header("Authorization", "Basic " + Base64.getEncoder().encodeToString((apiKey + ":password").getBytes()))
-                .GET()
-                .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() == 200) {
-                JsonArray cases = gson.fromJson(response.body(), JsonArray.class);
-                for (int i = 0; i < cases.size(); i++) {
-                    JsonObject testCase = cases.get(i).getAsJsonObject();
-                    if (result.getName().equals(testCase.get("title").getAsString())) {
-                        return testCase.get("id").getAsString();
-                    }
-                }
-            }
+        String caseId = catalog.find(result.getName(), result.getName());
+        if (caseId != null || !createTestCases) {
+            return caseId;
         }
 
         // Create new test case
@@ -138,31 +232,97 @@ public class TestRailManagementSystem extends AbstractTestManagementSystem {
             .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(testCase)))
             .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = send(request);
         if (response.statusCode() != 200) {
             throw new Exception("Failed to create test case: " + response.body());
         }
 
         JsonObject responseJson = gson.fromJson(response.body(), JsonObject.class);
-        return responseJson.get("id").getAsString();
+        long id = responseJson.get("id").getAsLong();
+        catalog.put(id, result.getName(), null);
+        return String.valueOf(id);
     }
 
-    private void addTestResult(String caseId, String runId, UnifiedTestResult result) throws Exception {
-        JsonObject testResult = new JsonObject();
-        testResult.addProperty("status_id", convertStatus(result.getStatus()));
-        testResult.addProperty("comment", result.getFailureMessage() != null ? result.getFailureMessage() : "");
+    private JsonElement get(String route) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(baseUrl + "/index.php?/api/" + API_VERSION + "/" + route))
+            .header("Authorization", "Basic " + Base64.getEncoder().encodeToString((apiKey + ":password").getBytes()))
+            .GET()
+            .build();
+
+        HttpResponse<String> response = send(request);
+        if (response.statusCode() != 200) {
+            throw new Exception("Failed to read " + route + ": " + response.body());
+        }
+        return gson.fromJson(response.body(), JsonElement.class);
+    }
+
+    private void addTestResults(String runId, List<UnifiedTestResult> results, List<String> caseIds) throws Exception {
+        JsonArray entries = new JsonArray();
+        for (int i = 0; i < results.size(); i++) {
+            UnifiedTestResult result = results.get(i);
+            JsonObject testResult = new JsonObject();
+            testResult.addProperty("case_id", Long.parseLong(caseIds.get(i)));
+            testResult.addProperty("status_id", Integer.parseInt(convertStatus(result.getStatus())));
+            testResult.addProperty("comment", result.getFailureMessage() != null ? result.getFailureMessage() : "");
+            String elapsed = elapsedOf(result);
+            if (elapsed != null) {
+                testResult.addProperty("elapsed", elapsed);
+            }
+            entries.add(testResult);
+        }
+        JsonObject body = new JsonObject();
+        body.add("results", entries);
 
         HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(baseUrl + "/index.php?/api/" + API_VERSION + "/add_result_for_case/" + runId + "/" + caseId))
+            .uri(URI.create(baseUrl + "/index.php?/api/" + API_VERSION + "/add_results_for_cases/" + runId))
             .header("Authorization", "Basic " + Base64.getEncoder().encodeToString((apiKey + ":password").getBytes()))
             .header("Content-Type", "application/json")
-            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(testResult)))
+            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(body)))
             .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = send(request);
         if (response.statusCode() != 200) {
-            throw new Exception("Failed to add test result: " + response.body());
+            throw new Exception("Failed to add test results: " + response.body());
+        }
+    }
+
+    /**
+     * TestRail timespans have a resolution of one second and reject "0s", so shorter tests carry no elapsed time.
+     */
+    private static String elapsedOf(UnifiedTestResult result) {
+        if (result.getStartTime() == null || result.getEndTime() == null) {
+            return null;
         }
+        long seconds = Duration.between(result.getStartTime(), result.getEndTime()).getSeconds();
+        return seconds > 0 ? seconds + "s" : null;
+    }
+
+    @Override
+    protected String getSyncScope() {
+        return projectId + "-" + suiteId;
+    }
+
+    @Override
+    public String getRunKey() {
+        return runKey(baseUrl, projectId, suiteId);
+    }
+
+    /**
+     * Builds the run key of a configuration without creating a system.
+     * @param config the TestRail configuration
+     * @return the run key, or null if the configuration lacks a required setting
+     */
+    static String runKeyOf(TestRailConfig config) {
+        if (!config.getServerUrl().isPresent() || !config.getApiKey().isPresent() || !config.getProjectId().isPresent()
+            || !config.getSuiteId().isPresent()) {
+            return null;
+        }
+        return runKey(config.getServerUrl().get(), config.getProjectId().get(), config.getSuiteId().get());
+    }
+
+    private static String runKey(String baseUrl, String projectId, String suiteId) {
+        return "testrail:" + baseUrl + ":" + projectId + "-" + suiteId;
     }
 
     @Override
@@ -1,19 +1,32 @@
 package io.github.mov2day.unifiedtest.reporting.testmanagement;
 
+import io.github.mov2day.unifiedtest.reporting.SharedHttpClient;
 import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
 import io.github.mov2day.unifiedtest.extension.TestManagementExtension.ZephyrConfig;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
-import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.io.IOException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Base64;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonArray;
 
@@ -24,12 +37,14 @@ import com.google.gson.JsonArray;
 public class ZephyrTestManagementSystem extends AbstractTestManagementSystem {
     private static final Logger logger = Logging.getLogger(ZephyrTestManagementSystem.class);
     private static final String CLOUD_API_VERSION = "v2";
+    private static final String DEFAULT_TEST_CYCLE_NAME = "Automated Test Run";
     private static final String STATUS_PASSED = "PASS";
     private static final String STATUS_FAILED = "FAIL";
     private static final String STATUS_SKIPPED = "SKIP";
     private static final String STATUS_BLOCKED = "BLOCKED";
+    /** Names per TQL search, keeping the query URL well below common length limits */
+    private static final int SEARCH_CHUNK = 50;
 
-    private HttpClient httpClient;
     private String baseUrl;
     private String apiKey;
     private String projectKey;
@@ -38,12 +53,24 @@ public class ZephyrTestManagementSystem extends AbstractTestManagementSystem {
     private String apiType;
     private String apiVersion;
     private String username;
+    private int maxConcurrentRequests;
+    private int batchSize;
+    private final Map<String, String> serverCaseKeys = new ConcurrentHashMap<>();
+    private AdaptiveRateLimiter rateLimiter;
+    private String testCycleId;
+    private String testRunKey;
     private Gson gson;
 
     public ZephyrTestManagementSystem() {
-        this.httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+        this(SharedHttpClient.getDefault());
+    }
+
+    public ZephyrTestManagementSystem(SharedHttpClient httpClient) {
+        this(httpClient, PushBudget.unlimited());
+    }
+
+    public ZephyrTestManagementSystem(SharedHttpClient httpClient, PushBudget pushBudget) {
+        super(httpClient, pushBudget);
         this.gson = new Gson();
     }
 
@@ -64,11 +91,15 @@ public class ZephyrTestManagementSystem extends AbstractTestManagementSystem {
         this.baseUrl = zephyrConfig.getServerUrl().get();
         this.apiKey = zephyrConfig.getApiKey().get();
         this.projectKey = zephyrConfig.getProjectKey().get();
-        this.testCycleName = zephyrConfig.getTestCycleName().getOrElse("Automated Test Run");
+        this.testCycleName = zephyrConfig.getTestCycleName().getOrElse(DEFAULT_TEST_CYCLE_NAME);
         this.createTestCases = zephyrConfig.getCreateTestCases().getOrElse(false);
         this.apiType = zephyrConfig.getApiType().get();
         this.apiVersion = zephyrConfig.getApiVersion().get();
         this.username = zephyrConfig.getUsername().getOrElse("");
+        this.maxConcurrentRequests = Math.max(1, zephyrConfig.getMaxConcurrentRequests().getOrElse(8));
+        this.batchSize = Math.max(1, zephyrConfig.getBatchSize().getOrElse(100));
+        int requestsPerSecond = Math.max(1, zephyrConfig.getRequestsPerSecond().getOrElse(20));
+        this.rateLimiter = new AdaptiveRateLimiter(requestsPerSecond, Math.min(requestsPerSecond, maxConcurrentRequests));
 
         if ("server".equals(apiType) && username.isEmpty()) {
             logger.error("Username is required for Zephyr Server API");
@@ -84,197 +115,264 @@ public class ZephyrTestManagementSystem extends AbstractTestManagementSystem {
         
         // For server API, we need to create a test run first and then add all results to it
         if ("server".equals(apiType)) {
-            String testRunKey = createServerTestRun();
-            for (UnifiedTestResult result : results) {
-                String testCaseKey = getOrCreateTestCase(result);
-                testIds.put(result.getName(), testCaseKey);
-                addTestResultToRun(testRunKey, testCaseKey, result);
-            }
-            updateTestRunStatus(testRunKey);
+            pushServerResults(results, testIds);
         } else {
-            // Cloud API handling remains the same
-            String testCycleId = createCloudTestCycle();
-            for (UnifiedTestResult result : results) {
-                String testCaseId = getOrCreateCloudTestCase(result);
-                testIds.put(result.getName(), testCaseId);
-                createCloudTestExecution(testCaseId, testCycleId, result);
+            if (testCycleId == null) {
+                testCycleId = createCloudTestCycle();
             }
+            testIds.putAll(pushCloudResults(testCycleId, results));
         }
         
         return testIds;
     }
 
-    private String createTestCycle() throws Exception {
-        if ("cloud".equals(apiType)) {
-            return createCloudTestCycle();
-        } else {
-            return createServerTestCycle();
+    /**
+     * Pushes results to the server API in bulk: case keys are resolved with batched searches, the first chunk
+     * creates the run with its results as items, and later chunks are added to the run one request each.
+     */
+    private void pushServerResults(List<UnifiedTestResult> results, Map<String, String> testIds) throws Exception {
+        Map<String, String> keys = resolveServerTestCases(new LinkedHashSet<>(names(results)));
+        List<UnifiedTestResult> matched = new ArrayList<>(results.size());
+        List<String> caseKeys = new ArrayList<>(results.size());
+        for (UnifiedTestResult result : results) {
+            String key = keys.get(result.getName());
+            if (key != null) {
+                matched.add(result);
+                caseKeys.add(key);
+                testIds.put(result.getName(), key);
+            }
         }
-    }
-
-    private String createCloudTestCycle() throws Exception {
-        JsonObject cycle = new JsonObject();
-        cycle.addProperty("name", testCycleName);
-        cycle.addProperty("projectKey", projectKey);
-        cycle.addProperty("description", "Test cycle created by UnifiedTest");
-
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(baseUrl + "/" + CLOUD_API_VERSION + "/testcycles"))
-            .header("Authorization", "Bearer " + apiKey)
-            .header("Content-Type", "application/json")
-            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(cycle)))
-            .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 201) {
-            throw new Exception("Failed to create test cycle: " + response.body());
+        if (matched.size() < results.size()) {
+            logger.warn("UnifiedTest: {} results have no Zephyr test case and createTestCases is off; they are not reported",
+                results.size() - matched.size());
         }
 
-        JsonObject responseJson = gson.fromJson(response.body(), JsonObject.class);
-        return responseJson.get("id").getAsString();
+        for (int from = 0; from < matched.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, matched.size());
+            List<UnifiedTestResult> chunk = matched.subList(from, to);
+            if (testRunKey == null) {
+                testRunKey = createServerTestRun(chunk, caseKeys.subList(from, to));
+            } else {
+                addTestResultsToRun(testRunKey, chunk, caseKeys.subList(from, to));
+            }
+            Map<String, String> chunkIds = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                chunkIds.put(matched.get(i).getName(), caseKeys.get(i));
+            }
+            markDelivered(chunk, chunkIds);
+        }
     }
 
-    private String createServerTestCycle() throws Exception {
-        // First, get the project ID
-        String projectId = getProjectId();
-        
-        JsonObject cycle = new JsonObject();
-        cycle.addProperty("name", testCycleName);
-        cycle.addProperty("projectId", projectId);
-        cycle.addProperty("description", "Test cycle created by UnifiedTest");
-        cycle.addProperty("status", "ACTIVE");
-
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(baseUrl + "/rest/atm/1.0/testplan"))
-            .header("Authorization", getAuthHeader())
-            .header("Content-Type", "application/json")
-            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(cycle)))
-            .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 201) {
-            throw new Exception("Failed to create test cycle: " + response.body());
+    private static List<String> names(List<UnifiedTestResult> results) {
+        List<String> names = new ArrayList<>(results.size());
+        for (UnifiedTestResult result : results) {
+            names.add(result.getName());
         }
-
-        JsonObject responseJson = gson.fromJson(response.body(), JsonObject.class);
-        return responseJson.get("id").getAsString();
+        return names;
     }
 
-    private String getProjectId() throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(baseUrl + "/rest/atm/1.0/testcase/search?projectKey=" + projectKey))
-            .header("Authorization", getAuthHeader())
-            .GET()
-            .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 200) {
-            throw new Exception("Failed to get project ID: " + response.body());
+    /**
+     * Marks the server test run as done once its last batch is pushed; the next push starts a new run or cycle.
+     */
+    @Override
+    protected void completeRun() throws Exception {
+        String runKey = testRunKey;
+        testRunKey = null;
+        testCycleId = null;
+        if (runKey != null) {
+            updateTestRunStatus(runKey);
         }
-
-        JsonObject responseJson = gson.fromJson(response.body(), JsonObject.class);
-        return responseJson.get("projectId").getAsString();
     }
 
-    private String getOrCreateTestCase(UnifiedTestResult result) throws Exception {
-        if ("cloud".equals(apiType)) {
-            return getOrCreateCloudTestCase(result);
-        } else {
-            return getOrCreateServerTestCase(result);
+    /**
+     * Pushes results concurrently. Results are grouped by test case: each group resolves its case once and then posts
+     * its executions one after another, so executions of the same case keep their order. At most
+     * {@code maxConcurrentRequests} groups, and therefore requests, are in flight, all paced by the rate limiter.
+     */
+    private Map<String, String> pushCloudResults(String testCycleId, List<UnifiedTestResult> results) throws Exception {
+        Map<String, List<UnifiedTestResult>> byTestCase = new LinkedHashMap<>();
+        for (UnifiedTestResult result : results) {
+            byTestCase.computeIfAbsent(result.getName(), name -> new ArrayList<>()).add(result);
+        }
+
+        Map<String, String> testIds = new ConcurrentHashMap<>();
+        Semaphore window = new Semaphore(maxConcurrentRequests);
+        List<CompletableFuture<Void>> chains = new ArrayList<>(byTestCase.size());
+        try {
+            for (List<UnifiedTestResult> group : byTestCase.values()) {
+                window.acquire();
+                CompletableFuture<Void> chain = getOrCreateCloudTestCaseAsync(group.get(0)).thenCompose(testCaseId -> {
+                    if (testCaseId == null) {
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+                    testIds.put(group.get(0).getName(), testCaseId);
+                    CompletableFuture<Void> executions = CompletableFuture.completedFuture(null);
+                    for (UnifiedTestResult result : group) {
+                        executions = executions
+                            .thenCompose(v -> createCloudTestExecutionAsync(testCaseId, testCycleId, result))
+                            .thenRun(() -> markDelivered(List.of(result), Map.of(result.getName(), testCaseId)));
+                    }
+                    return executions;
+                });
+                chain.whenComplete((v, e) -> window.release());
+                chains.add(chain);
+            }
+            CompletableFuture.allOf(chains.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            chains.forEach(chain -> chain.cancel(true));
+            throw e;
         }
+        return testIds;
     }
 
-    private String getOrCreateCloudTestCase(UnifiedTestResult result) throws Exception {
-        if (!createTestCases) {
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/" + CLOUD_API_VERSION + "/testcases?projectKey=" + projectKey + "&name=" + result.getName()))
-                .header("Authorization", "Bearer " + apiKey)
-                .GET()
-                .build();
+    /**
+     * Sends a request once the rate limiter allows it. Throttled responses are retried after the server's
+     * Retry-After, gateway errors and connection failures after a jittered backoff, as far as
+     * {@link #isRetryable} allows; every other response is handed to the caller. Requests the circuit breaker or
+     * the push budget refuse fail without being sent.
+     */
+    private CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request) {
+        return sendAsync(request, 1);
+    }
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() == 200) {
-                JsonObject responseJson = gson.fromJson(response.body(), JsonObject.class);
-                JsonArray testCases = responseJson.getAsJsonArray("values");
-                if (testCases.size() > 0) {
-                    return testCases.get(0).getAsJsonObject().get("id").getAsString();
+    private CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request, int attempt) {
+        long delay = rateLimiter.reserve();
+        CompletableFuture<HttpResponse<String>> sent = delay == 0
+            ? sendAdmitted(request, attempt)
+            : CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS))
+                .thenCompose(v -> sendAdmitted(request, attempt));
+        boolean lastAttempt = attempt >= MAX_REQUEST_ATTEMPTS;
+        return sent.handle((response, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof PushDivertedException) {
+                    return CompletableFuture.<HttpResponse<String>>failedFuture(cause);
                 }
+                recordOutcome(false);
+                if (!lastAttempt && cause instanceof IOException && isRetryable(request, (IOException) cause)) {
+                    return retryAsync(request, attempt, null);
+                }
+                return CompletableFuture.<HttpResponse<String>>failedFuture(cause);
+            }
+            recordOutcome(isHealthy(response.statusCode()));
+            if (response.statusCode() == 429) {
+                rateLimiter.onThrottle(AdaptiveRateLimiter.retryAfter(response));
+                if (!lastAttempt) {
+                    // The limiter already holds every sender back until Retry-After
+                    return sendAsync(request, attempt + 1);
+                }
+            } else if (isRetryableStatus(response.statusCode())) {
+                if (!lastAttempt) {
+                    return retryAsync(request, attempt, AdaptiveRateLimiter.retryAfter(response));
+                }
+            } else {
+                rateLimiter.onSuccess();
             }
+            return CompletableFuture.completedFuture(response);
+        }).thenCompose(next -> next);
+    }
+
+    private CompletableFuture<HttpResponse<String>> sendAdmitted(HttpRequest request, int attempt) {
+        HttpRequest admitted;
+        try {
+            admitted = admit(request);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> sent;
+        try {
+            sent = httpClient.sendAsync(admitted);
+        } catch (RuntimeException e) {
+            // Fail the future, so the admitted request still reports an outcome to the circuit breaker
+            sent = CompletableFuture.failedFuture(e);
+        }
+        return sent
+            .whenComplete((response, error) -> recordRequest(request, attempt, start, response, error));
+    }
 
-        JsonObject testCase = new JsonObject();
-        testCase.addProperty("name", result.getName());
-        testCase.addProperty("projectKey", projectKey);
-        testCase.addProperty("description", "Test case created by UnifiedTest");
+    private CompletableFuture<HttpResponse<String>> retryAsync(HttpRequest request, int attempt, Duration retryAfter) {
+        long delay;
+        try {
+            delay = delayWithinBudget(backoffMillis(attempt, retryAfter));
+        } catch (PushDivertedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+            .thenCompose(v -> sendAsync(request, attempt + 1));
+    }
+
+    private String createCloudTestCycle() throws Exception {
+        JsonObject cycle = new JsonObject();
+        cycle.addProperty("name", testCycleName);
+        cycle.addProperty("projectKey", projectKey);
+        cycle.addProperty("description", "Test cycle created by UnifiedTest");
 
         HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(baseUrl + "/" + CLOUD_API_VERSION + "/testcases"))
+            .uri(URI.create(baseUrl + "/" + CLOUD_API_VERSION + "/testcycles"))
             .header("Authorization", "Bearer " + apiKey)
             .header("Content-Type", "application/json")
-            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(testCase)))
+            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(cycle)))
             .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = send(request);
         if (response.statusCode() != 201) {
-            throw new Exception("Failed to create test case: " + response.body());
+            throw new Exception("Failed to create test cycle: " + response.body());
         }
 
         JsonObject responseJson = gson.fromJson(response.body(), JsonObject.class);
         return responseJson.get("id").getAsString();
     }
 
-    private String getOrCreateServerTestCase(UnifiedTestResult result) throws Exception {
-        String projectId = getProjectId();
-        
-        if (!createTestCases) {
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/rest/atm/1.0/testcase/search?query=" + result.getName()))
-                .header("Authorization", getAuthHeader())
-                .GET()
-                .build();
+    /**
+     * Looks the test case up by name and creates it if it is missing and {@code createTestCases} is on.
+     * Completes with null when the case neither exists nor may be created.
+     */
+    private CompletableFuture<String> getOrCreateCloudTestCaseAsync(UnifiedTestResult result) {
+        HttpRequest search = HttpRequest.newBuilder()
+            .uri(URI.create(baseUrl + "/" + CLOUD_API_VERSION + "/testcases?projectKey=" + projectKey
+                + "&name=" + URLEncoder.encode(result.getName(), StandardCharsets.UTF_8)))
+            .header("Authorization", "Bearer " + apiKey)
+            .GET()
+            .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return sendAsync(search).thenCompose(response -> {
             if (response.statusCode() == 200) {
                 JsonObject responseJson = gson.fromJson(response.body(), JsonObject.class);
-                JsonArray testCases = responseJson.getAsJsonArray("results");
-                if (testCases.size() > 0) {
-                    return testCases.get(0).getAsJsonObject().get("key").getAsString();
+                JsonArray testCases = responseJson.getAsJsonArray("values");
+                if (testCases != null && testCases.size() > 0) {
+                    return CompletableFuture.completedFuture(testCases.get(0).getAsJsonObject().get("id").getAsString());
                 }
             }
-        }
+            if (!createTestCases) {
+                return CompletableFuture.completedFuture(null);
+            }
 
-        JsonObject testCase = new JsonObject();
-        testCase.addProperty("name", result.getName());
-        testCase.addProperty("projectId", projectId);
-        testCase.addProperty("description", "Test case created by UnifiedTest");
-        testCase.addProperty("status", "ACTIVE");
-        testCase.addProperty("priority", "MEDIUM");
+            JsonObject testCase = new JsonObject();
+            testCase.addProperty("name", result.getName());
+            testCase.addProperty("projectKey", projectKey);
+            testCase.addProperty("description", "Test case created by UnifiedTest");
 
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(baseUrl + "/rest/atm/1.0/testcase"))
-            .header("Authorization", getAuthHeader())
-            .header("Content-Type", "application/json")
-            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(testCase)))
-            .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 201) {
-            throw new Exception("Failed to create test case: " + response.body());
-        }
-
-        JsonObject responseJson = gson.fromJson(response.body(), JsonObject.class);
-        return responseJson.get("key").getAsString();
-    }
+            HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/" + CLOUD_API_VERSION + "/testcases"))
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(testCase)))
+                .build();
 
-    private void createTestExecution(String testCaseId, String testCycleId, UnifiedTestResult result) throws Exception {
-        if ("cloud".equals(apiType)) {
-            createCloudTestExecution(testCaseId, testCycleId, result);
-        } else {
-            createServerTestExecution(testCaseId, testCycleId, result);
-        }
+            return sendAsync(request).thenApply(created -> {
+                if (created.statusCode() != 201) {
+                    throw new CompletionException(new Exception("Failed to create test case: " + created.body()));
+                }
+                return gson.fromJson(created.body(), JsonObject.class).get("id").getAsString();
+            });
+        });
     }
 
-    private void createCloudTestExecution(String testCaseId, String testCycleId, UnifiedTestResult result) throws Exception {
+    private CompletableFuture<Void> createCloudTestExecutionAsync(String testCaseId, String testCycleId, UnifiedTestResult result) {
         JsonObject execution = new JsonObject();
         execution.addProperty("testCaseId", testCaseId);
         execution.addProperty("testCycleId", testCycleId);
@@ -288,13 +386,17 @@ public class ZephyrTestManagementSystem extends AbstractTestManagementSystem {
             .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(execution)))
             .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 201) {
-            throw new Exception("Failed to create test execution: " + response.body());
-        }
+        return sendAsync(request).thenAccept(response -> {
+            if (response.statusCode() != 201) {
+                throw new CompletionException(new Exception("Failed to create test execution: " + response.body()));
+            }
+        });
     }
 
-    private String createServerTestRun() throws Exception {
+    /**
+     * Creates the server test run with the results of the first chunk as its items, in one request.
+     */
+    private String createServerTestRun(List<UnifiedTestResult> results, List<String> testCaseKeys) throws Exception {
         JsonObject testRun = new JsonObject();
         testRun.addProperty("projectKey", projectKey);
         testRun.addProperty("name", testCycleName);
@@ -309,6 +411,7 @@ public class ZephyrTestManagementSystem extends AbstractTestManagementSystem {
         // Add current date as planned start date
         String currentDate = java.time.OffsetDateTime.now().toString();
         testRun.addProperty("plannedStartDate", currentDate);
+        testRun.add("items", toServerResults(results, testCaseKeys));
         
         HttpRequest request = HttpRequest.newBuilder()
             .uri(URI.create(baseUrl + "/rest/atm/1.0/testrun"))
@@ -317,7 +420,7 @@ public class ZephyrTestManagementSystem extends AbstractTestManagementSystem {
             .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(testRun)))
             .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = send(request);
         if (response.statusCode() != 201) {
             throw new Exception("Failed to create test run: " + response.body());
         }
@@ -326,76 +429,143 @@ public class ZephyrTestManagementSystem extends AbstractTestManagementSystem {
         return responseJson.get("key").getAsString();
     }
 
-    private void addTestResultToRun(String testRunKey, String testCaseKey, UnifiedTestResult result) throws Exception {
-        JsonObject testResult = new JsonObject();
-        testResult.addProperty("status", convertStatus(result.getStatus()));
-        testResult.addProperty("comment", result.getFailureMessage() != null ? result.getFailureMessage() : "");
-        testResult.addProperty("userKey", username);
-        testResult.addProperty("executionDate", java.time.OffsetDateTime.now().toString());
+    /**
+     * Adds a chunk of results to an existing server test run in one request.
+     */
+    private void addTestResultsToRun(String testRunKey, List<UnifiedTestResult> results, List<String> testCaseKeys) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(baseUrl + "/rest/atm/1.0/testrun/" + testRunKey + "/testresults"))
+            .header("Authorization", getAuthHeader())
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(toServerResults(results, testCaseKeys))))
+            .build();
 
-        // Add custom fields
+        HttpResponse<String> response = send(request);
+        if (response.statusCode() != 201 && response.statusCode() != 200) {
+            throw new Exception("Failed to add test results: " + response.body());
+        }
+    }
+
+    private JsonArray toServerResults(List<UnifiedTestResult> results, List<String> testCaseKeys) {
+        String executionDate = java.time.OffsetDateTime.now().toString();
         JsonObject customFields = new JsonObject();
         customFields.addProperty("automated", "true");
         customFields.addProperty("executionType", "Automated");
-        testResult.add("customFields", customFields);
 
-        // Add environment info if available
-        if (System.getProperty("os.name") != null) {
-            testResult.addProperty("environment", System.getProperty("os.name"));
+        JsonArray items = new JsonArray();
+        for (int i = 0; i < results.size(); i++) {
+            UnifiedTestResult result = results.get(i);
+            JsonObject item = new JsonObject();
+            item.addProperty("testCaseKey", testCaseKeys.get(i));
+            item.addProperty("status", convertStatus(result.getStatus()));
+            item.addProperty("comment", result.getFailureMessage() != null ? result.getFailureMessage() : "");
+            item.addProperty("userKey", username);
+            item.addProperty("executionDate", executionDate);
+            if (result.getStartTime() != null && result.getEndTime() != null) {
+                item.addProperty("executionTime", Duration.between(result.getStartTime(), result.getEndTime()).toMillis());
+            }
+            if (System.getProperty("os.name") != null) {
+                item.addProperty("environment", System.getProperty("os.name"));
+            }
+            item.add("customFields", customFields);
+            items.add(item);
         }
+        return items;
+    }
+
+    /**
+     * Resolves the keys of the server test cases for a set of names. Names not seen before are looked up with one
+     * TQL search per {@value #SEARCH_CHUNK} names; cases still missing are created if {@code createTestCases} is on.
+     * @return names mapped to case keys; names without a case are left out
+     */
+    private Map<String, String> resolveServerTestCases(Collection<String> names) throws Exception {
+        List<String> unknown = new ArrayList<>();
+        for (String name : names) {
+            if (!serverCaseKeys.containsKey(name)) {
+                unknown.add(name);
+            }
+        }
+        for (int from = 0; from < unknown.size(); from += SEARCH_CHUNK) {
+            searchServerTestCases(unknown.subList(from, Math.min(from + SEARCH_CHUNK, unknown.size())));
+        }
+        if (createTestCases) {
+            for (String name : unknown) {
+                if (!serverCaseKeys.containsKey(name)) {
+                    serverCaseKeys.put(name, createServerTestCase(name));
+                }
+            }
+        }
+
+        Map<String, String> keys = new LinkedHashMap<>();
+        for (String name : names) {
+            String key = serverCaseKeys.get(name);
+            if (key != null) {
+                keys.put(name, key);
+            }
+        }
+        return keys;
+    }
+
+    private void searchServerTestCases(List<String> names) throws Exception {
+        StringBuilder tql = new StringBuilder("projectKey = \"").append(tqlEscape(projectKey)).append("\" AND name IN (");
+        for (int i = 0; i < names.size(); i++) {
+            tql.append(i > 0 ? ", " : "").append('"').append(tqlEscape(names.get(i))).append('"');
+        }
+        tql.append(')');
 
         HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(baseUrl + "/rest/atm/1.0/testrun/" + testRunKey + "/testcase/" + testCaseKey + "/testresult"))
+            .uri(URI.create(baseUrl + "/rest/atm/1.0/testcase/search?fields=key,name&maxResults=" + (names.size() * 2)
+                + "&query=" + URLEncoder.encode(tql.toString(), StandardCharsets.UTF_8)))
             .header("Authorization", getAuthHeader())
-            .header("Content-Type", "application/json")
-            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(testResult)))
+            .GET()
             .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 201) {
-            throw new Exception("Failed to add test result: " + response.body());
+        HttpResponse<String> response = send(request);
+        if (response.statusCode() != 200) {
+            throw new Exception("Failed to search test cases: " + response.body());
+        }
+        // The search answers with an array; older versions wrap it in "results"
+        JsonElement body = gson.fromJson(response.body(), JsonElement.class);
+        JsonArray testCases = body.isJsonArray() ? body.getAsJsonArray() : body.getAsJsonObject().getAsJsonArray("results");
+        for (JsonElement element : testCases) {
+            JsonObject testCase = element.getAsJsonObject();
+            // The first match wins when names are not unique, as with the former one-by-one search
+            serverCaseKeys.putIfAbsent(testCase.get("name").getAsString(), testCase.get("key").getAsString());
         }
     }
 
-    private void updateTestRunStatus(String testRunKey) throws Exception {
-        JsonObject update = new JsonObject();
-        update.addProperty("status", "Done");
-        update.addProperty("plannedEndDate", java.time.OffsetDateTime.now().toString());
+    private static String tqlEscape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private String createServerTestCase(String name) throws Exception {
+        JsonObject testCase = new JsonObject();
+        testCase.addProperty("name", name);
+        testCase.addProperty("projectKey", projectKey);
+        testCase.addProperty("description", "Test case created by UnifiedTest");
+        testCase.addProperty("status", "Approved");
+        testCase.addProperty("priority", "Normal");
 
         HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(baseUrl + "/rest/atm/1.0/testrun/" + testRunKey))
+            .uri(URI.create(baseUrl + "/rest/atm/1.0/testcase"))
             .header("Authorization", getAuthHeader())
             .header("Content-Type", "application/json")
-            .PUT(HttpRequest.BodyPublishers.ofString(gson.toJson(update)))
+            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(testCase)))
             .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 200) {
-            throw new Exception("Failed to update test run status: " + response.body());
+        HttpResponse<String> response = send(request);
+        if (response.statusCode() != 201) {
+            throw new Exception("Failed to create test case: " + response.body());
         }
-    }
 
-    private void createServerTestExecution(String testCaseKey, String testRunKey, UnifiedTestResult result) throws Exception {
-        // Create test run items array
-        JsonArray items = new JsonArray();
-        JsonObject item = new JsonObject();
-        item.addProperty("testCaseKey", testCaseKey);
-        item.addProperty("status", convertStatus(result.getStatus()));
-        item.addProperty("comment", result.getFailureMessage() != null ? result.getFailureMessage() : "");
-        item.addProperty("userKey", username);
-        item.addProperty("executionDate", java.time.OffsetDateTime.now().toString());
-        
-        // Add custom fields
-        JsonObject customFields = new JsonObject();
-        customFields.addProperty("automated", "true");
-        customFields.addProperty("executionType", "Automated");
-        item.add("customFields", customFields);
-
-        items.add(item);
+        JsonObject responseJson = gson.fromJson(response.body(), JsonObject.class);
+        return responseJson.get("key").getAsString();
+    }
 
-        // Update test run with the new items
+    private void updateTestRunStatus(String testRunKey) throws Exception {
         JsonObject update = new JsonObject();
-        update.add("items", items);
+        update.addProperty("status", "Done");
+        update.addProperty("plannedEndDate", java.time.OffsetDateTime.now().toString());
 
         HttpRequest request = HttpRequest.newBuilder()
             .uri(URI.create(baseUrl + "/rest/atm/1.0/testrun/" + testRunKey))
@@ -404,9 +574,9 @@ public class ZephyrTestManagementSystem extends AbstractTestManagementSystem {
             .PUT(HttpRequest.BodyPublishers.ofString(gson.toJson(update)))
             .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = send(request);
         if (response.statusCode() != 200) {
-            throw new Exception("Failed to update test run with results: " + response.body());
+            throw new Exception("Failed to update test run status: " + response.body());
         }
     }
 
@@ -418,6 +588,33 @@ public class ZephyrTestManagementSystem extends AbstractTestManagementSystem {
         }
     }
 
+    @Override
+    protected String getSyncScope() {
+        return projectKey + "-" + testCycleName;
+    }
+
+    @Override
+    public String getRunKey() {
+        return runKey(baseUrl, projectKey, testCycleName);
+    }
+
+    /**
+     * Builds the run key of a configuration without creating a system.
+     * @param config the Zephyr configuration
+     * @return the run key, or null if the configuration lacks a required setting
+     */
+    static String runKeyOf(ZephyrConfig config) {
+        if (!config.getServerUrl().isPresent() || !config.getApiKey().isPresent() || !config.getProjectKey().isPresent()) {
+            return null;
+        }
+        return runKey(config.getServerUrl().get(), config.getProjectKey().get(),
+            config.getTestCycleName().getOrElse(DEFAULT_TEST_CYCLE_NAME));
+    }
+
+    private static String runKey(String baseUrl, String projectKey, String testCycleName) {
+        return "zephyr:" + baseUrl + ":" + projectKey + "-" + testCycleName;
+    }
+
     @Override
     protected String convertStatus(String status) {
         if ("server".equals(apiType)) {
@@ -0,0 +1,103 @@
+package io.github.mov2day.unifiedtest;
+
+import io.github.mov2day.unifiedtest.reporting.testmanagement.TmsStandInServer;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the plugin in a real build with the configuration cache enabled.
+ * The build runs one JUnit 4 test class, taken from this build's classpath, and pushes to the TMS stand-in,
+ * so it runs offline while still executing every task action the plugin registers.
+ */
+class ConfigurationCacheTest {
+    private static final String TEST_CASE = "com.example.CalculatorTest.addsNumbers";
+
+    @TempDir
+    File projectDir;
+
+    private TmsStandInServer standIn;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        standIn = TmsStandInServer.start();
+        standIn.addTestCases(List.of(TEST_CASE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        standIn.close();
+    }
+
+    @Test
+    void secondBuildReusesTheConfigurationCache() throws Exception {
+        write("settings.gradle", "rootProject.name = 'sample'\n");
+        write("build.gradle", String.join("\n",
+            "plugins {",
+            "    id 'java'",
+            "    id 'io.github.mov2day.unifiedtest'",
+            "}",
+            "dependencies {",
+            "    testImplementation files(" + MultipleTestTasksTest.junitJars() + ")",
+            "}",
+            "testManagement {",
+            "    enabled = true",
+            "    testRail {",
+            "        serverUrl = '" + standIn.getUrl() + "'",
+            "        apiKey = 'key'",
+            "        projectId = '" + TmsStandInServer.TESTRAIL_PROJECT_ID + "'",
+            "        suiteId = '" + TmsStandInServer.TESTRAIL_SUITE_ID + "'",
+            "    }",
+            "}",
+            ""));
+        write("src/test/java/com/example/CalculatorTest.java", MultipleTestTasksTest.testClass("CalculatorTest"));
+
+        BuildResult first = run();
+        assertTrue(first.getOutput().contains("Configuration cache entry stored"), first.getOutput());
+        assertCollectedAndPushed(first, 1);
+
+        BuildResult second = run();
+        assertTrue(second.getOutput().contains("Configuration cache entry reused"), second.getOutput());
+        assertCollectedAndPushed(second, 2);
+    }
+
+    /**
+     * Checks that the test task collected its result and pushed it, and that the recovery task read the journal back.
+     */
+    private void assertCollectedAndPushed(BuildResult result, int deliveries) throws IOException {
+        String output = result.getOutput();
+        assertTrue(output.contains("Successfully pushed test results to testrail"), output);
+        assertEquals(deliveries, standIn.getDeliveries().size(), "Every build pushes its result");
+        String caseId = String.valueOf(standIn.getTestCaseId(TEST_CASE));
+        assertEquals(caseId, standIn.getDeliveries().get(deliveries - 1).getTestCase());
+        assertTrue(output.contains("recovered 1 results from 1 journal(s)"), output);
+
+        String journal = Files.readString(new File(projectDir, "build/unifiedtest/journal/test.jsonl").toPath());
+        assertTrue(journal.contains("addsNumbers"), journal);
+        assertTrue(new File(projectDir, "build/unifiedtest/reports/index.html").isFile());
+    }
+
+    private BuildResult run() {
+        // --rerun-tasks keeps the test task from being up to date, so the cached actions collect and push again
+        return GradleRunner.create()
+            .withProjectDir(projectDir)
+            .withPluginClasspath()
+            .withArguments("test", "unifiedTestRecover", "unifiedTestPushPending", "--configuration-cache", "--rerun-tasks")
+            .build();
+    }
+
+    private void write(String name, String content) throws IOException {
+        File file = new File(projectDir, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
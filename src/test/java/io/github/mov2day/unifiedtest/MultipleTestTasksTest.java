@@ -0,0 +1,91 @@
+package io.github.mov2day.unifiedtest;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two test tasks in one build and checks that each keeps its own JUnit XML reports.
+ * JUnit 4 is taken from this build's classpath, so the build runs offline.
+ */
+class MultipleTestTasksTest {
+    @TempDir
+    File projectDir;
+
+    @Test
+    void everyTestTaskKeepsItsJUnitXmlReports() throws Exception {
+        write("settings.gradle", "rootProject.name = 'sample'\n");
+        write("build.gradle", String.join("\n",
+            "plugins {",
+            "    id 'java'",
+            "    id 'io.github.mov2day.unifiedtest'",
+            "}",
+            "sourceSets {",
+            "    integrationTest",
+            "}",
+            "configurations {",
+            "    integrationTestImplementation.extendsFrom testImplementation",
+            "}",
+            "dependencies {",
+            "    testImplementation files(" + junitJars() + ")",
+            "}",
+            "tasks.register('integrationTest', Test) {",
+            "    testClassesDirs = sourceSets.integrationTest.output.classesDirs",
+            "    classpath = sourceSets.integrationTest.runtimeClasspath",
+            "    mustRunAfter test",
+            "}",
+            "unifiedTest {",
+            "    xmlEnabled = true",
+            "}",
+            ""));
+        write("src/test/java/com/example/CalculatorTest.java", testClass("CalculatorTest"));
+        write("src/integrationTest/java/com/example/CheckoutIT.java", testClass("CheckoutIT"));
+
+        BuildResult result = GradleRunner.create()
+            .withProjectDir(projectDir)
+            .withPluginClasspath()
+            .withArguments("test", "integrationTest")
+            .build();
+
+        File reportsDir = new File(projectDir, "build/unifiedtest/reports/junit");
+        assertTrue(new File(reportsDir, "test/TEST-com.example.CalculatorTest.xml").isFile(), result.getOutput());
+        assertTrue(new File(reportsDir, "integrationTest/TEST-com.example.CheckoutIT.xml").isFile(), result.getOutput());
+    }
+
+    static String junitJars() throws URISyntaxException {
+        return "'" + jarOf(org.junit.Test.class) + "', '" + jarOf(org.hamcrest.Matcher.class) + "'";
+    }
+
+    static String testClass(String name) {
+        return String.join("\n",
+            "package com.example;",
+            "",
+            "import org.junit.Test;",
+            "import static org.junit.Assert.assertEquals;",
+            "",
+            "public class " + name + " {",
+            "    @Test",
+            "    public void addsNumbers() {",
+            "        assertEquals(4, 2 + 2);",
+            "    }",
+            "}",
+            "");
+    }
+
+    private static String jarOf(Class<?> type) throws URISyntaxException {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath().replace('\\', '/');
+    }
+
+    private void write(String name, String content) throws IOException {
+        File file = new File(projectDir, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.mov2day.unifiedtest.collector;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ResultJournal.
+ * Verifies that journaled results can be read back, including after an interrupted write.
+ */
+public class ResultJournalTest {
+    @TempDir
+    File tempDir;
+
+    @Test
+    void collectorAppendsEveryResultToJournal() throws Exception {
+        File file = new File(tempDir, "journal/test.jsonl");
+        UnifiedTestResultCollector collector = new UnifiedTestResultCollector();
+        collector.setJournal(new ResultJournal(file));
+
+        collector.addResult(new UnifiedTestResult("com.example.CalculatorTest", "testAddition", "PASS", 100L));
+        collector.addResult(new UnifiedTestResult("com.example.CalculatorTest", "testDivision", "FAIL",
+            "expected: <2> but was: <3>", "java.lang.AssertionError\n\tat com.example.CalculatorTest.testDivision", 150L));
+        // Readable before the journal is closed, as after a killed build
+        List<UnifiedTestResult> results = ResultJournal.read(file);
+        collector.closeJournal();
+
+        assertEquals(2, results.size());
+        assertEquals("testDivision", results.get(1).testName);
+        assertEquals("FAIL", results.get(1).status);
+        assertEquals("expected: <2> but was: <3>", results.get(1).failureMessage);
+        assertEquals(150L, results.get(1).duration);
+    }
+
+    @Test
+    void skipsTornLastRecord() throws Exception {
+        File file = new File(tempDir, "test.jsonl");
+        try (ResultJournal journal = new ResultJournal(file)) {
+            journal.append(new UnifiedTestResult("com.example.CalculatorTest", "testAddition", "PASS", 100L));
+        }
+        Files.write(file.toPath(), "{\"className\":\"com.example.Calc".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        UnifiedTestResultCollector recovered = ResultJournal.load(file);
+
+        assertEquals(1, recovered.getResults().size());
+        assertTrue(recovered.hasResult("com.example.CalculatorTest", "testAddition"));
+    }
+
+    @Test
+    void newJournalDiscardsPreviousRun() throws Exception {
+        File file = new File(tempDir, "test.jsonl");
+        try (ResultJournal journal = new ResultJournal(file)) {
+            journal.append(new UnifiedTestResult("com.example.OldTest", "testRemoved", "PASS", 1L));
+        }
+        new ResultJournal(file).close();
+
+        assertTrue(ResultJournal.read(file).isEmpty());
+    }
+}
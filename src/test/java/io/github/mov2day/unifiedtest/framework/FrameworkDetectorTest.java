@@ -4,8 +4,20 @@ import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.artifacts.DependencySet;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.provider.Provider;
+import org.gradle.testfixtures.ProjectBuilder;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import org.mockito.Mock;
@@ -36,4 +48,56 @@ public class FrameworkDetectorTest {
         assertNotNull(frameworks, "Should return non-null list");
         assertTrue(frameworks.isEmpty(), "Should return empty list when no dependencies");
     }
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void detectsJUnit4RunningOnThePlatformNextToJupiter() throws IOException {
+        List<File> classpath = Arrays.asList(
+            jar("junit-jupiter-api.jar", "org/junit/jupiter/api/Test.class"),
+            jar("junit-platform-engine.jar", "org/junit/platform/engine/TestEngine.class"),
+            jar("junit-vintage-engine.jar", "org/junit/vintage/engine/VintageTestEngine.class"),
+            jar("junit.jar", "org/junit/runner/JUnitCore.class"));
+
+        assertEquals(Arrays.asList("JUnit5", "JUnit4"), FrameworkDetector.detect(classpath));
+        assertEquals(Collections.singletonList("JUnit5"), FrameworkDetector.detect(classpath.subList(0, 2)),
+            "Without the Vintage engine JUnit 4 tests do not run");
+    }
+
+    @Test
+    void detectsASingleFrameworkWithoutThePlatform() throws IOException {
+        File testng = jar("testng.jar", "org/testng/TestNG.class");
+        File classes = new File(tempDir, "classes");
+        new File(classes, "org/junit/runner").mkdirs();
+        Files.createFile(new File(classes, "org/junit/runner/JUnitCore.class").toPath());
+
+        assertEquals(Collections.singletonList("JUnit4"), FrameworkDetector.detect(Arrays.asList(testng, classes)));
+        assertEquals(Collections.singletonList("TestNG"), FrameworkDetector.detect(Collections.singletonList(testng)));
+        assertTrue(FrameworkDetector.detect(Collections.singletonList(new File(tempDir, "missing.jar"))).isEmpty());
+    }
+
+    @Test
+    void scansTheTestRuntimeClasspathOncePerProject() throws IOException {
+        Project javaProject = ProjectBuilder.builder().withProjectDir(new File(tempDir, "project")).build();
+        javaProject.getPluginManager().apply("java");
+        File jupiter = jar("junit-jupiter-api.jar", "org/junit/jupiter/api/Test.class");
+        javaProject.getDependencies().add(JavaPlugin.TEST_RUNTIME_ONLY_CONFIGURATION_NAME, javaProject.files(jupiter));
+
+        Provider<List<String>> frameworks = FrameworkDetector.detectOnClasspath(javaProject);
+        assertEquals(Collections.singletonList("JUnit5"), frameworks.get());
+        Files.delete(jupiter.toPath());
+        assertEquals(Collections.singletonList("JUnit5"), frameworks.get(), "The first result is kept");
+    }
+
+    private File jar(String name, String... entries) throws IOException {
+        File jar = new File(tempDir, name);
+        try (OutputStream out = Files.newOutputStream(jar.toPath()); ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry));
+                zip.closeEntry();
+            }
+        }
+        return jar;
+    }
 }
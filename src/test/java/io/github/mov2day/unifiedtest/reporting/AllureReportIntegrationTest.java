@@ -73,6 +73,120 @@ class AllureReportIntegrationTest {
         assertEquals(1, result.getAttachments().size());
     }
 
+    @Test
+    void testCucumberResultsAndUnknownFields() throws IOException {
+        File allureResultsDir = new File(project.getBuildDir(), "allure-results");
+        allureResultsDir.mkdirs();
+
+        String cucumberResult = """
+            {
+                "uuid": "1",
+                "name": "Successful login",
+                "fullName": "features/login.feature:3",
+                "status": "failed",
+                "statusDetails": { "message": "boom", "trace": null },
+                "stage": "finished",
+                "start": 1000,
+                "stop": 1500,
+                "labels": [
+                    { "name": "suite", "value": "Login" },
+                    { "name": "feature", "value": "Login" }
+                ],
+                "parameters": [],
+                "steps": [
+                    { "name": "Given a user", "status": "passed", "steps": [ { "name": "nested", "status": "passed" } ] }
+                ]
+            }
+            """;
+        Files.write(allureResultsDir.toPath().resolve("a-result.json"), cucumberResult.getBytes());
+        Files.write(allureResultsDir.toPath().resolve("broken-result.json"), "{\"name\":".getBytes());
+
+        Map<String, AllureReportReader.AllureTestResult> results = allureReader.readAllureResults();
+
+        AllureReportReader.AllureTestResult result = results.get("Login.features/login.feature:3");
+        assertNotNull(result);
+        assertSame(result, allureReader.readMatchIndex().find("Login", "Successful login"));
+        assertEquals("failed", result.getStatus());
+        assertEquals(500, result.getDuration());
+        assertEquals(1, result.getSteps().size());
+    }
+
+    @Test
+    void testIngestionIndexTracksChangedAndDeletedFiles() throws IOException {
+        Path allureResultsDir = new File(project.getBuildDir(), "allure-results").toPath();
+        Files.createDirectories(allureResultsDir);
+        Path first = allureResultsDir.resolve("1-result.json");
+        Path second = allureResultsDir.resolve("2-result.json");
+        Files.write(first, "{\"name\":\"testOne\",\"status\":\"passed\",\"stage\":\"finished\",\"start\":1,\"stop\":2}".getBytes());
+        Files.write(second, "{\"name\":\"testTwo\",\"status\":\"passed\",\"stage\":\"finished\",\"start\":1,\"stop\":2}".getBytes());
+
+        assertEquals(2, new AllureReportReader(project).readAllureResults().size());
+        assertTrue(new File(project.getBuildDir(), "unifiedtest/allure-index.bin").exists());
+
+        Files.write(first, "{\"name\":\"testOne\",\"status\":\"failed\",\"stage\":\"finished\",\"start\":1,\"stop\":20}".getBytes());
+        Files.delete(second);
+
+        Map<String, AllureReportReader.AllureTestResult> results = new AllureReportReader(project).readAllureResults();
+        assertEquals("failed", results.get("testOne").getStatus());
+        assertNull(results.get("testTwo"), "Deleted result files should be evicted");
+    }
+
+    @Test
+    void testMatchIndexUsesCanonicalKeys() throws IOException {
+        Path allureResultsDir = new File(project.getBuildDir(), "allure-results").toPath();
+        Files.createDirectories(allureResultsDir);
+        Files.write(allureResultsDir.resolve("1-result.json"), ("{\"name\":\"testAdd\",\"fullName\":\"com.example.CalculatorTest.testAdd\"," +
+            "\"historyId\":\"h1\",\"status\":\"passed\",\"stage\":\"finished\",\"start\":1,\"stop\":2}").getBytes());
+        Files.write(allureResultsDir.resolve("2-result.json"), ("{\"name\":\"testAdd\",\"status\":\"failed\",\"stage\":\"finished\",\"start\":1,\"stop\":2," +
+            "\"labels\":[{\"name\":\"testClass\",\"value\":\"com.example.Outer$Inner\"},{\"name\":\"testMethod\",\"value\":\"testAdd\"}]}").getBytes());
+        Files.write(allureResultsDir.resolve("3-result.json"), ("{\"name\":\"testAdd\",\"fullName\":\"com.example.CalculatorTest.testAdd\"," +
+            "\"historyId\":\"h2\",\"status\":\"broken\",\"stage\":\"finished\",\"start\":3,\"stop\":4}").getBytes());
+        Files.write(allureResultsDir.resolve("4-result.json"), ("{\"name\":\"testOrphan\",\"fullName\":\"com.example.GoneTest.testOrphan\"," +
+            "\"status\":\"passed\",\"stage\":\"finished\",\"start\":1,\"stop\":2}").getBytes());
+
+        AllureMatchIndex index = allureReader.readMatchIndex();
+
+        // Invocations of a parameterized test share class#method and resolve through Gradle's invocation index
+        assertEquals("passed", index.find("com.example.CalculatorTest", "testAdd(int)[1]").getStatus());
+        assertEquals("broken", index.find("com.example.CalculatorTest", "testAdd(int)[2]").getStatus());
+        assertNull(index.find("com.example.CalculatorTest", "testAdd()"), "An ambiguous key must not pick the first result");
+        assertNull(index.find("com.example.CalculatorTest", "testAdd(int)[3]"));
+        assertEquals("failed", index.find("com.example.Outer.Inner", "testAdd").getStatus(),
+            "Same method name in another class must not collide");
+        assertNull(index.find("com.example.OtherTest", "testAdd"));
+        assertTrue(index.getCollisions().contains("com.example.CalculatorTest#testAdd"));
+        assertEquals(1, index.getUnmatched().stream().filter(r -> r.getName().contains("GoneTest")).count());
+    }
+
+    @Test
+    void testNestedStepTreeWithSelfTime() throws IOException {
+        Path allureResultsDir = new File(project.getBuildDir(), "allure-results").toPath();
+        Files.createDirectories(allureResultsDir);
+        String result = """
+            {
+                "name": "testLogin", "status": "passed", "stage": "finished", "start": 0, "stop": 5000,
+                "steps": [
+                    { "name": "Submit form", "status": "passed", "start": 1000, "stop": 5000,
+                      "parameters": [ { "name": "user", "value": "bob" } ],
+                      "attachments": [ { "source": "shot.png", "name": "Screenshot", "type": "image/png" } ],
+                      "steps": [ { "name": "Wait for spinner", "status": "passed", "start": 1100, "stop": 4500 } ] }
+                ]
+            }
+            """;
+        Files.write(allureResultsDir.resolve("1-result.json"), result.getBytes());
+
+        // Second read is served from the ingestion index and must keep the tree
+        allureReader.readAllureResults();
+        AllureReportReader.AllureTestResult.Step step = new AllureReportReader(project).readAllureResults()
+            .get("testLogin").getSteps().get(0);
+
+        assertEquals(4000, step.getDuration());
+        assertEquals(600, step.getSelfTime());
+        assertEquals("bob", step.getParameters().get(0).getValue());
+        assertEquals("Screenshot", step.getAttachments().get(0).getName());
+        assertEquals("Wait for spinner", step.getSteps().get(0).getName());
+    }
+
     @Test
     void testAllureReportPath() throws IOException {
         // Create mock Allure report directory
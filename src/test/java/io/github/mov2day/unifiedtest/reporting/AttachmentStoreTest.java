@@ -0,0 +1,78 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AttachmentStore.
+ * Verifies content addressing, deduplication and relative links.
+ */
+public class AttachmentStoreTest {
+    @TempDir
+    File tempDir;
+
+    @Test
+    void storesIdenticalContentOnce() throws Exception {
+        File first = new File(tempDir, "a-attachment.png");
+        File second = new File(tempDir, "b-attachment.png");
+        File other = new File(tempDir, "c-attachment.png");
+        Files.writeString(first.toPath(), "same screenshot");
+        Files.writeString(second.toPath(), "same screenshot");
+        Files.writeString(other.toPath(), "another screenshot");
+        AttachmentStore store = new AttachmentStore(new File(tempDir, "reports"));
+
+        String firstLink = store.store(first);
+        String secondLink = store.store(second);
+        String otherLink = store.store(other);
+
+        assertEquals(firstLink, secondLink, "Identical content should share one stored file");
+        assertNotEquals(firstLink, otherLink);
+        assertTrue(firstLink.startsWith("attachments/"), "Links should be relative to the report directory");
+        assertTrue(firstLink.endsWith(".png"));
+        assertEquals("same screenshot", Files.readString(store.resolve(firstLink)));
+    }
+
+    @Test
+    void clearingRemovesTheAttachmentsOfEarlierBuilds() throws Exception {
+        File reportDir = new File(tempDir, "reports");
+        String stale = new AttachmentStore(reportDir).store("old log".getBytes(), "build.log");
+        AttachmentStore store = new AttachmentStore(reportDir);
+        assertTrue(Files.exists(store.resolve(stale)));
+
+        store.clear();
+
+        assertFalse(Files.exists(store.resolve(stale)), "Attachments of an earlier build are removed");
+        String link = store.store("new log".getBytes(), "build.log");
+        assertTrue(link.endsWith(".log"));
+        assertEquals("new log", Files.readString(store.resolve(link)));
+    }
+
+    @Test
+    void byteContentIsWrittenToTheGivenStore() throws Exception {
+        AttachmentStore store = new AttachmentStore(new File(tempDir, "reports"));
+
+        UnifiedTestResult.Attachment attachment =
+            new UnifiedTestResult.Attachment("screenshot.png", "image/png", "pixels".getBytes(), store);
+
+        assertTrue(attachment.getPath().startsWith(store.resolve(AttachmentStore.DIR_NAME)));
+        assertEquals(6, attachment.getSize());
+        try (InputStream in = attachment.openStream()) {
+            assertArrayEquals("pixels".getBytes(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void deprecatedByteContentBridgeReadsBackThroughTheFile() throws Exception {
+        UnifiedTestResult.Attachment attachment =
+            new UnifiedTestResult.Attachment("screenshot.png", "image/png", "pixels".getBytes());
+
+        assertTrue(Files.isRegularFile(attachment.getPath()), "Content is spilled to a file of its own");
+        assertArrayEquals("pixels".getBytes(), attachment.getContent());
+        Files.delete(attachment.getPath());
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FailureClusters.
+ * Verifies that failures are grouped by normalized stack-trace signature.
+ */
+class FailureClustersTest {
+
+    private static String connectTrace(int line, int lambda) {
+        return "java.net.ConnectException: Connection refused\n" +
+            "\tat com.example.Db.connect(Db.java:" + line + ")\n" +
+            "\tat com.example.BaseTest.lambda$setUp$" + lambda + "(BaseTest.java:" + (line + 5) + ")\n" +
+            "\tat com.example.BaseTest$$Lambda$" + (100 + lambda) + "/0x0000000800c0b000.run(Unknown Source)\n";
+    }
+
+    @Test
+    void groupsFailuresIgnoringLineNumbersAndLambdas() {
+        List<UnifiedTestResult> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(new UnifiedTestResult("com.example.OrderTest", "test" + i, "FAIL",
+                "Connection refused", connectTrace(10 + i, i), 10L));
+        }
+        results.add(new UnifiedTestResult("com.example.CalculatorTest", "testDivision", "FAIL",
+            "Division by zero",
+            "java.lang.ArithmeticException: Division by zero\n\tat com.example.Calculator.divide(Calculator.java:15)",
+            10L));
+        results.add(new UnifiedTestResult("com.example.CalculatorTest", "testAddition", "PASS", 10L));
+
+        List<FailureClusters.FailureCluster> clusters = FailureClusters.cluster(results);
+
+        assertEquals(2, clusters.size(), "Should produce one cluster per distinct root cause");
+        assertEquals(10, clusters.get(0).getMembers().size(), "Largest cluster should come first");
+        assertEquals("java.net.ConnectException", clusters.get(0).getExceptionType());
+        assertEquals(1, clusters.get(1).getMembers().size());
+    }
+
+    @Test
+    void signatureIsStableAndMatchesCluster() {
+        String first = FailureClusters.signatureOf("Connection refused", connectTrace(10, 1));
+        String second = FailureClusters.signatureOf("Connection refused", connectTrace(42, 7));
+        String other = FailureClusters.signatureOf("boom", "java.lang.IllegalStateException: boom\n\tat com.example.Db.connect(Db.java:10)");
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    private static String assertEqualsTrace(String testClass, String method, int line) {
+        return "org.opentest4j.AssertionFailedError: expected: <1> but was: <2>\n" +
+            "\tat org.junit.jupiter.api.AssertionFailureBuilder.build(AssertionFailureBuilder.java:151)\n" +
+            "\tat org.junit.jupiter.api.AssertionFailureBuilder.buildAndThrow(AssertionFailureBuilder.java:132)\n" +
+            "\tat org.junit.jupiter.api.AssertEquals.failNotEqual(AssertEquals.java:197)\n" +
+            "\tat org.junit.jupiter.api.AssertEquals.assertEquals(AssertEquals.java:150)\n" +
+            "\tat org.junit.jupiter.api.Assertions.assertEquals(Assertions.java:558)\n" +
+            "\tat " + testClass + "." + method + "(" + testClass.substring(testClass.lastIndexOf('.') + 1) + ".java:" + line + ")\n" +
+            "\tat java.base/jdk.internal.reflect.DirectMethodHandleAccessor.invoke(DirectMethodHandleAccessor.java:103)\n" +
+            "\tat java.base/java.lang.reflect.Method.invoke(Method.java:580)\n" +
+            "\tat org.junit.platform.commons.util.ReflectionUtils.invokeMethod(ReflectionUtils.java:728)\n";
+    }
+
+    @Test
+    void unrelatedAssertEqualsFailuresGetDifferentSignatures() {
+        String cart = FailureClusters.signatureOf("expected: <1> but was: <2>",
+            assertEqualsTrace("com.example.CartTest", "totalsItems", 21));
+        String login = FailureClusters.signatureOf("expected: <1> but was: <2>",
+            assertEqualsTrace("com.example.LoginTest", "rejectsBadPassword", 40));
+        String cartAgain = FailureClusters.signatureOf("expected: <1> but was: <2>",
+            assertEqualsTrace("com.example.CartTest", "totalsItems", 23));
+
+        assertNotEquals(cart, login, "Assertion library frames must not decide the cluster");
+        assertEquals(cart, cartAgain);
+    }
+}
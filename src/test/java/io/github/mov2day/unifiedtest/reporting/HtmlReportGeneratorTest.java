@@ -139,4 +139,51 @@ class HtmlReportGeneratorTest {
         assertTrue(content.contains("overflow: auto"), "Should have overflow handling");
         assertTrue(content.contains("Class49"), "Should contain complete stack trace");
     }
-} 
\ No newline at end of file
+
+    @org.junit.jupiter.api.Test
+    void shouldWriteSearchIndexNextToReport() throws Exception {
+        // Given
+        collector.addResult(new UnifiedTestResult("com.example.CalculatorTest", "testAddition", "PASS", 100L));
+        collector.addResult(new UnifiedTestResult("com.example.OrderServiceTest", "testCheckout", "FAIL",
+            "Payment gateway timeout", null, 150L));
+
+        // When
+        HtmlReportGenerator.generate(project, testTask, collector);
+
+        // Then
+        File indexFile = new File(tempDir.toFile(), "unifiedtest/reports/search-index.js");
+        assertTrue(indexFile.exists(), "Search index should be written next to the report");
+
+        String index = Files.readString(indexFile.toPath());
+        assertTrue(index.startsWith("window.UNIFIEDTEST_SEARCH_INDEX="), "Index should be loadable as a script");
+        assertTrue(index.contains("\"calculator\""), "Camel-case parts of class names should be indexed");
+        assertTrue(index.contains("\"gateway\""), "Failure message words should be indexed");
+
+        String content = Files.readString(new File(tempDir.toFile(), "unifiedtest/reports/index.html").toPath());
+        assertTrue(content.contains("<tr data-row='1'>"), "Rows should carry the ids used by the index");
+        assertTrue(content.contains("search-index.js"), "Report should include the search index");
+    }
+
+    @org.junit.jupiter.api.Test
+    void shouldRenderAllureResultsWithoutStatus() throws Exception {
+        // Given: an interrupted test whose Allure result was never finished
+        collector.addResult(new UnifiedTestResult("com.example.CalculatorTest", "testDivision", "FAIL",
+            "Division by zero", null, 150L));
+        collector.addResult(new UnifiedTestResult("com.example.CalculatorTest", "testAddition", "FAIL",
+            "Wrong sum", null, 100L));
+        Path allureResults = Files.createDirectories(tempDir.resolve("allure-results"));
+        Files.writeString(allureResults.resolve("1-result.json"),
+            "{\"name\":\"testDivision\",\"fullName\":\"com.example.CalculatorTest.testDivision\",\"stage\":\"running\",\"start\":1}");
+        Files.writeString(allureResults.resolve("2-result.json"),
+            "{\"name\":\"testAddition\",\"fullName\":\"com.example.CalculatorTest.testAddition\",\"status\":null,\"start\":1,\"stop\":2}");
+
+        // When
+        HtmlReportGenerator.generate(project, testTask, collector);
+
+        // Then
+        String content = Files.readString(new File(tempDir.toFile(), "unifiedtest/reports/index.html").toPath());
+        assertTrue(content.contains("</html>"), "Report should be written completely");
+        assertEquals(2, content.split("class='allure-status unknown'>Status: unknown<", -1).length - 1,
+            "Status-less Allure results should be shown as unknown");
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import org.gradle.api.logging.Logger;
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResult;
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResultCollector;
+import java.io.File;
+import java.nio.file.Files;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for JUnitXmlReportGenerator.
+ * Verifies the Surefire XML layout, escaping and both output modes.
+ */
+@ExtendWith(MockitoExtension.class)
+public class JUnitXmlReportGeneratorTest {
+    @Mock
+    private Logger logger;
+
+    @TempDir
+    File tempDir;
+
+    private UnifiedTestResultCollector collector;
+
+    @BeforeEach
+    void setup() {
+        collector = new UnifiedTestResultCollector();
+        collector.addResult(new UnifiedTestResult("com.example.CalculatorTest", "testAddition", "PASS", 100L));
+        collector.addResult(new UnifiedTestResult("com.example.CalculatorTest", "testDivision", "FAIL",
+            "expected <2> & got \u001B[31m<3>",
+            "java.lang.AssertionError: expected <2>\n    at com.example.CalculatorTest.testDivision(CalculatorTest.java:25)",
+            150L));
+        collector.addResult(new UnifiedTestResult("com.example.StringTest", "testTrim", "SKIP", 0L));
+    }
+
+    @org.junit.jupiter.api.Test
+    void writesOneFilePerClass() throws Exception {
+        JUnitXmlReportGenerator.generate(tempDir, "test", logger, collector, JUnitXmlReportGenerator.MODE_PER_CLASS);
+
+        File reportsDir = new File(tempDir, "unifiedtest/reports/junit/test");
+        File calculator = new File(reportsDir, "TEST-com.example.CalculatorTest.xml");
+        File strings = new File(reportsDir, "TEST-com.example.StringTest.xml");
+        assertTrue(calculator.exists(), "Report for CalculatorTest should be generated");
+        assertTrue(strings.exists(), "Report for StringTest should be generated");
+
+        String content = Files.readString(calculator.toPath());
+        assertTrue(content.contains("<testsuite name=\"com.example.CalculatorTest\" tests=\"2\" failures=\"1\""));
+        assertTrue(content.contains("type=\"java.lang.AssertionError\""), "Failure should carry the exception type");
+        assertTrue(content.contains("expected &lt;2&gt; &amp; got"), "Message should be escaped");
+        assertFalse(content.contains("\u001B"), "Invalid XML characters should be dropped");
+        assertTrue(Files.readString(strings.toPath()).contains("<skipped"), "Skipped test should be marked");
+    }
+
+    @org.junit.jupiter.api.Test
+    void writesCombinedFileInSingleMode() throws Exception {
+        JUnitXmlReportGenerator.generate(tempDir, "test", logger, collector, JUnitXmlReportGenerator.MODE_PER_CLASS);
+        JUnitXmlReportGenerator.generate(tempDir, "test", logger, collector, JUnitXmlReportGenerator.MODE_SINGLE);
+
+        File reportsDir = new File(tempDir, "unifiedtest/reports/junit/test");
+        String[] files = reportsDir.list();
+        assertNotNull(files);
+        assertEquals(1, files.length, "Stale per-class reports should be removed");
+
+        String content = Files.readString(new File(reportsDir, "TEST-results.xml").toPath());
+        assertTrue(content.contains("<testsuites name=\"UnifiedTest\" tests=\"3\" failures=\"1\""));
+        assertTrue(content.contains("<testsuite name=\"com.example.StringTest\""));
+    }
+
+    @org.junit.jupiter.api.Test
+    void keepsTheReportsOfEveryTestTask() {
+        UnifiedTestResultCollector integration = new UnifiedTestResultCollector();
+        integration.addResult(new UnifiedTestResult("com.example.CheckoutIT", "testCheckout", "PASS", 300L));
+
+        JUnitXmlReportGenerator.generate(tempDir, "test", logger, collector, JUnitXmlReportGenerator.MODE_PER_CLASS);
+        JUnitXmlReportGenerator.generate(tempDir, "integrationTest", logger, integration, JUnitXmlReportGenerator.MODE_PER_CLASS);
+
+        File reportsDir = new File(tempDir, "unifiedtest/reports/junit");
+        assertTrue(new File(reportsDir, "test/TEST-com.example.CalculatorTest.xml").exists(),
+            "Reports of the first task should survive the second one");
+        assertTrue(new File(reportsDir, "test/TEST-com.example.StringTest.xml").exists());
+        assertTrue(new File(reportsDir, "integrationTest/TEST-com.example.CheckoutIT.xml").exists());
+    }
+
+    @org.junit.jupiter.api.Test
+    void keepsSurrogatePairsAndDropsLoneSurrogates() {
+        String emoji = "\uD83D\uDE00";
+        assertSame(emoji, JUnitXmlReportGenerator.clean(emoji), "Valid pairs should be kept without copying");
+        assertEquals("a" + emoji + "b", JUnitXmlReportGenerator.clean("a" + emoji + "b"));
+        assertEquals("ab", JUnitXmlReportGenerator.clean("a\uD83Db"), "Lone high surrogate should be dropped");
+        assertEquals("ab", JUnitXmlReportGenerator.clean("a\uDE00b"), "Lone low surrogate should be dropped");
+        assertEquals("a" + emoji, JUnitXmlReportGenerator.clean("a\uDE00\uD83D" + emoji + "\uD83D"));
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import org.gradle.api.logging.Logger;
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResult;
+import io.github.mov2day.unifiedtest.collector.UnifiedTestResultCollector;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for ReportBundleGenerator.
+ * Verifies that the embedded payload decodes back to the report data and that attachments respect the inline limit.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReportBundleGeneratorTest {
+    @Mock
+    private Logger logger;
+
+    @TempDir
+    File tempDir;
+
+    private UnifiedTestResultCollector collector;
+
+    @BeforeEach
+    void setup() {
+        collector = new UnifiedTestResultCollector();
+        collector.addResult(new UnifiedTestResult("com.example.CalculatorTest", "testAddition", "PASS", 100L));
+        collector.addResult(new UnifiedTestResult("com.example.CalculatorTest", "testDivision", "FAIL",
+            "</script><b>boom</b>",
+            "java.lang.ArithmeticException: / by zero\n    at com.example.CalculatorTest.testDivision(CalculatorTest.java:25)",
+            150L));
+    }
+
+    @org.junit.jupiter.api.Test
+    void embedsCompressedReportData() throws Exception {
+        ReportBundleGenerator.generate(tempDir, logger, collector, ReportBundleGenerator.DEFAULT_INLINE_ATTACHMENT_LIMIT);
+
+        String html = Files.readString(new File(tempDir, "unifiedtest/reports/bundle.html").toPath());
+        assertFalse(html.contains("<b>boom</b>"), "Result data must only appear inside the encoded payload");
+        assertTrue(html.contains("DecompressionStream('gzip')"));
+        assertTrue(html.contains("function queryIndex"), "Search should be embedded");
+
+        String data = decodePayload(html);
+        assertTrue(data.contains("\"n\":\"testAddition\""));
+        assertTrue(data.contains("\"type\":\"java.lang.ArithmeticException\""), "Failure clusters should be included");
+        assertTrue(data.contains("\"search\":{\"version\":1"), "Search index should be included");
+    }
+
+    @org.junit.jupiter.api.Test
+    void inlinesOnlySmallAttachments() throws Exception {
+        File allureResults = new File(tempDir, "allure-results");
+        allureResults.mkdirs();
+        Files.writeString(new File(allureResults, "small.txt").toPath(), "tiny log");
+        Files.write(new File(allureResults, "large.txt").toPath(), new byte[4096]);
+        Files.writeString(new File(allureResults, "1-result.json").toPath(),
+            "{\"name\":\"testAddition\",\"status\":\"passed\",\"stage\":\"finished\",\"start\":1,\"stop\":2," +
+            "\"attachments\":[{\"source\":\"small.txt\",\"name\":\"log\",\"type\":\"text/plain\"}," +
+            "{\"source\":\"large.txt\",\"name\":\"dump\",\"type\":\"text/plain\"}]}");
+
+        ReportBundleGenerator.generate(tempDir, logger, collector, 1024);
+
+        String data = decodePayload(Files.readString(new File(tempDir, "unifiedtest/reports/bundle.html").toPath()));
+        assertTrue(data.contains("data:text/plain;base64," + Base64.getEncoder().encodeToString("tiny log".getBytes(StandardCharsets.UTF_8))));
+        assertTrue(data.contains("\"href\":\"attachments/"), "Large attachment should be linked from the attachment store");
+    }
+
+    @org.junit.jupiter.api.Test
+    void inlinesAttachmentsWithoutTypeAsOctetStream() throws Exception {
+        File allureResults = new File(tempDir, "allure-results");
+        allureResults.mkdirs();
+        Files.writeString(new File(allureResults, "untyped.bin").toPath(), "raw");
+        Files.writeString(new File(allureResults, "blank.bin").toPath(), "blank");
+        Files.writeString(new File(allureResults, "1-result.json").toPath(),
+            "{\"name\":\"testAddition\",\"status\":\"passed\",\"stage\":\"finished\",\"start\":1,\"stop\":2," +
+            "\"attachments\":[{\"source\":\"untyped.bin\",\"name\":\"raw\"}," +
+            "{\"source\":\"blank.bin\",\"name\":\"blank\",\"type\":\" \"}]}");
+
+        ReportBundleGenerator.generate(tempDir, logger, collector, 1024);
+
+        String data = decodePayload(Files.readString(new File(tempDir, "unifiedtest/reports/bundle.html").toPath()));
+        Base64.Encoder base64 = Base64.getEncoder();
+        assertTrue(data.contains("data:application/octet-stream;base64," + base64.encodeToString("raw".getBytes(StandardCharsets.UTF_8))));
+        assertTrue(data.contains("data:application/octet-stream;base64," + base64.encodeToString("blank".getBytes(StandardCharsets.UTF_8))));
+        assertFalse(data.contains("data:null"));
+    }
+
+    private static String decodePayload(String html) throws Exception {
+        String marker = "id='report-data'>";
+        int start = html.indexOf(marker) + marker.length();
+        String base64 = html.substring(start, html.indexOf("</script>", start));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(base64)))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.mov2day.unifiedtest.reporting;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension;
+import io.github.mov2day.unifiedtest.reporting.testmanagement.TestManagementSystemFactory;
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the build-wide HTTP client and its build service.
+ */
+class SharedHttpClientTest {
+    private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "ok".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void reusesConnectionsAndCountsRequests() throws Exception {
+        try (SharedHttpClient client = new SharedHttpClient(2, Duration.ofSeconds(5))) {
+            for (int i = 0; i < 5; i++) {
+                assertEquals("ok", client.send(request("/sync")).body());
+            }
+            List<CompletableFuture<?>> pending = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                pending.add(client.sendAsync(request("/async")));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+
+            SharedHttpClient.Metrics metrics = client.getMetrics();
+            assertEquals(10, metrics.getRequests());
+            assertEquals(0, metrics.getFailures());
+            assertEquals(1, metrics.getHosts());
+            assertTrue(metrics.getMaxInFlight() >= 1);
+            assertEquals(1, clientPorts.subList(0, 5).stream().distinct().count(), "Sequential requests share one kept-alive connection");
+        }
+    }
+
+    @Test
+    void countsFailedRequests() {
+        try (SharedHttpClient client = new SharedHttpClient(1, Duration.ofSeconds(5))) {
+            server.stop(0);
+            assertThrows(IOException.class, () -> client.send(request("/gone")));
+            assertEquals(1, client.getMetrics().getFailures());
+        }
+    }
+
+    @Test
+    void allProjectsOfABuildShareOneClient() {
+        Project root = ProjectBuilder.builder().build();
+        Project child = ProjectBuilder.builder().withParent(root).build();
+        Provider<HttpClientService> first = HttpClientService.register(root, root.getProviders().provider(() -> 2));
+        Provider<HttpClientService> second = HttpClientService.register(child, child.getProviders().provider(() -> 8));
+
+        assertSame(first.get(), second.get());
+        assertSame(first.get().getClient(), second.get().getClient());
+
+        TestManagementExtension extension = root.getObjects().newInstance(TestManagementExtension.class);
+        extension.getEnabled().set(true);
+        extension.testRail(config -> { });
+        extension.zephyr(config -> { });
+        List<SharedHttpClient> suppliedTo = new ArrayList<>();
+        new TestManagementSystemFactory(() -> {
+            suppliedTo.add(first.get().getClient());
+            return first.get().getClient();
+        }).initialize(extension);
+        assertEquals(2, suppliedTo.size(), "Each system is created with the shared client");
+
+        first.get().close();
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder()
+            .uri(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path))
+            .GET()
+            .build();
+    }
+}
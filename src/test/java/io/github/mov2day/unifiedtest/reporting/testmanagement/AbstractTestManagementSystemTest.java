@@ -0,0 +1,246 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension.SystemConfig;
+import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the background micro-batch flushing and the outbox of AbstractTestManagementSystem.
+ */
+class AbstractTestManagementSystemTest {
+    @TempDir
+    File tempDir;
+
+    @Test
+    void pushesFullBatchesWhileTestsRun() throws Exception {
+        RecordingSystem system = system(3, 60);
+
+        for (int i = 0; i < 7; i++) {
+            system.queueTestResult(result("test" + i));
+        }
+        waitFor(() -> system.batches.size() == 2);
+        assertEquals(0, system.completedRuns.get(), "The run stays open between batches");
+
+        system.flushResults();
+
+        assertEquals(List.of(3, 3, 1), sizes(system.batches), "Only the partial batch is left for the final flush");
+        assertEquals(1, system.completedRuns.get());
+        assertTrue(system.getLastStatus().isSuccess());
+    }
+
+    @Test
+    void pushesPartialBatchesAfterLingerTime() throws Exception {
+        RecordingSystem system = system(100, 1);
+
+        system.queueTestResult(result("test1"));
+        system.queueTestResult(result("test2"));
+        waitFor(() -> system.batches.size() == 1);
+        assertEquals(List.of(2), sizes(system.batches));
+
+        system.flushResults();
+        assertEquals(1, system.batches.size(), "Nothing left to push at the end");
+        assertEquals(1, system.completedRuns.get(), "The run opened by the background push is still completed");
+    }
+
+    @Test
+    void reportsBackgroundFailureAtTheEnd() throws Exception {
+        RecordingSystem system = system(1, 60);
+        system.failNext.set(AbstractTestManagementSystem.MAX_RETRIES);
+
+        system.queueTestResult(result("test1"));
+        waitFor(() -> system.failNext.get() == 0);
+        system.queueTestResult(result("test2"));
+        system.flushResults();
+
+        assertFalse(system.getLastStatus().isSuccess(), "A failed background batch is not hidden by later successes");
+    }
+
+    @Test
+    void zeroBatchSizeKeepsEverythingForTheFinalFlush() throws Exception {
+        RecordingSystem system = system(0, 1);
+
+        system.queueTestResult(result("test1"));
+        Thread.sleep(300);
+        assertTrue(system.batches.isEmpty());
+
+        system.flushResults();
+        assertEquals(List.of(1), sizes(system.batches));
+    }
+
+    @Test
+    void failedResultsStayInTheOutboxUntilReplayed() throws Exception {
+        RecordingSystem system = system(0, 60);
+        system.failNext.set(AbstractTestManagementSystem.MAX_RETRIES);
+        system.queueTestResult(result("test1"));
+        system.queueTestResult(result("test2"));
+        system.flushResults();
+
+        assertFalse(system.getLastStatus().isSuccess());
+        File outbox = new File(tempDir, "outbox/recording.log");
+        assertTrue(outbox.isFile(), "Unpushed results are kept on disk");
+
+        // A later invocation, e.g. unifiedTestPushPending, sends them without running tests
+        RecordingSystem replay = system(0, 60);
+        assertEquals(2, replay.pushPending());
+        assertTrue(replay.getLastStatus().isSuccess(), replay.getLastStatus().getMessage());
+        assertEquals(List.of("test1", "test2"), List.of(replay.batches.get(0).get(0).getName(), replay.batches.get(0).get(1).getName()));
+        assertEquals(1, replay.completedRuns.get());
+        assertFalse(outbox.exists(), "Outbox is removed once everything is acknowledged");
+
+        assertEquals(0, system(0, 60).pushPending(), "Replaying again pushes nothing");
+    }
+
+    @Test
+    void successfulPushesLeaveNoOutboxBehind() {
+        RecordingSystem system = system(0, 60);
+        system.queueTestResult(result("test1"));
+        assertTrue(new File(tempDir, "outbox/recording.log").isFile(), "Queued results are written ahead of the push");
+
+        system.flushResults();
+        assertFalse(new File(tempDir, "outbox/recording.log").exists());
+    }
+
+    @Test
+    void differentialSyncPushesOnlyChangedVerdicts() {
+        List<String> statuses = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            statuses.add("PASS");
+        }
+        assertEquals(1000, build(differentialSystem(0), statuses), "First build has no cache and pushes everything");
+        assertEquals(0, build(differentialSystem(0), statuses), "A green build with no changes pushes nothing");
+
+        statuses.set(7, "FAIL");
+        RecordingSystem changed = differentialSystem(0);
+        assertEquals(1, build(changed, statuses));
+        assertEquals("test7", changed.batches.get(0).get(0).getName());
+        assertEquals(0, build(differentialSystem(0), statuses), "The new verdict is remembered");
+    }
+
+    @Test
+    void differentialSyncPushesEverythingPeriodically() {
+        List<String> statuses = List.of("PASS", "PASS", "PASS");
+        assertEquals(3, build(differentialSystem(3), statuses));
+        assertEquals(0, build(differentialSystem(3), statuses));
+        assertEquals(0, build(differentialSystem(3), statuses));
+        assertEquals(3, build(differentialSystem(3), statuses), "Every third build after a full sync is a full sync");
+        assertEquals(0, build(differentialSystem(3), statuses));
+    }
+
+    @Test
+    void differentialSyncResendsResultsWhosePushFailed() {
+        List<String> statuses = List.of("PASS", "PASS");
+        RecordingSystem failing = differentialSystem(0);
+        failing.failNext.set(AbstractTestManagementSystem.MAX_RETRIES);
+        build(failing, statuses);
+        assertFalse(failing.getLastStatus().isSuccess());
+
+        assertEquals(2, build(differentialSystem(0), statuses), "Results that never reached the system are not skipped");
+    }
+
+    private int build(RecordingSystem system, List<String> statuses) {
+        Instant now = Instant.now();
+        for (int i = 0; i < statuses.size(); i++) {
+            system.queueTestResult(new UnifiedTestResult("test" + i, statuses.get(i), now, now));
+        }
+        system.flushResults();
+        return system.batches.stream().mapToInt(List::size).sum();
+    }
+
+    private RecordingSystem differentialSystem(int fullSyncEveryBuilds) {
+        RecordingSystem system = new RecordingSystem();
+        system.setRetryDelayMillis(1);
+        system.initialize(config(0, 60, config -> {
+            config.getSyncPolicy().set("changed");
+            config.getFullSyncEveryBuilds().set(fullSyncEveryBuilds);
+            config.getOutboxEnabled().set(false);
+        }));
+        return system;
+    }
+
+    private RecordingSystem system(int batchSize, int lingerSeconds) {
+        RecordingSystem system = new RecordingSystem();
+        system.initialize(config(batchSize, lingerSeconds, config -> { }));
+        return system;
+    }
+
+    private SystemConfig config(int batchSize, int lingerSeconds, java.util.function.Consumer<SystemConfig> configure) {
+        ObjectFactory objects = ProjectBuilder.builder().build().getObjects();
+        SystemConfig config = new SystemConfig(objects) { };
+        config.getFlushBatchSize().set(batchSize);
+        config.getFlushLingerSeconds().set(lingerSeconds);
+        config.getStateDirectory().set(tempDir);
+        configure.accept(config);
+        return config;
+    }
+
+    private static UnifiedTestResult result(String name) {
+        Instant now = Instant.now();
+        return new UnifiedTestResult(name, "PASS", now, now);
+    }
+
+    private static List<Integer> sizes(List<List<UnifiedTestResult>> batches) {
+        List<Integer> sizes = new ArrayList<>();
+        batches.forEach(batch -> sizes.add(batch.size()));
+        return sizes;
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for background push");
+            Thread.sleep(20);
+        }
+    }
+
+    private static class RecordingSystem extends AbstractTestManagementSystem {
+        final List<List<UnifiedTestResult>> batches = new CopyOnWriteArrayList<>();
+        final AtomicInteger completedRuns = new AtomicInteger();
+        final AtomicInteger failNext = new AtomicInteger();
+
+        @Override
+        protected boolean validateConfig() {
+            return true;
+        }
+
+        @Override
+        protected Map<String, String> doPushResults(List<UnifiedTestResult> results) throws Exception {
+            if (failNext.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new Exception("unavailable");
+            }
+            batches.add(new ArrayList<>(results));
+            return new HashMap<>();
+        }
+
+        @Override
+        protected void completeRun() {
+            completedRuns.incrementAndGet();
+        }
+
+        @Override
+        protected String convertStatus(String status) {
+            return status;
+        }
+
+        @Override
+        protected String convertFromStatus(String status) {
+            return status;
+        }
+
+        @Override
+        public String getName() {
+            return "recording";
+        }
+    }
+}
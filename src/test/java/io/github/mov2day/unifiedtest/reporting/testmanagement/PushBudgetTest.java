@@ -0,0 +1,91 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the build-wide push budget and circuit breakers.
+ */
+class PushBudgetTest {
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndClosesAfterASuccessfulProbe() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofMillis(50));
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "A success resets the failure count");
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        Thread.sleep(60);
+        assertTrue(breaker.allowRequest(), "One probe is let through once the open period has passed");
+        assertFalse(breaker.allowRequest(), "Only one probe at a time");
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(), "A failed probe opens the circuit again");
+        assertFalse(breaker.allowRequest());
+
+        Thread.sleep(60);
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void abandonedProbeFreesTheHalfOpenCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+        breaker.onFailure();
+        assertTrue(breaker.allowRequest(), "The probe is let through");
+        assertFalse(breaker.allowRequest());
+
+        breaker.onAbandoned();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(), "An abandoned probe is not a failure");
+        assertTrue(breaker.allowRequest(), "The next request probes instead");
+    }
+
+    @Test
+    void thresholdZeroNeverOpens() {
+        CircuitBreaker breaker = new CircuitBreaker(0, Duration.ofMinutes(1));
+        for (int i = 0; i < 100; i++) {
+            breaker.onFailure();
+        }
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void budgetCountsRunningAndFinishedPushes() throws InterruptedException {
+        PushBudget budget = new PushBudget(Duration.ofMillis(200));
+        assertTrue(budget.isLimited());
+
+        long first = budget.begin();
+        long second = budget.begin();
+        Thread.sleep(60);
+        assertTrue(budget.remainingNanos() <= Duration.ofMillis(80).toNanos(), "Concurrent pushes are counted each");
+        budget.end(first);
+        budget.end(second);
+        assertTrue(budget.getSpent().toMillis() >= 120);
+
+        long third = budget.begin();
+        Thread.sleep(100);
+        assertEquals(0, budget.remainingNanos());
+        budget.end(third);
+    }
+
+    @Test
+    void unlimitedBudgetNeverRunsOutAndSharesBreakers() {
+        PushBudget budget = PushBudget.unlimited();
+        budget.end(budget.begin());
+        assertEquals(Long.MAX_VALUE, budget.remainingNanos());
+
+        CircuitBreaker breaker = budget.getBreaker("zephyr", 5, Duration.ofMinutes(1));
+        assertSame(breaker, budget.getBreaker("zephyr", 1, Duration.ZERO));
+        assertNotSame(breaker, budget.getBreaker("testrail", 5, Duration.ofMinutes(1)));
+    }
+}
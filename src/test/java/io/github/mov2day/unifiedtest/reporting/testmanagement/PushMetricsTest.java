@@ -0,0 +1,113 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension.TestRailConfig;
+import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the push instrumentation.
+ */
+class PushMetricsTest {
+
+    @TempDir
+    File stateDir;
+
+    @Test
+    void namesEndpointsWithoutIds() {
+        assertEquals("GET /api/v2/get_cases/{id}",
+            PushMetrics.endpointOf(get("https://tr.example.com/index.php?/api/v2/get_cases/12&suite_id=3&offset=250")));
+        assertEquals("POST /rest/atm/1.0/testrun/{id}/testresults",
+            PushMetrics.endpointOf(post("https://jira.example.com/rest/atm/1.0/testrun/PROJ-C42/testresults")));
+        assertEquals("POST /v2/testexecutions", PushMetrics.endpointOf(post("https://api.zephyrscale.example.com/v2/testexecutions")));
+    }
+
+    @Test
+    void histogramEstimatesPercentilesFromBuckets() {
+        PushMetrics.Histogram histogram = new PushMetrics.Histogram(PushMetrics.LATENCY_BUCKETS_MS);
+        assertEquals(0, histogram.getPercentile(0.99));
+        for (int i = 0; i < 98; i++) {
+            histogram.record(7);
+        }
+        histogram.record(300);
+        histogram.record(45_000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(10, histogram.getPercentile(0.5));
+        assertEquals(500, histogram.getPercentile(0.99));
+        assertEquals(45_000, histogram.getPercentile(1.0), "The overflow bucket reports the maximum");
+    }
+
+    @Test
+    void countsRetriesErrorsAndBytesPerEndpointAndWritesThemAfterTheBuild() throws Exception {
+        try (TmsStandInServer standIn = TmsStandInServer.start()) {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                names.add("com.example.Test.test" + i);
+            }
+            standIn.addTestCases(names);
+            standIn.setErrorRate(0.3);
+
+            TestRailConfig config = new TestRailConfig(ProjectBuilder.builder().build().getObjects());
+            config.getServerUrl().set(standIn.getUrl());
+            config.getApiKey().set("key");
+            config.getProjectId().set(TmsStandInServer.TESTRAIL_PROJECT_ID);
+            config.getSuiteId().set(TmsStandInServer.TESTRAIL_SUITE_ID);
+            config.getBatchSize().set(5);
+            config.getFlushBatchSize().set(10);
+            config.getFlushLingerSeconds().set(0);
+            config.getStateDirectory().set(stateDir);
+            TestRailManagementSystem system = new TestRailManagementSystem();
+            system.setRetryDelayMillis(1);
+            system.initialize(config);
+
+            Instant now = Instant.now();
+            for (String name : names) {
+                system.queueTestResult(new UnifiedTestResult(name, "PASS", now, now));
+            }
+            system.flushResults();
+            assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+
+            PushMetrics metrics = system.getMetrics();
+            assertEquals(standIn.getRequestCount(), metrics.getRequests(), "Every attempt is counted");
+            assertEquals(3, metrics.getBatchSizes().getCount());
+            assertEquals(10, metrics.getBatchSizes().getMax());
+            PushMetrics.Endpoint results = metrics.getEndpoints().get("POST /api/v2/add_results_for_cases/{id}");
+            assertNotNull(results, metrics.getEndpoints().keySet().toString());
+            long errors = metrics.getEndpoints().values().stream().mapToLong(PushMetrics.Endpoint::getServerErrors).sum();
+            long retries = metrics.getEndpoints().values().stream().mapToLong(PushMetrics.Endpoint::getRetries).sum();
+            assertEquals(standIn.getInjectedErrors(), errors);
+            assertTrue(retries >= errors, "Each injected error was retried");
+            assertTrue(results.getBytesSent() > 0 && results.getBytesReceived() > 0);
+            assertEquals(results.getRequests(), results.getLatencyMillis().getCount());
+
+            File file = new File(stateDir, "metrics/testrail.json");
+            JsonObject json = JsonParser.parseString(Files.readString(file.toPath(), StandardCharsets.UTF_8)).getAsJsonObject();
+            assertEquals("testrail", json.get("system").getAsString());
+            assertEquals(3, json.getAsJsonObject("batchSizes").get("count").getAsLong());
+            JsonObject endpoint = json.getAsJsonObject("endpoints").getAsJsonObject("POST /api/v2/add_results_for_cases/{id}");
+            assertEquals(results.getRequests(), endpoint.get("requests").getAsLong());
+            assertTrue(endpoint.getAsJsonObject("latencyMs").has("p99"));
+        }
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+
+    private static HttpRequest post(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for PushOutbox.
+ */
+class PushOutboxTest {
+    @TempDir
+    File tempDir;
+
+    @Test
+    void keepsUnacknowledgedRecordsAcrossReopen() throws Exception {
+        File file = new File(tempDir, "outbox/testrail.log");
+        Instant start = Instant.ofEpochMilli(1_700_000_000_000L);
+        UnifiedTestResult failed = new UnifiedTestResult("LoginTest.testLogin", "FAIL", start, start.plusMillis(250),
+            "expected true", "at LoginTest.testLogin(LoginTest.java:10)");
+        failed.addMetadata("className", "LoginTest");
+        failed.addStep(new UnifiedTestResult.TestStep("open page", "PASS", start, start.plusMillis(100)));
+
+        try (PushOutbox outbox = PushOutbox.open(file)) {
+            long first = outbox.append(failed);
+            long second = outbox.append(new UnifiedTestResult("LoginTest.testLogout", "PASS", start, start));
+            outbox.acknowledge(List.of(second));
+            assertEquals(List.of(first), List.copyOf(outbox.getPending().keySet()));
+        }
+
+        try (PushOutbox reopened = PushOutbox.open(file)) {
+            Map<Long, UnifiedTestResult> pending = reopened.getPending();
+            assertEquals(1, pending.size());
+            UnifiedTestResult result = pending.values().iterator().next();
+            assertEquals("LoginTest.testLogin", result.getName());
+            assertEquals("FAIL", result.getStatus());
+            assertEquals(start.plusMillis(250), result.getEndTime());
+            assertEquals("expected true", result.getFailureMessage());
+            assertEquals("LoginTest", result.getMetadata().get("className"));
+            assertEquals("open page", result.getSteps().get(0).getName());
+
+            long next = reopened.append(new UnifiedTestResult("LoginTest.testReset", "PASS", start, start));
+            assertTrue(next > pending.keySet().iterator().next(), "Sequence numbers continue after reopening");
+        }
+        assertEquals(2, Files.readAllLines(file.toPath()).size(), "Acknowledged records are compacted away on reopen");
+    }
+
+    @Test
+    void skipsTornRecordAndRemovesFileOnceEverythingIsAcknowledged() throws Exception {
+        File file = new File(tempDir, "zephyr.log");
+        Instant now = Instant.now();
+        try (PushOutbox outbox = PushOutbox.open(file)) {
+            outbox.append(new UnifiedTestResult("a", "PASS", now, now));
+        }
+        Files.write(file.toPath(), "{\"seq\":2,\"name\":\"b\",\"sta".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (PushOutbox outbox = PushOutbox.open(file)) {
+            Map<Long, UnifiedTestResult> pending = outbox.getPending();
+            assertEquals(1, pending.size(), "Torn last line from a killed build is ignored");
+            outbox.acknowledge(pending.keySet());
+        }
+        assertFalse(file.exists());
+    }
+
+    @Test
+    void skipsRecordsWithMissingOrMistypedFields() throws Exception {
+        File file = new File(tempDir, "testrail.log");
+        Instant now = Instant.now();
+        try (PushOutbox outbox = PushOutbox.open(file)) {
+            outbox.append(new UnifiedTestResult("a", "PASS", now, now));
+        }
+        String foreign = String.join("\n",
+            "42",
+            "{\"name\":\"no-seq\"}",
+            "{\"seq\":\"7\",\"name\":\"text-seq\"}",
+            "{\"ack\":{\"1\":true}}",
+            "{\"ack\":[\"1\"]}",
+            "{\"seq\":5,\"name\":\"b\",\"status\":\"FAIL\",\"start\":\"yesterday\",\"metadata\":\"none\",\"steps\":[1]}",
+            "");
+        Files.write(file.toPath(), foreign.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (PushOutbox outbox = PushOutbox.open(file)) {
+            Map<Long, UnifiedTestResult> pending = outbox.getPending();
+            assertEquals(List.of(1L, 5L), List.copyOf(pending.keySet()), "Only well-formed records and acknowledgements count");
+            UnifiedTestResult b = pending.get(5L);
+            assertEquals("b", b.getName());
+            assertNull(b.getStartTime());
+            assertTrue(b.getMetadata().isEmpty());
+            assertTrue(b.getSteps().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension;
+import io.github.mov2day.unifiedtest.reporting.HttpClientService;
+import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the build service sharing test management systems, and their runs, across test tasks and projects.
+ */
+class TestManagementServiceTest {
+    private TmsStandInServer standIn;
+    private Project root;
+    private Project child;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        standIn = TmsStandInServer.start();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            names.add("com.example.Test.test" + i);
+        }
+        standIn.addTestCases(names);
+        root = ProjectBuilder.builder().build();
+        child = ProjectBuilder.builder().withParent(root).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        standIn.close();
+    }
+
+    @Test
+    void testTasksOfAllProjectsReportIntoOneRunCompletedAtBuildEnd() {
+        Provider<HttpClientService> httpClient = HttpClientService.register(root, root.getProviders().provider(() -> 2));
+        Provider<TestManagementService> service = TestManagementService.register(root, httpClient, budget(root, 30));
+        assertSame(service.get(), TestManagementService.register(child, httpClient, budget(child, 0)).get());
+        assertTrue(service.get().getPushBudget().isLimited(), "The first project's budget applies to the whole build");
+
+        List<TestManagementSystem> rootSystems = service.get().getSystems(extension(root, TmsStandInServer.TESTRAIL_SUITE_ID));
+        List<TestManagementSystem> childSystems = service.get().getSystems(extension(child, TmsStandInServer.TESTRAIL_SUITE_ID));
+        assertEquals(1, rootSystems.size());
+        assertSame(rootSystems.get(0), childSystems.get(0), "Projects reporting into the same suite share the system");
+
+        // Two test tasks, each pushing its results when it finishes
+        runTestTask(rootSystems.get(0), 0, 20);
+        runTestTask(childSystems.get(0), 20, 35);
+        assertEquals(1, standIn.getRequestCount("testrail:add_run"), "Later tasks join the run of the first");
+        assertEquals(35, standIn.getDeliveries().size());
+        assertEquals(1, standIn.getRequestCount("testrail:get_cases"), "Cases are looked up once per build");
+
+        // Results still queued when the build finishes are pushed when the service closes, even if Gradle closed the
+        // HTTP client service first
+        Instant now = Instant.now();
+        for (int i = 35; i < 40; i++) {
+            childSystems.get(0).queueTestResult(new UnifiedTestResult("com.example.Test.test" + i, "PASS", now, now));
+        }
+        httpClient.get().close();
+        service.get().close();
+        assertTrue(rootSystems.get(0).getLastStatus().isSuccess(), rootSystems.get(0).getLastStatus().getMessage());
+        assertEquals(40, standIn.getDeliveries().size());
+    }
+
+    @Test
+    void differentTargetsGetTheirOwnSystems() {
+        Provider<HttpClientService> httpClient = HttpClientService.register(root, root.getProviders().provider(() -> 2));
+        TestManagementService service = TestManagementService.register(root, httpClient, budget(root, 0)).get();
+
+        TestManagementSystem first = service.getSystems(extension(root, TmsStandInServer.TESTRAIL_SUITE_ID)).get(0);
+        TestManagementSystem other = service.getSystems(extension(child, "3")).get(0);
+        assertNotSame(first, other);
+
+        TestManagementExtension disabled = root.getObjects().newInstance(TestManagementExtension.class);
+        assertTrue(service.getSystems(disabled).isEmpty());
+        service.close();
+    }
+
+    @Test
+    void runKeyOfAConfigurationMatchesTheSystemItCreates() {
+        TestManagementExtension extension = extension(root, TmsStandInServer.TESTRAIL_SUITE_ID);
+        extension.zephyr(config -> {
+            config.getServerUrl().set(standIn.getUrl());
+            config.getApiKey().set("token");
+            config.getProjectKey().set(TmsStandInServer.PROJECT);
+        });
+        TestManagementSystemFactory factory = new TestManagementSystemFactory();
+
+        for (TestManagementExtension.TestManagementSystem config : extension.getSystems()) {
+            TestManagementSystem system = factory.createSystem(config.getType());
+            system.initialize(config.getConfig());
+            assertTrue(system.isConfigured(), config.getType());
+            assertEquals(system.getRunKey(), factory.runKeyOf(config.getType(), config.getConfig()),
+                "Shared systems are looked up by the run key of their configuration");
+        }
+
+        TestManagementExtension incomplete = root.getObjects().newInstance(TestManagementExtension.class);
+        incomplete.testRail(config -> config.getServerUrl().set(standIn.getUrl()));
+        TestManagementExtension.TestManagementSystem config = incomplete.getSystems().iterator().next();
+        assertNull(factory.runKeyOf(config.getType(), config.getConfig()), "Incomplete configurations are never shared");
+    }
+
+    private void runTestTask(TestManagementSystem system, int from, int to) {
+        Instant now = Instant.now();
+        for (int i = from; i < to; i++) {
+            system.queueTestResult(new UnifiedTestResult("com.example.Test.test" + i, "PASS", now, now));
+        }
+        system.pushQueuedResults();
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+    }
+
+    private static Provider<Integer> budget(Project project, int seconds) {
+        return project.getProviders().provider(() -> seconds);
+    }
+
+    private TestManagementExtension extension(Project project, String suiteId) {
+        TestManagementExtension extension = project.getObjects().newInstance(TestManagementExtension.class);
+        extension.getEnabled().set(true);
+        extension.getStateDirectory().set(project.getLayout().getBuildDirectory().dir("unifiedtest"));
+        extension.testRail(config -> {
+            config.getServerUrl().set(standIn.getUrl());
+            config.getApiKey().set("key");
+            config.getProjectId().set(TmsStandInServer.TESTRAIL_PROJECT_ID);
+            config.getSuiteId().set(suiteId);
+            config.getFlushBatchSize().set(0);
+        });
+        return extension;
+    }
+}
@@ -0,0 +1,221 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension.TestRailConfig;
+import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TestRailManagementSystem against the TMS stand-in.
+ */
+class TestRailManagementSystemTest {
+    private static final int CASE_COUNT = 500;
+
+    private final Gson gson = new Gson();
+    private TmsStandInServer standIn;
+    private TestRailConfig config;
+
+    @TempDir
+    File tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        standIn = TmsStandInServer.start();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < CASE_COUNT; i++) {
+            names.add("test" + i);
+        }
+        standIn.addTestCases(names);
+
+        config = new TestRailConfig(ProjectBuilder.builder().build().getObjects());
+        config.getServerUrl().set(standIn.getUrl());
+        config.getApiKey().set("key");
+        config.getProjectId().set(TmsStandInServer.TESTRAIL_PROJECT_ID);
+        config.getSuiteId().set(TmsStandInServer.TESTRAIL_SUITE_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        standIn.close();
+    }
+
+    @Test
+    void pushesResultsInChunksToARunLimitedToTheReportedCases() {
+        config.getBatchSize().set(200);
+        TestRailManagementSystem system = new TestRailManagementSystem();
+        system.initialize(config);
+
+        List<UnifiedTestResult> results = new ArrayList<>();
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < CASE_COUNT; i++) {
+            String status = i % 10 == 0 ? "FAIL" : "PASS";
+            results.add(new UnifiedTestResult("test" + i, status, start, start.plusSeconds(i % 3)));
+        }
+
+        Map<String, String> ids = system.pushResults(results);
+
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        assertEquals(CASE_COUNT, ids.size());
+        assertEquals(caseId("test0"), ids.get("test0"));
+
+        List<TmsStandInServer.Request> runs = standIn.getRequests("testrail:add_run");
+        assertEquals(1, runs.size());
+        JsonObject run = gson.fromJson(runs.get(0).getBody(), JsonObject.class);
+        assertFalse(run.get("include_all").getAsBoolean());
+        assertEquals(CASE_COUNT, run.getAsJsonArray("case_ids").size());
+
+        assertEquals(3, standIn.getRequestCount("testrail:add_results_for_cases"), "500 results in chunks of 200");
+        assertEquals(0, standIn.getRequestCount("testrail:add_result_for_case"), "No per-result requests");
+        assertEquals(2, standIn.getRequestCount("testrail:get_cases"), "Case catalog is fetched once, in pages of 250");
+        JsonArray firstBatch = resultBatches().get(0);
+        JsonObject first = firstBatch.get(0).getAsJsonObject();
+        assertEquals(caseId("test0"), first.get("case_id").getAsString());
+        assertEquals(5, first.get("status_id").getAsInt());
+        assertFalse(first.has("elapsed"), "Sub-second durations are omitted");
+        assertEquals("1s", firstBatch.get(1).getAsJsonObject().get("elapsed").getAsString());
+    }
+
+    @Test
+    void reusesTheCachedCatalogAcrossBuildsAndRevalidatesIncrementally() {
+        config.getCacheDirectory().set(tempDir);
+        List<UnifiedTestResult> results = List.of(result("test1"), result("test2"));
+
+        push(results);
+        assertEquals(2, standIn.getRequestCount("testrail:get_cases"));
+        assertTrue(new File(tempDir, "testrail-cases-1-2.json").isFile());
+
+        // A later build within the TTL does not contact get_cases at all
+        push(results);
+        assertEquals(2, standIn.getRequestCount("testrail:get_cases"));
+
+        // Once the TTL has passed only updated cases are requested, and renames are picked up
+        config.getCaseCacheTtlMinutes().set(0);
+        standIn.renameTestCase("test2", "renamed");
+        Map<String, String> ids = push(List.of(result("renamed"), result("test2")));
+        assertEquals(3, standIn.getRequestCount("testrail:get_cases"));
+        String revalidation = standIn.getRequests("testrail:get_cases").get(2).getRoute();
+        assertTrue(revalidation.contains("&updated_after="), revalidation);
+        assertEquals(caseId("renamed"), ids.get("renamed"));
+        assertNull(ids.get("test2"), "Old title of a renamed case no longer matches");
+    }
+
+    @Test
+    void matchesByAutomationIdAndSkipsUnknownCasesWithoutCreatingThem() {
+        standIn.setAutomationId("test5", "com.example.LoginTest.testLogin");
+
+        Map<String, String> ids = push(List.of(result("com.example.LoginTest.testLogin"), result("unknown")));
+
+        assertEquals(caseId("test5"), ids.get("com.example.LoginTest.testLogin"));
+        assertFalse(ids.containsKey("unknown"));
+        assertEquals(0, standIn.getRequestCount("testrail:add_case"), "Cases are only created when createTestCases is on");
+        JsonObject run = gson.fromJson(standIn.getRequests("testrail:add_run").get(0).getBody(), JsonObject.class);
+        assertEquals(1, run.getAsJsonArray("case_ids").size());
+    }
+
+    @Test
+    void backgroundBatchesShareOneRun() throws Exception {
+        config.getFlushBatchSize().set(2);
+        TestRailManagementSystem system = new TestRailManagementSystem();
+        system.initialize(config);
+
+        for (int i = 0; i < 5; i++) {
+            system.queueTestResult(result("test" + i));
+            Thread.sleep(50);
+        }
+        system.flushResults();
+
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        List<JsonArray> batches = resultBatches();
+        assertEquals(1, standIn.getRequestCount("testrail:add_run"), "All batches of a build go to one run");
+        assertTrue(batches.size() > 1, "Results were pushed in several batches");
+        assertEquals(batches.size() - 1, standIn.getRequestCount("testrail:update_run"), "Each later batch adds its cases to the run");
+        assertEquals(5, batches.stream().mapToInt(JsonArray::size).sum());
+    }
+
+    @Test
+    void retriesATransientlyFailingChunkOnItsOwn() {
+        config.getBatchSize().set(200);
+        standIn.failRequest("testrail:add_results_for_cases", 2, 503);
+        TestRailManagementSystem system = new TestRailManagementSystem();
+        system.setRetryDelayMillis(10);
+        system.initialize(config);
+
+        Map<String, String> ids = system.pushResults(results(CASE_COUNT));
+
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        assertEquals(CASE_COUNT, ids.size());
+        assertEquals(1, standIn.getRequestCount("testrail:add_run"));
+        assertEquals(4, standIn.getRequestCount("testrail:add_results_for_cases"), "Only the rejected request is sent again");
+        assertEquals(CASE_COUNT, standIn.getDeliveries().size(), "No result is reported twice");
+    }
+
+    @Test
+    void resendsOnlyUndeliveredChunksIntoTheSameRun() {
+        config.getBatchSize().set(200);
+        standIn.failRequest("testrail:add_results_for_cases", 2, 400);
+        TestRailManagementSystem system = new TestRailManagementSystem();
+        system.setRetryDelayMillis(10);
+        system.initialize(config);
+
+        Map<String, String> ids = system.pushResults(results(CASE_COUNT));
+
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        assertEquals(CASE_COUNT, ids.size(), "IDs of chunks delivered before the failure are kept");
+        assertEquals(1, standIn.getRequestCount("testrail:add_run"), "The retry reuses the run");
+        assertEquals(0, standIn.getRequestCount("testrail:update_run"), "The run already covers the resent cases");
+        assertEquals(4, standIn.getRequestCount("testrail:add_results_for_cases"));
+        List<JsonArray> batches = resultBatches();
+        assertEquals(List.of(200, 200, 100), batches.stream().map(JsonArray::size).collect(Collectors.toList()));
+        assertEquals(caseId("test200"), batches.get(1).get(0).getAsJsonObject().get("case_id").getAsString(),
+            "The retry starts at the first undelivered result");
+    }
+
+    private static List<UnifiedTestResult> results(int count) {
+        List<UnifiedTestResult> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(result("test" + i));
+        }
+        return results;
+    }
+
+    private Map<String, String> push(List<UnifiedTestResult> results) {
+        TestRailManagementSystem system = new TestRailManagementSystem();
+        system.initialize(config);
+        Map<String, String> ids = system.pushResults(results);
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        return ids;
+    }
+
+    /**
+     * Gets the results of every accepted add_results_for_cases request, in arrival order.
+     */
+    private List<JsonArray> resultBatches() {
+        return standIn.getRequests("testrail:add_results_for_cases").stream()
+            .filter(request -> request.getStatus() == 200)
+            .map(request -> gson.fromJson(request.getBody(), JsonObject.class).getAsJsonArray("results"))
+            .collect(Collectors.toList());
+    }
+
+    private String caseId(String name) {
+        return String.valueOf(standIn.getTestCaseId(name));
+    }
+
+    private static UnifiedTestResult result(String name) {
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        return new UnifiedTestResult(name, "PASS", start, start);
+    }
+}
@@ -0,0 +1,163 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension.TestRailConfig;
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension.ZephyrConfig;
+import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Push throughput of each strategy against the TMS stand-in, run with {@code ./gradlew benchmark}.
+ * For every strategy it reports results per second and the p99 push latency, i.e. the time from the start of the
+ * push until a result arrived at the server. Sizes can be changed with {@code -Dbenchmark.results=<n>} and
+ * {@code -Dbenchmark.latencyMs=<ms>}. Timing expectations that do not hold on every machine, such as the speed-up of
+ * concurrent Zephyr pushes, are checked here rather than in the {@code test} task.
+ */
+@Tag("benchmark")
+class TmsPushBenchmark {
+    private static final int RESULTS = Integer.getInteger("benchmark.results", 500);
+    private static final int LATENCY_MS = Integer.getInteger("benchmark.latencyMs", 10);
+
+    private final ObjectFactory objects = ProjectBuilder.builder().build().getObjects();
+    private final List<String> report = new ArrayList<>();
+    private TmsStandInServer standIn;
+    private List<UnifiedTestResult> results;
+
+    @TempDir
+    File stateDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        standIn = TmsStandInServer.start();
+        results = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        Instant now = Instant.now();
+        for (int i = 0; i < RESULTS; i++) {
+            names.add("com.example.Suite" + (i % 20) + ".test" + i);
+            results.add(new UnifiedTestResult(names.get(i), i % 25 == 0 ? "FAIL" : "PASS", now, now));
+        }
+        standIn.addTestCases(names);
+    }
+
+    @AfterEach
+    void tearDown() {
+        standIn.close();
+    }
+
+    @Test
+    void pushStrategies() {
+        report.add(String.format("%-36s %10s %10s %10s %9s", "strategy", "results/s", "p99 ms", "requests", "faults"));
+
+        for (int batchSize : new int[] {1, 50, 250}) {
+            run("testrail bulk, batchSize " + batchSize, 0, 0, () -> testRail(config -> config.getBatchSize().set(batchSize)));
+        }
+        run("testrail bulk 250, 5% 503", 0.05, 0, () -> testRail(config -> config.getBatchSize().set(250)));
+        double serial = 0;
+        double concurrent = 0;
+        for (int concurrency : new int[] {1, 4, 16}) {
+            double perSecond = run("zephyr cloud, " + concurrency + " in flight", 0, 0,
+                () -> zephyr("cloud", config -> config.getMaxConcurrentRequests().set(concurrency)));
+            if (concurrency == 1) {
+                serial = perSecond;
+            } else {
+                concurrent = perSecond;
+            }
+        }
+        run("zephyr cloud 8 in flight, 2% 429", 0, 0.02, () -> zephyr("cloud", config -> config.getMaxConcurrentRequests().set(8)));
+        run("zephyr server", 0, 0, () -> zephyr("server", config -> config.getUsername().set("ci-bot")));
+
+        // A green rebuild with the changed-verdicts policy; the first build primes the status cache
+        Supplier<AbstractTestManagementSystem> differential = () -> testRail(config -> {
+            config.getSyncPolicy().set("changed");
+            config.getStateDirectory().set(stateDir);
+            config.getOutboxEnabled().set(false);
+        });
+        AbstractTestManagementSystem priming = differential.get();
+        results.forEach(priming::queueTestResult);
+        priming.flushResults();
+        standIn.reset();
+        run("testrail, changed-verdicts rebuild", 0, 0, differential, 0);
+
+        System.out.println("TMS push benchmark: " + RESULTS + " results, " + LATENCY_MS + " ms server latency");
+        report.forEach(System.out::println);
+        assertTrue(concurrent > 3 * serial, String.format("Expected at least 3x speed-up of concurrent Zephyr pushes, "
+            + "got %.0f results/s with 16 in flight vs %.0f with 1", concurrent, serial));
+    }
+
+    private double run(String strategy, double errorRate, double throttleRate, Supplier<AbstractTestManagementSystem> factory) {
+        return run(strategy, errorRate, throttleRate, factory, RESULTS);
+    }
+
+    /**
+     * Pushes all results once and adds a line to the report.
+     * @return the throughput in results per second
+     */
+    private double run(String strategy, double errorRate, double throttleRate, Supplier<AbstractTestManagementSystem> factory,
+                     int expectedDeliveries) {
+        standIn.reset();
+        standIn.setLatency(Duration.ofMillis(LATENCY_MS), Duration.ofMillis(LATENCY_MS / 2));
+        standIn.setErrorRate(errorRate);
+        standIn.setThrottleRate(throttleRate, 0);
+        AbstractTestManagementSystem system = factory.get();
+        system.setRetryDelayMillis(20);
+
+        long start = System.nanoTime();
+        results.forEach(system::queueTestResult);
+        system.flushResults();
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(system.getLastStatus().isSuccess(), strategy + ": " + system.getLastStatus().getMessage());
+        List<TmsStandInServer.Delivery> deliveries = standIn.getDeliveries();
+        assertEquals(expectedDeliveries, deliveries.size(), strategy);
+
+        long[] latencies = deliveries.stream().mapToLong(delivery -> delivery.getReceivedAtNanos() - start).toArray();
+        Arrays.sort(latencies);
+        long p99 = latencies.length == 0 ? 0 : latencies[Math.max(0, (int) Math.ceil(latencies.length * 0.99) - 1)];
+        double perSecond = RESULTS / Math.max(1e-9, elapsed / 1e9);
+        report.add(String.format("%-36s %10.0f %10d %10d %9d", strategy, perSecond, p99 / 1_000_000,
+            standIn.getRequestCount(), standIn.getInjectedErrors() + standIn.getInjectedThrottles()));
+        return perSecond;
+    }
+
+    private AbstractTestManagementSystem testRail(Consumer<TestRailConfig> configure) {
+        TestRailConfig config = new TestRailConfig(objects);
+        config.getServerUrl().set(standIn.getUrl());
+        config.getApiKey().set("key");
+        config.getProjectId().set(TmsStandInServer.TESTRAIL_PROJECT_ID);
+        config.getSuiteId().set(TmsStandInServer.TESTRAIL_SUITE_ID);
+        config.getFlushBatchSize().set(0);
+        configure.accept(config);
+        TestRailManagementSystem system = new TestRailManagementSystem();
+        system.initialize(config);
+        return system;
+    }
+
+    private AbstractTestManagementSystem zephyr(String apiType, Consumer<ZephyrConfig> configure) {
+        ZephyrConfig config = new ZephyrConfig(objects);
+        config.getServerUrl().set(standIn.getUrl());
+        config.getApiKey().set("token");
+        config.getProjectKey().set(TmsStandInServer.PROJECT);
+        config.getApiType().set(apiType);
+        config.getRequestsPerSecond().set(1000);
+        config.getFlushBatchSize().set(0);
+        configure.accept(config);
+        ZephyrTestManagementSystem system = new ZephyrTestManagementSystem();
+        system.initialize(config);
+        return system;
+    }
+}
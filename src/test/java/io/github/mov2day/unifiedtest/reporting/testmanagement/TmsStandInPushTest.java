@@ -0,0 +1,284 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension.TestRailConfig;
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension.ZephyrConfig;
+import io.github.mov2day.unifiedtest.reporting.SharedHttpClient;
+import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pushes through both systems against the TMS stand-in with injected faults, checking that every result arrives
+ * exactly once.
+ */
+class TmsStandInPushTest {
+    private static final int RESULTS = 120;
+
+    private final ObjectFactory objects = ProjectBuilder.builder().build().getObjects();
+    private TmsStandInServer standIn;
+    private List<UnifiedTestResult> results;
+
+    @TempDir
+    File stateDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        standIn = TmsStandInServer.start();
+        results = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        Instant now = Instant.now();
+        for (int i = 0; i < RESULTS; i++) {
+            names.add("com.example.Test.test" + i);
+            results.add(new UnifiedTestResult(names.get(i), i % 7 == 0 ? "FAIL" : "PASS", now, now));
+        }
+        standIn.addTestCases(names);
+    }
+
+    @AfterEach
+    void tearDown() {
+        standIn.close();
+    }
+
+    @Test
+    void testRailDeliversEveryResultDespiteServerErrors() {
+        standIn.setErrorRate(0.3);
+        TestRailConfig config = new TestRailConfig(objects);
+        config.getServerUrl().set(standIn.getUrl());
+        config.getApiKey().set("key");
+        config.getProjectId().set(TmsStandInServer.TESTRAIL_PROJECT_ID);
+        config.getSuiteId().set(TmsStandInServer.TESTRAIL_SUITE_ID);
+        config.getBatchSize().set(10);
+        TestRailManagementSystem system = new TestRailManagementSystem();
+        system.setRetryDelayMillis(1);
+        system.initialize(config);
+
+        Map<String, String> ids = system.pushResults(results);
+
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        assertEquals(RESULTS, ids.size());
+        assertTrue(standIn.getInjectedErrors() > 0);
+        assertExactlyOnce("testrail");
+    }
+
+    @Test
+    void zephyrCloudDeliversEveryResultDespiteThrottling() {
+        standIn.setThrottleRate(0.05, 0);
+        ZephyrConfig config = zephyrConfig("cloud");
+        ZephyrTestManagementSystem system = new ZephyrTestManagementSystem();
+        system.initialize(config);
+
+        system.pushResults(results);
+
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        assertTrue(standIn.getInjectedThrottles() > 0);
+        assertExactlyOnce("cloud");
+    }
+
+    @Test
+    void zephyrServerReportsIntoOneRunInBulk() {
+        ZephyrConfig config = zephyrConfig("server");
+        config.getUsername().set("ci-bot");
+        config.getBatchSize().set(50);
+        ZephyrTestManagementSystem system = new ZephyrTestManagementSystem();
+        system.initialize(config);
+
+        system.pushResults(results);
+
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        assertEquals(3, standIn.getRequestCount("server:testcase/search"), "Case keys are resolved 50 names per search");
+        assertEquals(2, standIn.getRequestCount("server:testrun"), "One run is created with the first chunk, then marked done");
+        assertEquals(2, standIn.getRequestCount("server:testresults"), "Later chunks are added in one request each");
+        assertEquals(0, standIn.getRequestCount("server:testresult"), "No per-result requests");
+        assertExactlyOnce("server");
+    }
+
+    @Test
+    void zephyrServerCreatesOnlyMissingCases() {
+        ZephyrConfig config = zephyrConfig("server");
+        config.getUsername().set("ci-bot");
+        config.getCreateTestCases().set(true);
+        List<UnifiedTestResult> withNewCase = new ArrayList<>(results);
+        withNewCase.add(new UnifiedTestResult("com.example.Test.\"quoted\" name", "PASS", Instant.now(), Instant.now()));
+        ZephyrTestManagementSystem system = new ZephyrTestManagementSystem();
+        system.initialize(config);
+
+        Map<String, String> ids = system.pushResults(withNewCase);
+
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        assertEquals(1, standIn.getRequestCount("server:testcase"), "Only the unknown case is created");
+        JsonObject created = new Gson().fromJson(standIn.getRequests("server:testcase").get(0).getBody(), JsonObject.class);
+        assertEquals("com.example.Test.\"quoted\" name", created.get("name").getAsString());
+        assertEquals(TmsStandInServer.PROJECT, created.get("projectKey").getAsString());
+        assertFalse(created.has("projectId"), "Server test cases are created by project key");
+        assertEquals("Approved", created.get("status").getAsString());
+        assertEquals("Normal", created.get("priority").getAsString());
+        assertEquals(RESULTS + 1, ids.size());
+        assertEquals(RESULTS + 1, standIn.getDeliveries().size());
+
+        // A later batch of the same system reuses the resolved keys
+        system.pushResults(results.subList(0, 10));
+        assertEquals(3, standIn.getRequestCount("server:testcase/search"));
+    }
+
+    @Test
+    void openCircuitDivertsResultsToTheOutboxUntilTheServerRecovers() throws IOException {
+        standIn.setErrorRate(1.0);
+        TestRailConfig config = testRailConfig();
+        config.getOutboxEnabled().set(false);
+        config.getCircuitBreakerThreshold().set(3);
+        PushBudget budget = PushBudget.unlimited();
+        TestRailManagementSystem system = new TestRailManagementSystem(SharedHttpClient.getDefault(), budget);
+        system.setRetryDelayMillis(1);
+        system.initialize(config);
+
+        system.pushResults(results);
+
+        assertFalse(system.getLastStatus().isSuccess());
+        assertTrue(system.getLastStatus().getMessage().contains("circuit breaker"), system.getLastStatus().getMessage());
+        assertEquals(3, standIn.getRequestCount(), "No request is sent once the circuit is open");
+        assertEquals(RESULTS, pendingInOutbox(), "Unsent results are kept even with the outbox disabled");
+
+        // Another test task of the same build finds the circuit open and sends nothing
+        TestRailManagementSystem nextTask = new TestRailManagementSystem(SharedHttpClient.getDefault(), budget);
+        nextTask.initialize(testRailConfig());
+        nextTask.pushResults(results.subList(0, 5));
+        assertEquals(3, standIn.getRequestCount());
+        assertEquals(RESULTS + 5, pendingInOutbox());
+
+        standIn.setErrorRate(0);
+        TestRailManagementSystem later = new TestRailManagementSystem();
+        later.initialize(testRailConfig());
+        assertEquals(RESULTS + 5, later.pushPending(), "Results of both tasks are sent once the server is back");
+        assertEquals(RESULTS + 5, standIn.getDeliveries().size());
+        assertEquals(0, pendingInOutbox());
+    }
+
+    @Test
+    void openCircuitOfOneServerDoesNotDivertPushesToAnother() throws IOException {
+        standIn.setErrorRate(1.0);
+        PushBudget budget = PushBudget.unlimited();
+        TestRailConfig deadConfig = testRailConfig();
+        deadConfig.getCircuitBreakerThreshold().set(3);
+        TestRailManagementSystem dead = new TestRailManagementSystem(SharedHttpClient.getDefault(), budget);
+        dead.setRetryDelayMillis(1);
+        dead.initialize(deadConfig);
+        dead.pushResults(results);
+        assertFalse(dead.getLastStatus().isSuccess());
+
+        try (TmsStandInServer healthyServer = TmsStandInServer.start()) {
+            healthyServer.addTestCases(results.stream().map(UnifiedTestResult::getName).collect(Collectors.toList()));
+            TestRailConfig healthyConfig = testRailConfig();
+            healthyConfig.getServerUrl().set(healthyServer.getUrl());
+            TestRailManagementSystem healthy = new TestRailManagementSystem(SharedHttpClient.getDefault(), budget);
+            healthy.initialize(healthyConfig);
+
+            healthy.pushResults(results);
+
+            assertTrue(healthy.getLastStatus().isSuccess(), healthy.getLastStatus().getMessage());
+            assertEquals(RESULTS, healthyServer.getDeliveries().size());
+        }
+    }
+
+    @Test
+    void abortedProbeDoesNotKeepTheCircuitOpen() throws Exception {
+        AtomicBoolean failNext = new AtomicBoolean(true);
+        PushBudget budget = PushBudget.unlimited();
+        TestRailConfig config = testRailConfig();
+        config.getCircuitBreakerThreshold().set(1);
+        config.getCircuitBreakerOpenSeconds().set(0);
+        try (SharedHttpClient client = new SharedHttpClient(2, Duration.ofSeconds(5)) {
+            @Override
+            public HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+                if (failNext.getAndSet(false)) {
+                    throw new IllegalStateException("client shut down");
+                }
+                return super.send(request);
+            }
+        }) {
+            TestRailManagementSystem system = new TestRailManagementSystem(client, budget);
+            system.setRetryDelayMillis(1);
+            system.initialize(config);
+            // An earlier failure left the circuit open; its period is over, so the next request is the probe
+            CircuitBreaker breaker = budget.getBreaker(system.getRunKey(), 1, Duration.ZERO);
+            breaker.onFailure();
+
+            system.pushResults(results.subList(0, 5));
+
+            assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+            assertEquals(5, standIn.getDeliveries().size());
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        }
+    }
+
+    @Test
+    void pushBudgetBoundsTheTimeASlowServerAddsToTheBuild() throws IOException {
+        standIn.setLatency(Duration.ofMillis(100), Duration.ZERO);
+        TestRailConfig config = testRailConfig();
+        config.getBatchSize().set(5);
+        TestRailManagementSystem system = new TestRailManagementSystem(SharedHttpClient.getDefault(),
+            new PushBudget(Duration.ofMillis(800)));
+        system.initialize(config);
+
+        long start = System.nanoTime();
+        system.pushResults(results);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertFalse(system.getLastStatus().isSuccess());
+        assertTrue(elapsedMillis < 1500, "Push took " + elapsedMillis + " ms");
+        int delivered = standIn.getDeliveries().size();
+        assertTrue(delivered > 0 && delivered < RESULTS, delivered + " results delivered");
+        assertEquals(RESULTS - delivered, pendingInOutbox(), "Everything not delivered waits in the outbox");
+    }
+
+    private TestRailConfig testRailConfig() {
+        TestRailConfig config = new TestRailConfig(objects);
+        config.getServerUrl().set(standIn.getUrl());
+        config.getApiKey().set("key");
+        config.getProjectId().set(TmsStandInServer.TESTRAIL_PROJECT_ID);
+        config.getSuiteId().set(TmsStandInServer.TESTRAIL_SUITE_ID);
+        config.getStateDirectory().set(stateDir);
+        config.getFlushBatchSize().set(0);
+        return config;
+    }
+
+    private int pendingInOutbox() throws IOException {
+        try (PushOutbox outbox = PushOutbox.open(new File(stateDir, PushOutbox.DIR_NAME + "/testrail.log"))) {
+            return outbox.getPending().size();
+        }
+    }
+
+    private ZephyrConfig zephyrConfig(String apiType) {
+        ZephyrConfig config = new ZephyrConfig(objects);
+        config.getServerUrl().set(standIn.getUrl());
+        config.getApiKey().set("token");
+        config.getProjectKey().set(TmsStandInServer.PROJECT);
+        config.getApiType().set(apiType);
+        config.getRequestsPerSecond().set(1000);
+        return config;
+    }
+
+    private void assertExactlyOnce(String api) {
+        List<TmsStandInServer.Delivery> deliveries = standIn.getDeliveries();
+        assertEquals(RESULTS, deliveries.size(), "No result is lost or duplicated");
+        assertEquals(RESULTS, deliveries.stream().map(TmsStandInServer.Delivery::getTestCase).distinct().count());
+        assertTrue(deliveries.stream().allMatch(delivery -> delivery.getApi().equals(api)));
+    }
+}
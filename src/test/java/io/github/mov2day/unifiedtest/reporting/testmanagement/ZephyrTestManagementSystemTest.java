@@ -0,0 +1,166 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import io.github.mov2day.unifiedtest.extension.TestManagementExtension.ZephyrConfig;
+import io.github.mov2day.unifiedtest.reporting.UnifiedTestResult;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the concurrent Zephyr Cloud push against the TMS stand-in.
+ */
+class ZephyrTestManagementSystemTest {
+    private static final String EXECUTIONS = "cloud:testexecutions";
+
+    private final Gson gson = new Gson();
+    private TmsStandInServer standIn;
+    private ZephyrConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        standIn = TmsStandInServer.start();
+
+        config = new ZephyrConfig(ProjectBuilder.builder().build().getObjects());
+        config.getServerUrl().set(standIn.getUrl());
+        config.getApiKey().set("token");
+        config.getProjectKey().set(TmsStandInServer.PROJECT);
+        config.getRequestsPerSecond().set(1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        standIn.close();
+    }
+
+    @Test
+    void boundsRequestsInFlightByConcurrency() {
+        // Requests have to take a while to overlap
+        standIn.setLatency(Duration.ofMillis(15), Duration.ZERO);
+        List<UnifiedTestResult> results = results(60);
+
+        push(1, results);
+        assertEquals(1, standIn.getMaxInFlight(), "A concurrency of 1 sends one request at a time");
+        standIn.reset();
+        push(8, results);
+
+        assertEquals(results.size(), standIn.getDeliveries().size());
+        assertTrue(standIn.getMaxInFlight() > 1, "Requests overlap, " + standIn.getMaxInFlight() + " in flight");
+        assertTrue(standIn.getMaxInFlight() <= 8, "In-flight window is bounded, " + standIn.getMaxInFlight() + " in flight");
+    }
+
+    @Test
+    void backsOffOn429AndRetriesAfterRetryAfter() {
+        standIn.setThrottleRate(0, 1);
+        for (int call = 1; call <= 3; call++) {
+            standIn.failRequest(EXECUTIONS, call, 429);
+        }
+        ZephyrTestManagementSystem system = system(4);
+
+        Map<String, String> ids = system.pushResults(results(10));
+
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        assertEquals(10, ids.size());
+        assertEquals(10, standIn.getDeliveries().size(), "Throttled requests are retried, not lost");
+        assertEquals(13, standIn.getRequestCount(EXECUTIONS), "Each throttled request is sent once more");
+
+        List<TmsStandInServer.Request> requests = standIn.getRequests(EXECUTIONS);
+        int throttled = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            TmsStandInServer.Request rejected = requests.get(i);
+            if (rejected.getStatus() != 429) {
+                continue;
+            }
+            throttled++;
+            TmsStandInServer.Request resent = null;
+            for (TmsStandInServer.Request later : requests.subList(i + 1, requests.size())) {
+                if (testCase(later).equals(testCase(rejected))) {
+                    resent = later;
+                    break;
+                }
+            }
+            assertNotNull(resent, "Throttled execution of " + testCase(rejected) + " is resent");
+            long waitedMs = TimeUnit.NANOSECONDS.toMillis(resent.getReceivedAtNanos() - rejected.getAnsweredAtNanos());
+            assertTrue(waitedMs >= 1000, "Resent " + waitedMs + " ms after a Retry-After of 1 s");
+        }
+        assertEquals(3, throttled);
+    }
+
+    @Test
+    void retriesGatewayErrorsPerRequest() {
+        for (int call = 1; call <= 4; call++) {
+            standIn.failRequest(EXECUTIONS, call, 503);
+        }
+        ZephyrTestManagementSystem system = system(4);
+        system.setRetryDelayMillis(10);
+
+        Map<String, String> ids = system.pushResults(results(10));
+
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        assertEquals(10, ids.size());
+        assertEquals(14, standIn.getRequestCount(EXECUTIONS), "Each failed execution is resent once");
+        assertEquals(10, standIn.getDeliveries().size(), "No execution is reported twice");
+    }
+
+    @Test
+    void keepsExecutionOrderPerTestCase() {
+        List<UnifiedTestResult> results = new ArrayList<>(results(20));
+        standIn.addTestCases(List.of("repeated"));
+        Instant now = Instant.now();
+        results.add(5, new UnifiedTestResult("repeated", "PASS", now, now));
+        results.add(new UnifiedTestResult("repeated", "FAIL", now, now, "boom", null));
+        results.add(new UnifiedTestResult("repeated", "SKIP", now, now));
+
+        ZephyrTestManagementSystem system = system(8);
+        system.pushResults(results);
+
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+        String repeated = String.valueOf(standIn.getTestCaseId("repeated"));
+        List<String> statuses = new ArrayList<>();
+        for (TmsStandInServer.Delivery delivery : standIn.getDeliveries()) {
+            if (delivery.getTestCase().equals(repeated)) {
+                statuses.add(delivery.getStatus());
+            }
+        }
+        assertEquals(List.of("PASS", "FAIL", "SKIP"), statuses);
+    }
+
+    private void push(int concurrency, List<UnifiedTestResult> results) {
+        ZephyrTestManagementSystem system = system(concurrency);
+        system.pushResults(results);
+        assertTrue(system.getLastStatus().isSuccess(), system.getLastStatus().getMessage());
+    }
+
+    private ZephyrTestManagementSystem system(int concurrency) {
+        config.getMaxConcurrentRequests().set(concurrency);
+        ZephyrTestManagementSystem system = new ZephyrTestManagementSystem();
+        system.initialize(config);
+        return system;
+    }
+
+    private List<UnifiedTestResult> results(int count) {
+        List<UnifiedTestResult> results = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        Instant now = Instant.now();
+        for (int i = 0; i < count; i++) {
+            names.add("com.example.Test.test" + i);
+            results.add(new UnifiedTestResult(names.get(i), "PASS", now, now));
+        }
+        standIn.addTestCases(names);
+        return results;
+    }
+
+    private String testCase(TmsStandInServer.Request execution) {
+        return gson.fromJson(execution.getBody(), JsonObject.class).get("testCaseId").getAsString();
+    }
+}
@@ -0,0 +1,660 @@
+package io.github.mov2day.unifiedtest.reporting.testmanagement;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the test management APIs the plugin talks to, for tests and benchmarks that should not
+ * depend on a real TestRail or Jira instance. It implements the endpoints used by {@link TestRailManagementSystem}
+ * (TestRail API v2) and {@link ZephyrTestManagementSystem} (Zephyr Scale Cloud v2 and Server {@code /rest/atm/1.0}),
+ * keeps the cases, runs and results it receives in memory, and can inject latency, server errors and throttling.
+ * <p>
+ * Faults are injected before a request is processed, so a rejected request leaves no trace other than its count
+ * and its {@link Request} entry. Every received result is recorded as a {@link Delivery} with its arrival time.
+ * <p>
+ * The server runs with the JDK's default socket settings, so measured latencies include the same TCP behaviour a
+ * client sees against a real server; no JVM-wide tuning such as {@code sun.net.httpserver.nodelay} is applied.
+ */
+public class TmsStandInServer implements AutoCloseable {
+    /** Project id and key the stand-in answers to */
+    public static final String PROJECT = "PROJ";
+    /** TestRail project id */
+    public static final String TESTRAIL_PROJECT_ID = "1";
+    /** TestRail suite id */
+    public static final String TESTRAIL_SUITE_ID = "2";
+
+    private static final int TESTRAIL_MAX_PAGE = 250;
+    private static final Pattern QUOTED = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    private final Gson gson = new Gson();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, StoredCase> casesByName = new ConcurrentHashMap<>();
+    private final List<StoredCase> cases = new CopyOnWriteArrayList<>();
+    private final List<Delivery> deliveries = new CopyOnWriteArrayList<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final Map<String, List<Request>> requestLog = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, Integer>> scheduledFaults = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1000);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger injectedErrors = new AtomicInteger();
+    private final AtomicInteger injectedThrottles = new AtomicInteger();
+    private final Random random = new Random(42);
+
+    private volatile long latencyMillis;
+    private volatile long latencyJitterMillis;
+    private volatile double errorRate;
+    private volatile double throttleRate;
+    private volatile int retryAfterSeconds = 1;
+
+    private TmsStandInServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "tms-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts a stand-in on a free local port.
+     * @return the running server
+     * @throws IOException if the server cannot be bound
+     */
+    public static TmsStandInServer start() throws IOException {
+        TmsStandInServer standIn = new TmsStandInServer();
+        standIn.server.start();
+        return standIn;
+    }
+
+    /**
+     * Gets the base URL to configure as {@code serverUrl} of either system.
+     * @return the base URL
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Sets the time every request takes to process.
+     * @param latency the fixed latency
+     * @param jitter a uniformly distributed extra latency of up to this much
+     */
+    public void setLatency(Duration latency, Duration jitter) {
+        this.latencyMillis = latency.toMillis();
+        this.latencyJitterMillis = jitter.toMillis();
+    }
+
+    /**
+     * Sets the share of requests answered with {@code 503 Service Unavailable}.
+     * @param errorRate the share, between 0 and 1
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Sets the share of requests answered with {@code 429 Too Many Requests}.
+     * @param throttleRate the share, between 0 and 1
+     * @param retryAfterSeconds the {@code Retry-After} sent with each 429
+     */
+    public void setThrottleRate(double throttleRate, int retryAfterSeconds) {
+        this.throttleRate = throttleRate;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Answers one request of an endpoint with an error, whatever the random fault rates say. A {@code 429} carries
+     * the {@code Retry-After} set with {@link #setThrottleRate(double, int)}.
+     * @param endpoint the endpoint, as in {@link #getRequestCount(String)}
+     * @param call the number of the request to fail, counting from 1
+     * @param status the status to answer with
+     */
+    public void failRequest(String endpoint, int call, int status) {
+        scheduledFaults.computeIfAbsent(endpoint, e -> new ConcurrentHashMap<>()).put(call, status);
+    }
+
+    /**
+     * Registers existing test cases, known to both TestRail and Zephyr under their name. They count as last
+     * updated before any sync, so an incremental TestRail fetch does not return them.
+     * @param names the case titles
+     */
+    public void addTestCases(Collection<String> names) {
+        for (String name : names) {
+            testCase(name, 0);
+        }
+    }
+
+    /**
+     * Gets the id of a test case.
+     * @param name the case title
+     * @return the id, or null if there is no such case
+     */
+    public Long getTestCaseId(String name) {
+        StoredCase testCase = casesByName.get(name);
+        return testCase != null ? testCase.id : null;
+    }
+
+    /**
+     * Sets the TestRail {@code custom_automation_id} of a test case.
+     * @param name the case title
+     * @param automationId the automation id
+     */
+    public void setAutomationId(String name, String automationId) {
+        StoredCase testCase = casesByName.get(name);
+        testCase.automationId = automationId;
+        testCase.updatedOn = nowSeconds();
+    }
+
+    /**
+     * Renames a test case, keeping its id.
+     * @param name the current title
+     * @param newName the new title
+     */
+    public synchronized void renameTestCase(String name, String newName) {
+        StoredCase testCase = casesByName.remove(name);
+        testCase.name = newName;
+        testCase.updatedOn = nowSeconds();
+        casesByName.put(newName, testCase);
+    }
+
+    /**
+     * Gets every result received so far, in arrival order.
+     * @return the deliveries
+     */
+    public List<Delivery> getDeliveries() {
+        return Collections.unmodifiableList(deliveries);
+    }
+
+    /**
+     * Gets how often an endpoint was called, including requests rejected by injected faults.
+     * @param endpoint the endpoint as {@code <api>:<operation>}, e.g. {@code testrail:add_results_for_cases},
+     *                 {@code cloud:testexecutions} or {@code server:testresult}
+     * @return the number of calls
+     */
+    public int getRequestCount(String endpoint) {
+        AtomicInteger count = requests.get(endpoint);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Gets the requests an endpoint received, in arrival order, including those rejected by injected faults.
+     * @param endpoint the endpoint, as in {@link #getRequestCount(String)}
+     * @return the requests
+     */
+    public List<Request> getRequests(String endpoint) {
+        List<Request> log = requestLog.get(endpoint);
+        return log != null ? Collections.unmodifiableList(log) : Collections.emptyList();
+    }
+
+    /**
+     * Gets the number of requests received over all endpoints.
+     * @return the number of requests
+     */
+    public int getRequestCount() {
+        return requests.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    /**
+     * Gets the highest number of requests processed at once.
+     * @return the maximum concurrency seen
+     */
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    /**
+     * Gets the number of requests rejected with an injected {@code 503}.
+     * @return the count
+     */
+    public int getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    /**
+     * Gets the number of requests rejected with an injected {@code 429}.
+     * @return the count
+     */
+    public int getInjectedThrottles() {
+        return injectedThrottles.get();
+    }
+
+    /**
+     * Forgets received results, counters and faults scheduled with {@link #failRequest(String, int, int)}; test
+     * cases and fault rates are kept.
+     */
+    public void reset() {
+        deliveries.clear();
+        requests.clear();
+        requestLog.clear();
+        scheduledFaults.clear();
+        maxInFlight.set(0);
+        injectedErrors.set(0);
+        injectedThrottles.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long receivedAt = System.nanoTime();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        Response response;
+        Route route = null;
+        String body = null;
+        try {
+            body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/index.php")) {
+                route = testRailRoute(exchange);
+            } else if (path.startsWith("/v2/")) {
+                route = new Route("cloud:" + segment(path, 1), path);
+            } else if (path.startsWith("/rest/atm/1.0/")) {
+                route = serverRoute(path);
+            } else {
+                route = new Route("unknown", path);
+            }
+            int call = requests.computeIfAbsent(route.endpoint, e -> new AtomicInteger()).incrementAndGet();
+            response = injectFault(exchange, route, call);
+            if (response == null) {
+                response = dispatch(exchange, route, body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response = new Response(503, "{}");
+        } catch (RuntimeException e) {
+            response = new Response(400, gson.toJson(Collections.singletonMap("error", String.valueOf(e.getMessage()))));
+        } finally {
+            // Leave the window before answering, since the client may send its next request as soon as it reads this one
+            inFlight.decrementAndGet();
+        }
+        if (route != null) {
+            requestLog.computeIfAbsent(route.endpoint, e -> new CopyOnWriteArrayList<>())
+                .add(new Request(route.path, body, response.status, receivedAt, System.nanoTime()));
+        }
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private Response injectFault(HttpExchange exchange, Route route, int call) throws InterruptedException {
+        double roll;
+        long jitter;
+        synchronized (random) {
+            roll = random.nextDouble();
+            jitter = latencyJitterMillis > 0 ? (long) (random.nextDouble() * latencyJitterMillis) : 0;
+        }
+        if (latencyMillis + jitter > 0) {
+            TimeUnit.MILLISECONDS.sleep(latencyMillis + jitter);
+        }
+        Map<Integer, Integer> scheduled = scheduledFaults.get(route.endpoint);
+        Integer status = scheduled != null ? scheduled.remove(call) : null;
+        if (status == null && roll < throttleRate) {
+            status = 429;
+        } else if (status == null && roll < throttleRate + errorRate) {
+            status = 503;
+        }
+        if (status == null) {
+            return null;
+        }
+        if (status == 429) {
+            injectedThrottles.incrementAndGet();
+            exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+            return new Response(429, "{\"error\":\"API rate limit exceeded\"}");
+        }
+        injectedErrors.incrementAndGet();
+        return new Response(status, status == 503 ? "{\"error\":\"Service unavailable\"}" : "{\"error\":\"Injected failure\"}");
+    }
+
+    private Response dispatch(HttpExchange exchange, Route route, String body) {
+        String method = exchange.getRequestMethod();
+        switch (route.endpoint) {
+            // TestRail API v2
+            case "testrail:get_cases":
+                return ok(testRailCases(route.path));
+            case "testrail:add_case": {
+                long id = testCase(json(body).get("title").getAsString(), nowSeconds()).id;
+                return ok(idObject(id));
+            }
+            case "testrail:add_run":
+            case "testrail:update_run":
+                return ok(idObject(route.endpoint.endsWith("add_run") ? nextId.incrementAndGet() : Long.parseLong(segment(route.path, 1))));
+            case "testrail:add_results_for_cases":
+                for (JsonElement result : json(body).getAsJsonArray("results")) {
+                    JsonObject entry = result.getAsJsonObject();
+                    record("testrail", entry.get("case_id").getAsString(), entry.get("status_id").getAsString());
+                }
+                return ok("[]");
+            case "testrail:add_result_for_case":
+                record("testrail", segment(route.path, 2), json(body).get("status_id").getAsString());
+                return ok("{}");
+
+            // Zephyr Scale Cloud v2
+            case "cloud:testcycles":
+                return created(keyObject("CYCLE", nextId.incrementAndGet()));
+            case "cloud:testcases":
+                if ("GET".equals(method)) {
+                    String name = queryParam(exchange, "name");
+                    JsonArray values = new JsonArray();
+                    StoredCase testCase = name != null ? casesByName.get(name) : null;
+                    if (testCase != null) {
+                        values.add(keyObject("TC", testCase.id));
+                    }
+                    JsonObject page = new JsonObject();
+                    page.add("values", values);
+                    return ok(page);
+                }
+                return created(keyObject("TC", testCase(json(body).get("name").getAsString(), nowSeconds()).id));
+            case "cloud:testexecutions": {
+                JsonObject execution = json(body);
+                record("cloud", execution.get("testCaseId").getAsString(), execution.get("status").getAsString());
+                return created("{}");
+            }
+
+            // Zephyr Scale Server /rest/atm/1.0
+            case "server:testcase/search": {
+                String query = queryParam(exchange, "query");
+                // TQL: every quoted value after the project key is a name to match
+                JsonArray results = new JsonArray();
+                Matcher values = QUOTED.matcher(query);
+                while (values.find()) {
+                    String name = values.group(1).replace("\\\"", "\"").replace("\\\\", "\\");
+                    StoredCase stored = casesByName.get(name);
+                    if (stored != null) {
+                        JsonObject testCase = keyObject("TC", stored.id);
+                        testCase.addProperty("name", name);
+                        results.add(testCase);
+                    }
+                }
+                return ok(results);
+            }
+            case "server:testcase":
+                return created(keyObject("TC", testCase(json(body).get("name").getAsString(), nowSeconds()).id));
+            case "server:testrun": {
+                JsonObject run = json(body);
+                if (run.has("items")) {
+                    recordServerResults(run.getAsJsonArray("items"));
+                }
+                return "PUT".equals(method) ? ok("{}") : created(keyObject("RUN", nextId.incrementAndGet()));
+            }
+            case "server:testresults":
+                // testrun/<run>/testresults
+                recordServerResults(gson.fromJson(body, JsonArray.class));
+                return created("[]");
+            case "server:testresult":
+                // testrun/<run>/testcase/<case>/testresult
+                record("server", segment(route.path, 6), json(body).get("status").getAsString());
+                return created("{}");
+            default:
+                return new Response(404, "{\"error\":\"Unknown endpoint " + route.path + "\"}");
+        }
+    }
+
+    /**
+     * TestRail routes through the query string: {@code /index.php?/api/v2/<method>/<id>[&filters]}.
+     */
+    private static Route testRailRoute(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        String route = query != null && query.startsWith("/api/v2/") ? query.substring("/api/v2/".length()) : "";
+        String method = route.contains("/") ? route.substring(0, route.indexOf('/')) : route;
+        return new Route("testrail:" + method, route);
+    }
+
+    private static Route serverRoute(String path) {
+        String rest = path.substring("/rest/atm/1.0/".length());
+        if (rest.endsWith("/testresult")) {
+            return new Route("server:testresult", path);
+        }
+        if (rest.endsWith("/testresults")) {
+            return new Route("server:testresults", path);
+        }
+        if (rest.startsWith("testcase/search")) {
+            return new Route("server:testcase/search", path);
+        }
+        return new Route("server:" + segment(path, 3), path);
+    }
+
+    /**
+     * Mimics the paginated get_cases response of TestRail 6.7+, including the {@code updated_after} filter.
+     */
+    private JsonObject testRailCases(String route) {
+        int offset = intFilter(route, "offset", 0);
+        int limit = Math.min(TESTRAIL_MAX_PAGE, intFilter(route, "limit", TESTRAIL_MAX_PAGE));
+        long updatedAfter = intFilter(route, "updated_after", -1);
+        List<StoredCase> selected = new ArrayList<>();
+        for (StoredCase testCase : cases) {
+            if (testCase.updatedOn > updatedAfter) {
+                selected.add(testCase);
+            }
+        }
+        JsonArray page = new JsonArray();
+        for (StoredCase stored : selected.subList(Math.min(offset, selected.size()), Math.min(offset + limit, selected.size()))) {
+            JsonObject testCase = new JsonObject();
+            testCase.addProperty("id", stored.id);
+            testCase.addProperty("title", stored.name);
+            if (stored.automationId != null) {
+                testCase.addProperty("custom_automation_id", stored.automationId);
+            }
+            testCase.addProperty("updated_on", stored.updatedOn);
+            page.add(testCase);
+        }
+        JsonObject links = new JsonObject();
+        if (offset + limit < selected.size()) {
+            links.addProperty("next", "/api/v2/get_cases/" + TESTRAIL_PROJECT_ID + "&offset=" + (offset + limit));
+        } else {
+            links.add("next", null);
+        }
+        JsonObject body = new JsonObject();
+        body.addProperty("offset", offset);
+        body.addProperty("limit", limit);
+        body.addProperty("size", page.size());
+        body.add("_links", links);
+        body.add("cases", page);
+        return body;
+    }
+
+    private synchronized StoredCase testCase(String name, long updatedOn) {
+        return casesByName.computeIfAbsent(name, n -> {
+            StoredCase testCase = new StoredCase(nextId.incrementAndGet(), n, updatedOn);
+            cases.add(testCase);
+            return testCase;
+        });
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private void recordServerResults(JsonArray items) {
+        for (JsonElement item : items) {
+            JsonObject entry = item.getAsJsonObject();
+            record("server", entry.get("testCaseKey").getAsString(), entry.get("status").getAsString());
+        }
+    }
+
+    private void record(String api, String testCase, String status) {
+        deliveries.add(new Delivery(api, testCase, status, System.nanoTime()));
+    }
+
+    private JsonObject json(String body) {
+        return gson.fromJson(body, JsonObject.class);
+    }
+
+    private Response ok(Object body) {
+        return new Response(200, body instanceof String ? (String) body : gson.toJson(body));
+    }
+
+    private Response created(Object body) {
+        return new Response(201, body instanceof String ? (String) body : gson.toJson(body));
+    }
+
+    private static JsonObject idObject(long id) {
+        JsonObject object = new JsonObject();
+        object.addProperty("id", id);
+        return object;
+    }
+
+    private static JsonObject keyObject(String prefix, long id) {
+        JsonObject object = new JsonObject();
+        object.addProperty("id", String.valueOf(id));
+        object.addProperty("key", prefix + "-" + id);
+        return object;
+    }
+
+    private static String segment(String path, int index) {
+        String[] parts = path.replaceAll("&.*$", "").split("/");
+        int offset = path.startsWith("/") ? 1 : 0;
+        return index + offset < parts.length ? parts[index + offset] : "";
+    }
+
+    private static int intFilter(String route, String name, int fallback) {
+        for (String part : route.split("&")) {
+            if (part.startsWith(name + "=")) {
+                return Integer.parseInt(part.substring(name.length() + 1));
+            }
+        }
+        return fallback;
+    }
+
+    private static String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String part : query.split("&")) {
+            if (part.startsWith(name + "=")) {
+                return URLDecoder.decode(part.substring(name.length() + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static final class StoredCase {
+        final long id;
+        volatile String name;
+        volatile String automationId;
+        volatile long updatedOn;
+
+        StoredCase(long id, String name, long updatedOn) {
+            this.id = id;
+            this.name = name;
+            this.updatedOn = updatedOn;
+        }
+    }
+
+    private static final class Route {
+        final String endpoint;
+        final String path;
+
+        Route(String endpoint, String path) {
+            this.endpoint = endpoint;
+            this.path = path;
+        }
+    }
+
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * A request received by the stand-in and the status it was answered with.
+     */
+    public static final class Request {
+        private final String route;
+        private final String body;
+        private final int status;
+        private final long receivedAtNanos;
+        private final long answeredAtNanos;
+
+        Request(String route, String body, int status, long receivedAtNanos, long answeredAtNanos) {
+            this.route = route;
+            this.body = body;
+            this.status = status;
+            this.receivedAtNanos = receivedAtNanos;
+            this.answeredAtNanos = answeredAtNanos;
+        }
+
+        /** Gets the path, or for TestRail the API route with its filters, e.g. {@code get_cases/1&offset=0}. */
+        public String getRoute() { return route; }
+
+        /** Gets the request body. */
+        public String getBody() { return body; }
+
+        /** Gets the status the stand-in answered with. */
+        public int getStatus() { return status; }
+
+        /** Gets the {@link System#nanoTime()} at which the request arrived. */
+        public long getReceivedAtNanos() { return receivedAtNanos; }
+
+        /** Gets the {@link System#nanoTime()} at which the answer was sent. */
+        public long getAnsweredAtNanos() { return answeredAtNanos; }
+    }
+
+    /**
+     * A result received by the stand-in.
+     */
+    public static final class Delivery {
+        private final String api;
+        private final String testCase;
+        private final String status;
+        private final long receivedAtNanos;
+
+        Delivery(String api, String testCase, String status, long receivedAtNanos) {
+            this.api = api;
+            this.testCase = testCase;
+            this.status = status;
+            this.receivedAtNanos = receivedAtNanos;
+        }
+
+        /** Gets the API that received the result: {@code testrail}, {@code cloud} or {@code server}. */
+        public String getApi() { return api; }
+
+        /** Gets the case id or key the result was reported for. */
+        public String getTestCase() { return testCase; }
+
+        /** Gets the status as sent by the client. */
+        public String getStatus() { return status; }
+
+        /** Gets the {@link System#nanoTime()} at which the result arrived. */
+        public long getReceivedAtNanos() { return receivedAtNanos; }
+    }
+}